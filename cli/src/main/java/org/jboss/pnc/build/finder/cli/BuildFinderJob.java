@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.cli;
+
+import static org.jboss.pnc.build.finder.core.AnsiUtils.green;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.red;
+import static org.jboss.pnc.build.finder.core.Utils.getAllErrorMessages;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections4.MultiValuedMap;
+import org.infinispan.commons.api.BasicCacheContainer;
+import org.jboss.pnc.build.finder.core.BuildCheckedEvent;
+import org.jboss.pnc.build.finder.core.BuildConfig;
+import org.jboss.pnc.build.finder.core.BuildFinder;
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
+import org.jboss.pnc.build.finder.core.BuildSystemInteger;
+import org.jboss.pnc.build.finder.core.CheckpointJournal;
+import org.jboss.pnc.build.finder.core.ChecksumType;
+import org.jboss.pnc.build.finder.core.ChecksumsComputedEvent;
+import org.jboss.pnc.build.finder.core.DistributionAnalyzer;
+import org.jboss.pnc.build.finder.core.JSONUtils;
+import org.jboss.pnc.build.finder.core.LocalFile;
+import org.jboss.pnc.build.finder.core.MetricsRegistry;
+import org.jboss.pnc.build.finder.koji.ClientSession;
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.jboss.pnc.build.finder.koji.MeteredClientSession;
+import org.jboss.pnc.build.finder.pnc.client.CachingPncClient;
+import org.jboss.pnc.build.finder.pnc.client.MeteredPncClient;
+import org.jboss.pnc.build.finder.pnc.client.PncClient;
+import org.jboss.pnc.build.finder.report.Report;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.red.build.koji.KojiClientException;
+
+/**
+ * An analysis job run by the {@link BuildFinderServer}. The job shares the cache container and the Koji and PNC
+ * clients of the server, and records its progress as a list of events that can be read while it is running. Only the
+ * latest events are retained, so a reader which falls too far behind skips the oldest ones. Each job records its own
+ * metrics, which are written to its output directory when the analysis is done.
+ */
+final class BuildFinderJob implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildFinderJob.class);
+
+    private static final int MAX_EVENTS = 10000;
+
+    enum Status {
+        queued, running, completed, failed
+    }
+
+    private final String id;
+
+    private final List<String> files;
+
+    private final Path outputDirectory;
+
+    private final BuildConfig config;
+
+    private final BasicCacheContainer cacheManager;
+
+    private final ClientSession session;
+
+    private final PncClient pncClient;
+
+    private final BuildFinderMetrics metrics;
+
+    private final List<Map<String, Object>> events;
+
+    private long firstEventIndex;
+
+    private Status status;
+
+    BuildFinderJob(
+            String id,
+            List<String> files,
+            Path outputDirectory,
+            BuildConfig config,
+            BasicCacheContainer cacheManager,
+            ClientSession session,
+            PncClient pncClient,
+            List<MetricsRegistry> metricsRegistries) {
+        this.id = id;
+        this.files = List.copyOf(files);
+        this.outputDirectory = outputDirectory;
+        this.config = BuildConfig.copy(config);
+        this.config.setOutputDirectory(outputDirectory.toString());
+        this.cacheManager = cacheManager;
+        this.session = session;
+        this.pncClient = pncClient;
+        this.metrics = new BuildFinderMetrics();
+        metricsRegistries.forEach(metrics::addRegistry);
+        this.events = new ArrayList<>();
+        this.status = Status.queued;
+
+        addStatusEvent(Status.queued, null);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    synchronized Status getStatus() {
+        return status;
+    }
+
+    synchronized boolean isDone() {
+        return status == Status.completed || status == Status.failed;
+    }
+
+    /**
+     * Gets the retained events from the cursor on, waiting for at least one new event unless the job is done, and
+     * moves the cursor past them. Events which are no longer retained are skipped.
+     *
+     * @param cursor the cursor of the reader
+     * @return the events, or an empty list once the job is done and all events have been read
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized List<Map<String, Object>> awaitEvents(EventCursor cursor) throws InterruptedException {
+        long endIndex;
+
+        while (cursor.index >= (endIndex = firstEventIndex + events.size()) && !isDone()) {
+            wait();
+        }
+
+        if (cursor.index >= endIndex) {
+            return Collections.emptyList();
+        }
+
+        int fromIndex = (int) (Math.max(cursor.index, firstEventIndex) - firstEventIndex);
+        cursor.index = endIndex;
+        return List.copyOf(events.subList(fromIndex, events.size()));
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("status", status);
+        map.put("files", files);
+        map.put("output-directory", outputDirectory.toString());
+        return map;
+    }
+
+    @Override
+    public void run() {
+        LOGGER.info("Running job {} for files: {}", green(id), green(files));
+        setStatus(Status.running, null);
+
+        try {
+            int numBuilds = analyze();
+            LOGGER.info("Job {} completed with {} builds", green(id), green(numBuilds));
+            setStatus(Status.completed, null);
+        } catch (IOException | KojiClientException | RuntimeException e) {
+            String message = getAllErrorMessages(e);
+            LOGGER.error("Job {} failed: {}", red(id), red(message));
+            LOGGER.debug("Error", e);
+            setStatus(Status.failed, message);
+        }
+    }
+
+    private int analyze() throws IOException, KojiClientException {
+        Files.createDirectories(outputDirectory);
+
+        CacheStatistics cacheStatistics = CacheStatistics.of(cacheManager);
+
+        try {
+            return analyzeFiles();
+        } finally {
+            CacheStatistics.of(cacheManager).recordSince(cacheStatistics, metrics);
+            metrics.writeSummary(outputDirectory);
+        }
+    }
+
+    private int analyzeFiles() throws IOException, KojiClientException {
+        try (DistributionAnalyzer analyzer = new DistributionAnalyzer(files, config, cacheManager)) {
+            analyzer.setListener(this::checksumsComputed);
+            analyzer.setMetrics(metrics);
+            Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = analyzer.call();
+
+            if (Boolean.FALSE.equals(config.getLicensesOnly())) {
+                for (ChecksumType checksumType : checksums.keySet()) {
+                    analyzer.outputToFile(checksumType);
+                }
+            }
+
+            if (Boolean.FALSE.equals(config.getDisableLicenses())) {
+                analyzer.outputLicensesToFile();
+            }
+
+            if (Boolean.TRUE.equals(config.getChecksumOnly()) || Boolean.TRUE.equals(config.getLicensesOnly())) {
+                return 0;
+            }
+
+            Map<BuildSystemInteger, KojiBuild> builds;
+
+            try (CheckpointJournal journal = new CheckpointJournal(
+                    outputDirectory.resolve(BuildFinder.getCheckpointFilename()),
+                    config.getResume())) {
+                // The PNC client of the server is not cached, so that only the requests actually sent are metered
+                BuildFinder finder = new BuildFinder(
+                        session != null ? new MeteredClientSession(session, metrics) : null,
+                        config,
+                        analyzer,
+                        cacheManager,
+                        pncClient != null
+                                ? new CachingPncClient(new MeteredPncClient(pncClient, metrics), cacheManager)
+                                : null);
+                finder.setOutputDirectory(outputDirectory);
+                finder.setCheckpointJournal(journal);
+                finder.setListener(this::buildChecked);
+                builds = finder.call();
+                finder.outputLookupFailedToFile();
+            }
+
+            JSONUtils.dumpMapToFile(
+                    builds,
+                    outputDirectory.resolve(BuildFinder.getBuildsFilename(config.getOutputFormat())),
+                    config.getOutputFormat(),
+                    config.getCompactOutput());
+
+            List<KojiBuild> buildList = new ArrayList<>(builds.values());
+            KojiBuild buildZero = !buildList.isEmpty() ? buildList.get(0) : null;
+            int buildListSize = buildList.size();
+
+            if (buildListSize > 1) {
+                buildList.sort(Comparator.comparing(KojiBuild::getId));
+            }
+
+            if (buildListSize > 1 || buildZero != null && !buildZero.getArchives().isEmpty()) {
+                Report.generateReports(config, buildList, outputDirectory, files);
+            }
+
+            return buildListSize;
+        }
+    }
+
+    private void checksumsComputed(ChecksumsComputedEvent event) {
+        Map<String, Object> map = newEvent("checksums-computed");
+        map.put("count", event.getCount());
+        addEvent(map);
+    }
+
+    private void buildChecked(BuildCheckedEvent event) {
+        Map<String, Object> map = newEvent("build-checked");
+        map.put("build-system", event.getBuildSystem());
+        map.put("checksum-type", event.getChecksum().getType());
+        map.put("checksum", event.getChecksum().getValue());
+        map.put("filename", event.getChecksum().getFilename());
+        addEvent(map);
+    }
+
+    private synchronized void setStatus(Status status, String message) {
+        this.status = status;
+        addStatusEvent(status, message);
+    }
+
+    private void addStatusEvent(Status status, String message) {
+        Map<String, Object> map = newEvent("status");
+        map.put("status", status);
+
+        if (message != null) {
+            map.put("message", message);
+        }
+
+        addEvent(map);
+    }
+
+    private Map<String, Object> newEvent(String type) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("job", id);
+        map.put("event", type);
+        return map;
+    }
+
+    private synchronized void addEvent(Map<String, Object> event) {
+        // The oldest half of the events is dropped at once, so that dropping events takes constant amortized time
+        if (events.size() == MAX_EVENTS) {
+            events.subList(0, MAX_EVENTS / 2).clear();
+            firstEventIndex += MAX_EVENTS / 2;
+        }
+
+        events.add(Collections.unmodifiableMap(event));
+        notifyAll();
+    }
+
+    /**
+     * The position of a reader in the events of a job.
+     */
+    static final class EventCursor {
+        private long index;
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.green;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.red;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.commons.api.BasicCacheContainer;
+import org.jboss.pnc.build.finder.core.BuildConfig;
+import org.jboss.pnc.build.finder.core.BuildFinderObjectMapper;
+import org.jboss.pnc.build.finder.core.MetricsRegistry;
+import org.jboss.pnc.build.finder.core.Utils;
+import org.jboss.pnc.build.finder.koji.ClientSession;
+import org.jboss.pnc.build.finder.pnc.client.PncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A long-running server which accepts analysis jobs over HTTP on the loopback address. The cache container, the SPDX
+ * license list, and the Koji and PNC clients are set up once and shared by all jobs, so that a job only pays for the
+ * analysis itself. Jobs are run one at a time in the order they are submitted, and only the latest finished jobs are
+ * kept. The PNC client should not be a caching client, since each job adds its own caching and metering on top of it.
+ * <p>
+ * Since any local user can connect to the loopback address, and a job reads the given files with the rights of the
+ * server, each request must carry the token generated when the server starts, as an {@code Authorization: Bearer}
+ * header. The token is written to a file in the configured output directory which only the owner can read.
+ * <p>
+ * The API is as follows:
+ * <ul>
+ * <li>{@code POST /jobs} submits a job given a JSON object with the list of {@code files} and an optional
+ * {@code output-directory}, which is resolved against the configured output directory and must be inside it</li>
+ * <li>{@code GET /jobs} lists the jobs</li>
+ * <li>{@code GET /jobs/<id>} gets the status of a job</li>
+ * <li>{@code GET /jobs/<id>/events} streams the progress events of a job as newline-delimited JSON until the job is
+ * done</li>
+ * </ul>
+ */
+public final class BuildFinderServer implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BuildFinderServer.class);
+
+    private static final String JOBS_PATH = "/jobs";
+
+    private static final String EVENTS = "events";
+
+    private static final String APPLICATION_JSON = "application/json";
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final int BACKLOG = 64;
+
+    private static final int REQUEST_THREADS = 16;
+
+    private static final int MAX_EVENT_STREAMS = 12;
+
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    private static final String TOKEN_FILENAME = "server-token";
+
+    private static final String BEARER = "Bearer ";
+
+    private static final int TOKEN_LENGTH = 32;
+
+    private static final ObjectMapper MAPPER = new BuildFinderObjectMapper();
+
+    private static final ObjectWriter WRITER = MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    private final BuildConfig config;
+
+    private final BasicCacheContainer cacheManager;
+
+    private final ClientSession session;
+
+    private final PncClient pncClient;
+
+    private final List<MetricsRegistry> metricsRegistries;
+
+    private final Map<String, BuildFinderJob> jobs;
+
+    private final AtomicLong jobIds;
+
+    private final ExecutorService jobPool;
+
+    private final ExecutorService requestPool;
+
+    private final Semaphore eventStreams;
+
+    private final CountDownLatch terminated;
+
+    private final AtomicBoolean closed;
+
+    private HttpServer server;
+
+    private byte[] token;
+
+    private Path tokenFile;
+
+    public BuildFinderServer(
+            BuildConfig config,
+            BasicCacheContainer cacheManager,
+            ClientSession session,
+            PncClient pncClient) {
+        this.config = config;
+        this.cacheManager = cacheManager;
+        this.session = session;
+        this.pncClient = pncClient;
+        this.metricsRegistries = new CopyOnWriteArrayList<>();
+        this.jobs = new LinkedHashMap<>();
+        this.jobIds = new AtomicLong();
+        this.jobPool = Executors.newSingleThreadExecutor();
+        // Event streams block until their job is done, so fewer of them are allowed than there are threads
+        this.requestPool = Executors.newFixedThreadPool(REQUEST_THREADS);
+        this.eventStreams = new Semaphore(MAX_EVENT_STREAMS);
+        this.terminated = new CountDownLatch(1);
+        this.closed = new AtomicBoolean();
+    }
+
+    /**
+     * Adds a registry to which the metrics of all jobs submitted from now on are also recorded.
+     *
+     * @param registry the registry
+     */
+    public void addMetricsRegistry(MetricsRegistry registry) {
+        metricsRegistries.add(registry);
+    }
+
+    public static String getTokenFilename() {
+        return TOKEN_FILENAME;
+    }
+
+    public void start(int port) throws IOException {
+        writeToken();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        server.setExecutor(requestPool);
+        server.createContext(JOBS_PATH, this::handleExchange);
+        server.start();
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Listening for jobs on: {} with the token in: {}", green(getURI()), green(tokenFile));
+        }
+    }
+
+    /*
+     * Generates a new token and writes it to a file which is created readable by its owner only, where the file
+     * system supports it
+     */
+    private void writeToken() throws IOException {
+        byte[] bytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Path outputDirectory = Files.createDirectories(Path.of(config.getOutputDirectory()));
+        Path path = outputDirectory.resolve(TOKEN_FILENAME);
+
+        Files.deleteIfExists(path);
+
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+        }
+
+        Files.writeString(path, value, UTF_8);
+        token = value.getBytes(UTF_8);
+        tokenFile = path;
+    }
+
+    /*
+     * Compares the token in constant time, so that its value cannot be guessed from the response times
+     */
+    private boolean isAuthorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(token, authorization.substring(BEARER.length()).trim().getBytes(UTF_8));
+    }
+
+    String getToken() {
+        return new String(token, UTF_8);
+    }
+
+    public URI getURI() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + JOBS_PATH);
+    }
+
+    /**
+     * Waits until the server is closed.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTermination() throws InterruptedException {
+        terminated.await();
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        try {
+            if (!isAuthorized(exchange)) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                sendError(exchange, 401, "Unauthorized");
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath().substring(JOBS_PATH.length());
+
+            if (!path.isEmpty() && !path.startsWith("/")) {
+                sendError(exchange, 404, "Not found");
+                return;
+            }
+
+            List<String> segments = Arrays.stream(path.split("/")).filter(s -> !s.isEmpty()).toList();
+
+            if (segments.isEmpty()) {
+                if ("GET".equals(method)) {
+                    listJobs(exchange);
+                } else if ("POST".equals(method)) {
+                    submitJob(exchange);
+                } else {
+                    sendError(exchange, 405, "Method not allowed");
+                }
+
+                return;
+            }
+
+            BuildFinderJob job;
+
+            synchronized (jobs) {
+                job = jobs.get(segments.get(0));
+            }
+
+            if (job == null || segments.size() > 2 || segments.size() == 2 && !EVENTS.equals(segments.get(1))) {
+                sendError(exchange, 404, "Not found");
+            } else if (!"GET".equals(method)) {
+                sendError(exchange, 405, "Method not allowed");
+            } else if (segments.size() == 1) {
+                sendJson(exchange, 200, job.toMap());
+            } else if (!eventStreams.tryAcquire()) {
+                sendError(exchange, 503, "Too many event streams");
+            } else {
+                try {
+                    streamEvents(exchange, job);
+                } finally {
+                    eventStreams.release();
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error handling {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void listJobs(HttpExchange exchange) throws IOException {
+        List<Map<String, Object>> list;
+
+        synchronized (jobs) {
+            list = new ArrayList<>(jobs.size());
+
+            for (BuildFinderJob job : jobs.values()) {
+                list.add(job.toMap());
+            }
+        }
+
+        sendJson(exchange, 200, list);
+    }
+
+    private void submitJob(HttpExchange exchange) throws IOException {
+        JsonNode request;
+
+        try (InputStream in = exchange.getRequestBody()) {
+            request = MAPPER.readTree(in);
+        } catch (JacksonException e) {
+            sendError(exchange, 400, "Invalid JSON: " + e.getOriginalMessage());
+            return;
+        }
+
+        JsonNode filesNode = request != null ? request.get("files") : null;
+
+        if (filesNode == null || !filesNode.isArray() || filesNode.isEmpty()) {
+            sendError(exchange, 400, "Must set files");
+            return;
+        }
+
+        List<String> files = new ArrayList<>(filesNode.size());
+
+        for (JsonNode fileNode : filesNode) {
+            if (!fileNode.isTextual()) {
+                sendError(exchange, 400, "Files must be strings");
+                return;
+            }
+
+            files.add(fileNode.asText());
+        }
+
+        JsonNode outputDirectoryNode = request.get("output-directory");
+
+        if (outputDirectoryNode != null && !outputDirectoryNode.isTextual()) {
+            sendError(exchange, 400, "Output directory must be a string");
+            return;
+        }
+
+        Path baseDirectory = Path.of(config.getOutputDirectory()).toAbsolutePath().normalize();
+        Path outputDirectory = null;
+
+        if (outputDirectoryNode != null) {
+            try {
+                outputDirectory = baseDirectory.resolve(outputDirectoryNode.asText()).normalize();
+            } catch (InvalidPathException e) {
+                sendError(exchange, 400, "Invalid output directory: " + e.getReason());
+                return;
+            }
+
+            if (!outputDirectory.startsWith(baseDirectory)) {
+                sendError(exchange, 400, "Output directory must be inside the output directory of the server");
+                return;
+            }
+        }
+
+        String id = String.valueOf(jobIds.incrementAndGet());
+
+        if (outputDirectory == null) {
+            outputDirectory = baseDirectory.resolve("job-" + id);
+        }
+
+        BuildFinderJob job = new BuildFinderJob(
+                id,
+                files,
+                outputDirectory,
+                config,
+                cacheManager,
+                session,
+                pncClient,
+                metricsRegistries);
+
+        synchronized (jobs) {
+            evictFinishedJobs();
+            jobs.put(id, job);
+        }
+
+        jobPool.execute(job);
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("Queued job {} with output directory: {}", green(id), green(outputDirectory));
+        }
+
+        exchange.getResponseHeaders().set("Location", JOBS_PATH + "/" + id);
+        sendJson(exchange, 202, job.toMap());
+    }
+
+    /*
+     * Removes the oldest finished jobs once there are too many. The caller must hold the lock on the jobs.
+     */
+    private void evictFinishedJobs() {
+        int numFinished = 0;
+
+        for (BuildFinderJob job : jobs.values()) {
+            if (job.isDone()) {
+                numFinished++;
+            }
+        }
+
+        Iterator<BuildFinderJob> it = jobs.values().iterator();
+
+        while (numFinished >= MAX_FINISHED_JOBS && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+                numFinished--;
+            }
+        }
+    }
+
+    private static void streamEvents(HttpExchange exchange, BuildFinderJob job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", APPLICATION_NDJSON);
+        exchange.sendResponseHeaders(200, 0L);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            BuildFinderJob.EventCursor cursor = new BuildFinderJob.EventCursor();
+            List<Map<String, Object>> events;
+
+            while (!(events = job.awaitEvents(cursor)).isEmpty()) {
+                for (Map<String, Object> event : events) {
+                    out.write(WRITER.writeValueAsBytes(event));
+                    out.write('\n');
+                }
+
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, Map.of("error", message));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] bytes = WRITER.writeValueAsBytes(value);
+
+        exchange.getResponseHeaders().set("Content-Type", APPLICATION_JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops accepting requests, gives the running job some time to finish, and ends any event streams.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (server != null) {
+            server.stop(0);
+        }
+
+        Utils.shutdownAndAwaitTermination(jobPool);
+        requestPool.shutdownNow();
+
+        if (tokenFile != null) {
+            try {
+                Files.deleteIfExists(tokenFile);
+            } catch (IOException e) {
+                LOGGER.warn("Error deleting token file {}: {}", red(tokenFile), red(e.getMessage()));
+            }
+        }
+
+        terminated.countDown();
+    }
+}
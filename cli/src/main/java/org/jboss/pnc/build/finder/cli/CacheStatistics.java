@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.cli;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.infinispan.commons.api.BasicCacheContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.stats.Stats;
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
+
+/**
+ * A snapshot of the hits and misses of each cache, taken from the Infinispan cache statistics.
+ */
+final class CacheStatistics {
+    private static final String CACHE_TAG = "cache";
+
+    private final Map<String, long[]> counts;
+
+    private CacheStatistics(Map<String, long[]> counts) {
+        this.counts = counts;
+    }
+
+    static CacheStatistics of(BasicCacheContainer cacheContainer) {
+        if (!(cacheContainer instanceof EmbeddedCacheManager cacheManager)) {
+            return new CacheStatistics(Collections.emptyMap());
+        }
+
+        Map<String, long[]> counts = new HashMap<>();
+
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Stats stats = cacheManager.getCache(cacheName).getAdvancedCache().getStats();
+            counts.put(cacheName, new long[] { stats.getHits(), stats.getMisses() });
+        }
+
+        return new CacheStatistics(Collections.unmodifiableMap(counts));
+    }
+
+    /**
+     * Records the hits and misses of each cache since the given snapshot.
+     *
+     * @param start the earlier snapshot
+     * @param metrics the metrics to record the hits and misses in
+     */
+    void recordSince(CacheStatistics start, BuildFinderMetrics metrics) {
+        for (Entry<String, long[]> entry : counts.entrySet()) {
+            String cacheName = entry.getKey();
+            long[] current = entry.getValue();
+            long[] previous = start.counts.getOrDefault(cacheName, new long[2]);
+            metrics.count(BuildFinderMetrics.CACHE_HITS, current[0] - previous[0], CACHE_TAG, cacheName);
+            metrics.count(BuildFinderMetrics.CACHE_MISSES, current[1] - previous[1], CACHE_TAG, cacheName);
+        }
+    }
+}
@@ -32,7 +32,7 @@ import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
@@ -54,20 +54,29 @@ import org.infinispan.manager.DefaultCacheManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.jboss.pnc.build.finder.core.BuildConfig;
 import org.jboss.pnc.build.finder.core.BuildFinder;
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
 import org.jboss.pnc.build.finder.core.BuildSystem;
 import org.jboss.pnc.build.finder.core.BuildSystemInteger;
+import org.jboss.pnc.build.finder.core.CheckpointJournal;
 import org.jboss.pnc.build.finder.core.Checksum;
 import org.jboss.pnc.build.finder.core.ChecksumType;
 import org.jboss.pnc.build.finder.core.ConfigDefaults;
 import org.jboss.pnc.build.finder.core.DistributionAnalyzer;
 import org.jboss.pnc.build.finder.core.JSONUtils;
 import org.jboss.pnc.build.finder.core.LocalFile;
+import org.jboss.pnc.build.finder.core.LookupStrategy;
+import org.jboss.pnc.build.finder.core.MetricsRegistry;
+import org.jboss.pnc.build.finder.core.OutputFormat;
+import org.jboss.pnc.build.finder.core.SpdxLicenseUtils;
 import org.jboss.pnc.build.finder.core.Utils;
 import org.jboss.pnc.build.finder.koji.KojiBuild;
 import org.jboss.pnc.build.finder.koji.KojiClientSession;
 import org.jboss.pnc.build.finder.koji.KojiJSONUtils;
+import org.jboss.pnc.build.finder.koji.MeteredClientSession;
 import org.jboss.pnc.build.finder.pnc.client.CachingPncClient;
+import org.jboss.pnc.build.finder.pnc.client.MeteredPncClient;
 import org.jboss.pnc.build.finder.pnc.client.PncClient;
+import org.jboss.pnc.build.finder.pnc.client.PncClientImpl;
 import org.jboss.pnc.build.finder.protobuf.ProtobufSerializerImpl;
 import org.jboss.pnc.build.finder.report.Report;
 import org.slf4j.Logger;
@@ -89,6 +98,7 @@ import picocli.CommandLine.ITypeConverter;
 import picocli.CommandLine.IVersionProvider;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Spec;
 
@@ -133,12 +143,18 @@ public final class Main implements Callable<Void> {
     @Option(names = { "-c", "--config" }, paramLabel = "FILE", description = "Specify configuration file to use.")
     private Path configFile = ConfigDefaults.CONFIG;
 
+    @Option(names = "--compact-output", description = "Write output files without indentation.")
+    private Boolean compactOutput = ConfigDefaults.COMPACT_OUTPUT;
+
     @Option(names = { "-d", "--debug" }, description = "Enable debug logging.")
     private boolean debug;
 
     @Option(names = "--disable-cache", description = "Disable local cache.")
     private Boolean disableCache = ConfigDefaults.DISABLE_CACHE;
 
+    @Option(names = "--disable-licenses", description = "Disable license analysis.")
+    private Boolean disableLicenses = ConfigDefaults.DISABLE_LICENSES;
+
     @Option(names = "--disable-recursion", description = "Disable recursion.")
     private Boolean disableRecursion = ConfigDefaults.DISABLE_RECURSION;
 
@@ -161,6 +177,15 @@ public final class Main implements Callable<Void> {
     @Option(names = "--koji-num-threads", paramLabel = "INT", description = "Set Koji num threads.")
     private Integer kojiNumThreads = ConfigDefaults.KOJI_NUM_THREADS;
 
+    @Option(names = "--koji-retries", paramLabel = "INT", description = "Set Koji lookup retries.")
+    private Integer kojiRetries = ConfigDefaults.KOJI_RETRIES;
+
+    @Option(
+            names = "--koji-retry-delay",
+            paramLabel = "LONG",
+            description = "Set Koji initial lookup retry delay in milliseconds.")
+    private Long kojiRetryDelay = ConfigDefaults.KOJI_RETRY_DELAY;
+
     @Option(names = "--koji-web-url", paramLabel = "URL", description = "Set Koji web URL.")
     private URL kojiWebURL = ConfigDefaults.KOJI_WEB_URL;
 
@@ -184,9 +209,26 @@ public final class Main implements Callable<Void> {
     @Option(names = "--krb-service", paramLabel = "STRING", description = "Set Kerberos client service.")
     private String krbService;
 
+    @Option(
+            names = "--licenses-only",
+            description = "Only analyze licenses, reusing cached checksums, and do not find builds.")
+    private Boolean licensesOnly = ConfigDefaults.LICENSES_ONLY;
+
+    @Option(
+            names = "--lookup-strategy",
+            paramLabel = "STRATEGY",
+            description = "Set lookup strategy when using both Pnc and Koji (${COMPLETION-CANDIDATES}).")
+    private LookupStrategy lookupStrategy = ConfigDefaults.LOOKUP_STRATEGY;
+
     @Option(names = { "-o", "--output-directory" }, paramLabel = "FILE", description = "Set output directory.")
     private Path outputDirectory = Path.of(ConfigDefaults.OUTPUT_DIR);
 
+    @Option(
+            names = "--output-format",
+            paramLabel = "FORMAT",
+            description = "Set format of the checksums and builds files (${COMPLETION-CANDIDATES}).")
+    private OutputFormat outputFormat = ConfigDefaults.OUTPUT_FORMAT;
+
     @Option(names = "--pnc-num-threads", paramLabel = "LONG", description = "Set Pnc thread number.")
     private Long pncNumThreads = ConfigDefaults.PNC_NUM_THREADS;
 
@@ -199,6 +241,22 @@ public final class Main implements Callable<Void> {
     @Option(names = { "-q", "--quiet" }, description = "Disable all logging.")
     private boolean quiet;
 
+    @Option(names = "--resume", description = "Resume from the checkpoint of a previous run.")
+    private Boolean resume = ConfigDefaults.RESUME;
+
+    @Option(
+            names = "--server-port",
+            paramLabel = "INT",
+            description = "Run as a server accepting jobs on the given local port (0 for any free port) instead of "
+                    + "analyzing files.")
+    private Integer serverPort;
+
+    @Option(
+            names = "--spill-threshold",
+            paramLabel = "INT",
+            description = "Set number of files to keep checksums for in memory before spilling to disk (0 to disable).")
+    private Integer spillThreshold = ConfigDefaults.SPILL_THRESHOLD;
+
     @Option(
             names = { "-t", "--checksum-type" },
             paramLabel = "CHECKSUM",
@@ -217,7 +275,7 @@ public final class Main implements Callable<Void> {
             description = "Add a pattern to exclude from build lookup.")
     private List<Pattern> excludes = ConfigDefaults.EXCLUDES;
 
-    @Parameters(arity = "1..*", paramLabel = "FILE", description = "One or more files.")
+    @Parameters(arity = "0..*", paramLabel = "FILE", description = "One or more files.")
     private List<String> files;
 
     public static void main(String[] args) {
@@ -321,6 +379,10 @@ public final class Main implements Callable<Void> {
             config.setCacheLifespan(cacheLifespan);
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--compact-output")) {
+            config.setCompactOutput(compactOutput);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("--disable-cache")) {
             config.setDisableCache(disableCache);
             LOGGER.info("Local cache: {}", green("disabled"));
@@ -333,6 +395,10 @@ public final class Main implements Callable<Void> {
                     green(config.getCacheLifespan()));
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--disable-licenses")) {
+            config.setDisableLicenses(disableLicenses);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("--disable-recursion")) {
             config.setDisableRecursion(disableRecursion);
         }
@@ -341,6 +407,10 @@ public final class Main implements Callable<Void> {
             config.setChecksumOnly(checksumOnly);
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--licenses-only")) {
+            config.setLicensesOnly(licensesOnly);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("-t")) {
             config.setChecksumTypes(checksumTypes);
         }
@@ -369,6 +439,14 @@ public final class Main implements Callable<Void> {
             config.setKojiNumThreads(kojiNumThreads);
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--koji-retries")) {
+            config.setKojiRetries(kojiRetries);
+        }
+
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--koji-retry-delay")) {
+            config.setKojiRetryDelay(kojiRetryDelay);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("--koji-web-url")) {
             config.setKojiWebURL(kojiWebURL);
         }
@@ -393,6 +471,14 @@ public final class Main implements Callable<Void> {
             LOGGER.debug("Read Kerberos password");
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--lookup-strategy")) {
+            config.setLookupStrategy(lookupStrategy);
+        }
+
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--output-format")) {
+            config.setOutputFormat(outputFormat);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("--pnc-num-threads")) {
             config.setPncNumThreads(pncNumThreads);
         }
@@ -405,6 +491,14 @@ public final class Main implements Callable<Void> {
             config.setPncURL(pncURL);
         }
 
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--resume")) {
+            config.setResume(resume);
+        }
+
+        if (commandSpec.commandLine().getParseResult().hasMatchedOption("--spill-threshold")) {
+            config.setSpillThreshold(spillThreshold);
+        }
+
         if (commandSpec.commandLine().getParseResult().hasMatchedOption("--use-builds-file")) {
             config.setUseBuildsFile(useBuildsFile);
         }
@@ -434,7 +528,9 @@ public final class Main implements Callable<Void> {
                 .create();
 
         GlobalConfiguration globalConfiguration = globalConfig.build();
-        Configuration configuration = new ConfigurationBuilder().expiration()
+        Configuration configuration = new ConfigurationBuilder().statistics()
+                .enable(true)
+                .expiration()
                 .lifespan(config.getCacheLifespan())
                 .wakeUpInterval(-1L)
                 .persistence()
@@ -459,10 +555,46 @@ public final class Main implements Callable<Void> {
         cacheManager.defineConfiguration("builds", configuration);
         cacheManager.defineConfiguration("builds-pnc", configuration);
         cacheManager.defineConfiguration("artifact-pnc", configuration);
+        cacheManager.defineConfiguration("license-files", configuration);
+        cacheManager.defineConfiguration("license-names", configuration);
+        cacheManager.defineConfiguration("pom-models", configuration);
 
         cacheManager.startCaches();
     }
 
+    private static BuildFinderMetrics createMetrics() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        ServiceLoader.load(MetricsRegistry.class).forEach(metrics::addRegistry);
+        return metrics;
+    }
+
+    /*
+     * Only the requests actually sent to PNC are recorded, since the metered client is wrapped by the caching client
+     */
+    private PncClient createPncClient(BuildConfig config, BuildFinderMetrics metrics) {
+        return new CachingPncClient(new MeteredPncClient(new PncClientImpl(config), metrics), cacheManager);
+    }
+
+    private void writeMetrics(BuildFinderMetrics metrics, CacheStatistics cacheStatistics) {
+        CacheStatistics.of(cacheManager).recordSince(cacheStatistics, metrics);
+
+        try {
+            metrics.writeSummary(outputDirectory);
+        } catch (IOException e) {
+            LOGGER.error("Error writing metrics file: {}", boldRed(e.getMessage()));
+            LOGGER.debug("Error", e);
+        }
+    }
+
+    private static void writeLookupFailed(BuildFinder finder) {
+        try {
+            finder.outputLookupFailedToFile();
+        } catch (IOException e) {
+            LOGGER.error("Error writing lookup failed file: {}", boldRed(e.getMessage()));
+            LOGGER.debug("Error", e);
+        }
+    }
+
     private void closeCaches() {
         if (cacheManager != null) {
             try {
@@ -509,6 +641,10 @@ public final class Main implements Callable<Void> {
 
     @Override
     public Void call() {
+        if (serverPort == null && (files == null || files.isEmpty())) {
+            throw new ParameterException(commandSpec.commandLine(), "Missing required parameter: 'FILE'");
+        }
+
         if (quiet) {
             disableLogging();
         } else if (debug) {
@@ -529,7 +665,12 @@ public final class Main implements Callable<Void> {
 
         LOGGER.debug("{}", config);
 
-        if (Boolean.FALSE.equals(config.getChecksumOnly())) {
+        if (Boolean.TRUE.equals(config.getDisableLicenses()) && Boolean.TRUE.equals(config.getLicensesOnly())) {
+            LOGGER.error("Cannot set both disable-licenses and licenses-only");
+            System.exit(1);
+        }
+
+        if (Boolean.FALSE.equals(config.getChecksumOnly()) && Boolean.FALSE.equals(config.getLicensesOnly())) {
             if (config.getKojiHubURL() == null) {
                 LOGGER.error("Must set koji-hub-url");
                 System.exit(1);
@@ -560,29 +701,43 @@ public final class Main implements Callable<Void> {
                                             .collect(Collectors.toUnmodifiableSet()))));
         }
 
-        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksumsFromFile = new EnumMap<>(ChecksumType.class);
+        if (serverPort != null) {
+            runServer(config);
+            return null;
+        }
 
-        if (Boolean.TRUE.equals(config.getUseChecksumsFile())) {
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksumsFromFile = new EnumMap<>(ChecksumType.class);
+        // The checksums to look up are collected while the checksums files are loaded, unless only checksumming
+        Map<Checksum, Collection<String>> checksumTable = Boolean.TRUE.equals(config.getUseChecksumsFile())
+                && !Boolean.TRUE.equals(checksumOnly) && !Boolean.TRUE.equals(config.getLicensesOnly())
+                        ? Maps.newHashMapWithExpectedSize(NEWMAP_SIZE)
+                        : null;
+
+        // Licenses are only extracted by analyzing the files, so in license-only mode there is no use for the checksums
+        // files
+        if (Boolean.TRUE.equals(config.getUseChecksumsFile()) && !Boolean.TRUE.equals(config.getLicensesOnly())) {
             for (ChecksumType checksumType : checksumTypes) {
-                Path checksumFile = outputDirectory.resolve(BuildFinder.getChecksumFilename(checksumType));
+                Path checksumFile = outputDirectory
+                        .resolve(BuildFinder.getChecksumFilename(checksumType, config.getOutputFormat()));
 
                 if (Files.isRegularFile(checksumFile) && Files.isReadable(checksumFile)) {
-                    checksumsFromFile.put(checksumType, new ArrayListValuedHashMap<>()); // TODO: size
+                    MultiValuedMap<String, LocalFile> subChecksums = new ArrayListValuedHashMap<>(); // TODO: size
+                    checksumsFromFile.put(checksumType, subChecksums);
 
                     LOGGER.info("Loading checksums from file: {}", green(checksumFile));
 
                     try {
-                        Map<String, Collection<LocalFile>> subChecksums = JSONUtils.loadChecksumsFile(checksumFile);
-                        Set<Entry<String, Collection<LocalFile>>> entrySet = subChecksums.entrySet();
+                        JSONUtils.loadChecksumsFile(checksumFile, (value, localFiles) -> {
+                            subChecksums.putAll(value, localFiles);
 
-                        for (Entry<String, Collection<LocalFile>> entry : entrySet) {
-                            String key = entry.getKey();
-                            Collection<LocalFile> values = entry.getValue();
+                            if (checksumTable != null) {
+                                List<String> filenames = localFiles.stream().map(LocalFile::getFilename).toList();
 
-                            for (LocalFile value : values) {
-                                checksumsFromFile.get(checksumType).put(key, value);
+                                for (LocalFile localFile : localFiles) {
+                                    checksumTable.put(new Checksum(checksumType, value, localFile), filenames);
+                                }
                             }
-                        }
+                        });
                     } catch (IOException e) {
                         LOGGER.error("Error loading checksums file: {}", boldRed(e.getMessage()));
                         LOGGER.debug("Error", e);
@@ -596,16 +751,19 @@ public final class Main implements Callable<Void> {
         }
 
         Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = checksumsFromFile;
+        BuildFinderMetrics metrics = createMetrics();
 
-        if (Boolean.TRUE.equals(checksumOnly)) {
-            if (Boolean.FALSE.equals(config.getUseChecksumsFile())) {
+        if (Boolean.TRUE.equals(checksumOnly) || Boolean.TRUE.equals(config.getLicensesOnly())) {
+            if (Boolean.FALSE.equals(config.getUseChecksumsFile()) || Boolean.TRUE.equals(config.getLicensesOnly())) {
                 if (cacheManager == null && !config.getDisableCache()) {
                     initCaches(config);
                 }
 
                 pool = Executors.newSingleThreadExecutor();
 
+                CacheStatistics cacheStatistics = CacheStatistics.of(cacheManager);
                 DistributionAnalyzer analyzer = new DistributionAnalyzer(files, config, cacheManager);
+                analyzer.setMetrics(metrics);
                 Future<Map<ChecksumType, MultiValuedMap<String, LocalFile>>> futureChecksum = pool.submit(analyzer);
 
                 try {
@@ -620,25 +778,39 @@ public final class Main implements Callable<Void> {
                     Thread.currentThread().interrupt();
                 }
 
-                try {
-                    analyzer.outputLicensesToFile();
-                } catch (IOException e) {
-                    LOGGER.error("Error writing licenses file: {}", boldRed(e.getMessage()));
-                    LOGGER.debug("Error", e);
-                    System.exit(1);
-                }
-
-                Set<ChecksumType> keySet = checksums.keySet();
-
-                for (ChecksumType checksumType : keySet) {
+                if (Boolean.FALSE.equals(config.getDisableLicenses())) {
                     try {
-                        analyzer.outputToFile(checksumType);
+                        analyzer.outputLicensesToFile();
                     } catch (IOException e) {
-                        LOGGER.error("Error writing checksums file: {}", boldRed(e.getMessage()));
+                        LOGGER.error("Error writing licenses file: {}", boldRed(e.getMessage()));
                         LOGGER.debug("Error", e);
                         System.exit(1);
                     }
                 }
+
+                // In license-only mode, only the cached checksums are known, so the checksums files are kept as is
+                if (Boolean.FALSE.equals(config.getLicensesOnly())) {
+                    Set<ChecksumType> keySet = checksums.keySet();
+
+                    for (ChecksumType checksumType : keySet) {
+                        try {
+                            analyzer.outputToFile(checksumType);
+                        } catch (IOException e) {
+                            LOGGER.error("Error writing checksums file: {}", boldRed(e.getMessage()));
+                            LOGGER.debug("Error", e);
+                            System.exit(1);
+                        }
+                    }
+                }
+
+                writeMetrics(metrics, cacheStatistics);
+
+                try {
+                    analyzer.close();
+                } catch (IOException e) {
+                    LOGGER.error("Error closing checksum table: {}", boldRed(e.getMessage()));
+                    LOGGER.debug("Error", e);
+                }
             } else {
                 int numChecksums = checksums.values().iterator().next().size();
 
@@ -660,7 +832,7 @@ public final class Main implements Callable<Void> {
 
         BuildFinder finder;
         Map<BuildSystemInteger, KojiBuild> builds = null;
-        Path buildsFile = outputDirectory.resolve(BuildFinder.getBuildsFilename());
+        Path buildsFile = outputDirectory.resolve(BuildFinder.getBuildsFilename(config.getOutputFormat()));
 
         if (Boolean.TRUE.equals(config.getUseBuildsFile())) {
             if (Files.isRegularFile(buildsFile) && Files.isReadable(buildsFile)) {
@@ -698,44 +870,50 @@ public final class Main implements Callable<Void> {
                                 krbCCache,
                                 krbKeytab)
                         : new KojiClientSession(config.getKojiHubURL());
-                        PncClient pncClient = config.getPncURL() != null ? new CachingPncClient(config, cacheManager)
-                                : null) {
+                        PncClient pncClient = config.getPncURL() != null ? createPncClient(config, metrics) : null;
+                        CheckpointJournal journal = new CheckpointJournal(
+                                outputDirectory.resolve(BuildFinder.getCheckpointFilename()),
+                                config.getResume())) {
                     if (isKerberos) {
                         LOGGER.info("Using Koji session with Kerberos service: {}", green(krbService));
                     } else {
                         LOGGER.info("Using anonymous Koji session");
                     }
 
+                    CacheStatistics cacheStatistics = CacheStatistics.of(cacheManager);
                     DistributionAnalyzer analyzer = new DistributionAnalyzer(files, config, cacheManager);
 
                     analyzer.setChecksums(checksums);
+                    analyzer.setMetrics(metrics);
 
                     if (config.getPncURL() != null) {
-                        finder = new BuildFinder(session, config, analyzer, cacheManager, pncClient);
+                        finder = new BuildFinder(
+                                new MeteredClientSession(session, metrics),
+                                config,
+                                analyzer,
+                                cacheManager,
+                                pncClient);
                     } else {
-                        finder = new BuildFinder(session, config, analyzer, cacheManager);
-                    }
-
-                    Map<Checksum, Collection<String>> newMap = Maps.newHashMapWithExpectedSize(NEWMAP_SIZE);
-
-                    for (ChecksumType checksumType : checksumTypes) {
-                        Map<String, Collection<LocalFile>> map = checksums.get(checksumType).asMap();
-
-                        for (Entry<String, Collection<LocalFile>> entry : map.entrySet()) {
-                            for (LocalFile filename : entry.getValue()) {
-                                newMap.put(
-                                        new Checksum(checksumType, entry.getKey(), filename),
-                                        entry.getValue().stream().map(LocalFile::getFilename).toList());
-                            }
-                        }
+                        finder = new BuildFinder(
+                                new MeteredClientSession(session, metrics),
+                                config,
+                                analyzer,
+                                cacheManager);
                     }
 
                     finder.setOutputDirectory(outputDirectory);
-                    builds = finder.findBuilds(newMap);
+                    finder.setCheckpointJournal(journal);
+                    builds = finder.findBuilds(checksumTable);
+                    writeLookupFailed(finder);
+                    writeMetrics(metrics, cacheStatistics);
                 } catch (KojiClientException e) {
                     LOGGER.error("Error finding builds: {}", boldRed(e.getMessage()));
                     LOGGER.debug("Error", e);
                     System.exit(1);
+                } catch (IOException e) {
+                    LOGGER.error("Error opening checkpoint: {}", boldRed(e.getMessage()));
+                    LOGGER.debug("Error", e);
+                    System.exit(1);
                 }
             } else {
                 if (cacheManager == null && !config.getDisableCache()) {
@@ -745,7 +923,9 @@ public final class Main implements Callable<Void> {
                 pool = Executors.newFixedThreadPool(2);
                 finderPool = Executors.newSingleThreadExecutor();
 
+                CacheStatistics cacheStatistics = CacheStatistics.of(cacheManager);
                 DistributionAnalyzer analyzer = new DistributionAnalyzer(files, config, cacheManager);
+                analyzer.setMetrics(metrics);
                 Future<Map<ChecksumType, MultiValuedMap<String, LocalFile>>> futureChecksum = pool.submit(analyzer);
 
                 boolean isKerberos = krbService != null && krbPrincipal != null && krbPassword != null
@@ -760,8 +940,10 @@ public final class Main implements Callable<Void> {
                                 krbCCache,
                                 krbKeytab)
                         : new KojiClientSession(config.getKojiHubURL());
-                        PncClient pncClient = config.getPncURL() != null ? new CachingPncClient(config, cacheManager)
-                                : null) {
+                        PncClient pncClient = config.getPncURL() != null ? createPncClient(config, metrics) : null;
+                        CheckpointJournal journal = new CheckpointJournal(
+                                outputDirectory.resolve(BuildFinder.getCheckpointFilename()),
+                                config.getResume())) {
                     if (isKerberos) {
                         LOGGER.info("Using Koji session with Kerberos service: {}", green(krbService));
                     } else {
@@ -769,12 +951,22 @@ public final class Main implements Callable<Void> {
                     }
 
                     if (config.getPncURL() != null) {
-                        finder = new BuildFinder(session, config, analyzer, cacheManager, pncClient);
+                        finder = new BuildFinder(
+                                new MeteredClientSession(session, metrics),
+                                config,
+                                analyzer,
+                                cacheManager,
+                                pncClient);
                     } else {
-                        finder = new BuildFinder(session, config, analyzer, cacheManager);
+                        finder = new BuildFinder(
+                                new MeteredClientSession(session, metrics),
+                                config,
+                                analyzer,
+                                cacheManager);
                     }
 
                     finder.setOutputDirectory(outputDirectory);
+                    finder.setCheckpointJournal(journal);
 
                     try {
                         checksums = futureChecksum.get();
@@ -818,23 +1010,43 @@ public final class Main implements Callable<Void> {
                         Thread.currentThread().interrupt();
                     }
 
+                    if (Boolean.FALSE.equals(config.getDisableLicenses())) {
+                        try {
+                            analyzer.outputLicensesToFile();
+                        } catch (IOException e) {
+                            LOGGER.error("Error writing licenses file: {}", boldRed(e.getMessage()));
+                            LOGGER.debug("Error", e);
+                        }
+                    }
+
                     try {
-                        analyzer.outputLicensesToFile();
+                        JSONUtils.dumpMapToFile(
+                                builds,
+                                buildsFile,
+                                config.getOutputFormat(),
+                                config.getCompactOutput());
                     } catch (IOException e) {
-                        LOGGER.error("Error writing licenses file: {}", boldRed(e.getMessage()));
+                        LOGGER.error("Error writing builds file: {}", boldRed(e.getMessage()));
                         LOGGER.debug("Error", e);
                     }
 
+                    writeLookupFailed(finder);
+                    writeMetrics(metrics, cacheStatistics);
+
                     try {
-                        JSONUtils.dumpObjectToFile(builds, buildsFile);
+                        analyzer.close();
                     } catch (IOException e) {
-                        LOGGER.error("Error writing builds file: {}", boldRed(e.getMessage()));
+                        LOGGER.error("Error closing checksum table: {}", boldRed(e.getMessage()));
                         LOGGER.debug("Error", e);
                     }
                 } catch (KojiClientException e) {
                     LOGGER.error("Error finding builds: {}", boldRed(e.getMessage()));
                     LOGGER.debug("Koji Client Error", e);
                     System.exit(1);
+                } catch (IOException e) {
+                    LOGGER.error("Error opening checkpoint: {}", boldRed(e.getMessage()));
+                    LOGGER.debug("Error", e);
+                    System.exit(1);
                 } catch (RuntimeException e) {
                     LOGGER.error("Error finding builds: {}", boldRed(e.getMessage()));
                     LOGGER.debug("Exception", e);
@@ -871,6 +1083,63 @@ public final class Main implements Callable<Void> {
         return null;
     }
 
+    /*
+     * Runs the server until the JVM is shut down. The caches and clients are set up once here and shared by all jobs.
+     */
+    private void runServer(BuildConfig config) {
+        if (cacheManager == null && !config.getDisableCache()) {
+            initCaches(config);
+        }
+
+        if (Boolean.FALSE.equals(config.getDisableLicenses())) {
+            LOGGER.info(
+                    "Using SPDX License List {} containing {} licenses",
+                    green(SpdxLicenseUtils.getSPDXLicenseListVersion()),
+                    green(SpdxLicenseUtils.getNumberOfSPDXLicenses()));
+        }
+
+        boolean findBuilds = Boolean.FALSE.equals(config.getChecksumOnly())
+                && Boolean.FALSE.equals(config.getLicensesOnly());
+        boolean isKerberos = krbService != null && krbPrincipal != null && krbPassword != null || krbCCache != null
+                || krbKeytab != null;
+
+        try (KojiClientSession session = !findBuilds ? null
+                : isKerberos
+                        ? new KojiClientSession(
+                                config.getKojiHubURL(),
+                                krbService,
+                                krbPrincipal,
+                                krbPassword,
+                                krbCCache,
+                                krbKeytab)
+                        : new KojiClientSession(config.getKojiHubURL());
+                PncClient pncClient = findBuilds && config.getPncURL() != null ? new PncClientImpl(config) : null;
+                BuildFinderServer server = new BuildFinderServer(config, cacheManager, session, pncClient)) {
+            ServiceLoader.load(MetricsRegistry.class).forEach(server::addMetricsRegistry);
+            server.start(serverPort);
+
+            // The caches are closed here since System.exit() does not return once the JVM is shutting down
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                closeCaches();
+            }, "build-finder-server-shutdown"));
+
+            server.awaitTermination();
+        } catch (KojiClientException e) {
+            LOGGER.error("Error creating Koji session: {}", boldRed(e.getMessage()));
+            LOGGER.debug("Koji Client Error", e);
+            System.exit(1);
+        } catch (IOException e) {
+            LOGGER.error("Error starting server: {}", boldRed(e.getMessage()));
+            LOGGER.debug("Error", e);
+            System.exit(1);
+        } catch (InterruptedException e) {
+            LOGGER.warn("Thread interrupted while running server");
+            LOGGER.debug("Error", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public ExecutorService getPool() {
         return pool;
     }
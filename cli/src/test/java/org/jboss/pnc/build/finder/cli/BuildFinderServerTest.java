@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.cli;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jboss.pnc.build.finder.core.ChecksumType.md5;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pnc.build.finder.core.BuildConfig;
+import org.jboss.pnc.build.finder.core.BuildFinder;
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
+import org.jboss.pnc.build.finder.core.BuildFinderObjectMapper;
+import org.jboss.pnc.build.finder.core.TestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BuildFinderServerTest {
+    private static final ObjectMapper MAPPER = new BuildFinderObjectMapper();
+
+    private static BuildConfig createConfig(Path folder) {
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setChecksumOnly(true);
+        config.setChecksumTypes(Collections.singleton(md5));
+        config.setDisableLicenses(true);
+        config.setOutputDirectory(folder.toString());
+        return config;
+    }
+
+    private static HttpRequest.Builder request(BuildFinderServer server, URI uri) {
+        return HttpRequest.newBuilder(uri).header("Authorization", "Bearer " + server.getToken());
+    }
+
+    @Test
+    void testJob(@TempDir Path folder) throws IOException, InterruptedException {
+        String input = TestUtils.loadFile("nested.war").toAbsolutePath().toString();
+        HttpClient client = HttpClient.newHttpClient();
+
+        try (BuildFinderServer server = new BuildFinderServer(createConfig(folder), null, null, null)) {
+            server.start(0);
+
+            URI uri = server.getURI();
+            String body = MAPPER.writeValueAsString(Collections.singletonMap("files", List.of(input)));
+            HttpResponse<String> response = client.send(
+                    request(server, uri).POST(HttpRequest.BodyPublishers.ofString(body, UTF_8)).build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(response.statusCode()).isEqualTo(202);
+
+            JsonNode job = MAPPER.readTree(response.body());
+            String id = job.get("id").asText();
+            Path outputDirectory = Path.of(job.get("output-directory").asText());
+
+            assertThat(outputDirectory).isEqualTo(folder.resolve("job-" + id));
+
+            // The event stream ends once the job is done
+            HttpResponse<String> events = client.send(
+                    request(server, URI.create(uri + "/" + id + "/events")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(events.statusCode()).isEqualTo(200);
+
+            List<JsonNode> eventList = events.body().lines().map(line -> {
+                try {
+                    return MAPPER.readTree(line);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).toList();
+
+            assertThat(eventList).first().satisfies(event -> {
+                assertThat(event.get("event").asText()).isEqualTo("status");
+                assertThat(event.get("status").asText()).isEqualTo("queued");
+            });
+            assertThat(eventList).anyMatch(event -> "checksums-computed".equals(event.get("event").asText()));
+            assertThat(eventList).last().satisfies(event -> {
+                assertThat(event.get("event").asText()).isEqualTo("status");
+                assertThat(event.get("status").asText()).isEqualTo("completed");
+            });
+            assertThat(outputDirectory.resolve(BuildFinder.getChecksumFilename(md5))).isRegularFile();
+            assertThat(outputDirectory.resolve(BuildFinderMetrics.getMetricsFilename())).isRegularFile();
+
+            HttpResponse<String> status = client.send(
+                    request(server, URI.create(uri + "/" + id)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(status.statusCode()).isEqualTo(200);
+            assertThat(MAPPER.readTree(status.body()).get("status").asText()).isEqualTo("completed");
+        }
+    }
+
+    @Test
+    void testInvalidRequests(@TempDir Path folder) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+
+        try (BuildFinderServer server = new BuildFinderServer(createConfig(folder), null, null, null)) {
+            server.start(0);
+
+            URI uri = server.getURI();
+            HttpResponse<String> noFiles = client.send(
+                    request(server, uri).POST(HttpRequest.BodyPublishers.ofString("{}", UTF_8)).build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(noFiles.statusCode()).isEqualTo(400);
+
+            HttpResponse<String> unknownJob = client.send(
+                    request(server, URI.create(uri + "/42")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(unknownJob.statusCode()).isEqualTo(404);
+
+            HttpResponse<String> jobs = client
+                    .send(request(server, uri).GET().build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(jobs.statusCode()).isEqualTo(200);
+            assertThat(MAPPER.readTree(jobs.body())).isEmpty();
+        }
+    }
+
+    @Test
+    void testToken(@TempDir Path folder) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        Path tokenFile = folder.resolve(BuildFinderServer.getTokenFilename());
+
+        try (BuildFinderServer server = new BuildFinderServer(createConfig(folder), null, null, null)) {
+            server.start(0);
+
+            URI uri = server.getURI();
+
+            assertThat(tokenFile).hasContent(server.getToken());
+
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)))
+                        .isEqualTo("rw-------");
+            }
+
+            HttpResponse<String> noToken = client
+                    .send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(noToken.statusCode()).isEqualTo(401);
+
+            HttpResponse<String> wrongToken = client.send(
+                    HttpRequest.newBuilder(uri).header("Authorization", "Bearer wrong").GET().build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(wrongToken.statusCode()).isEqualTo(401);
+
+            HttpResponse<String> token = client
+                    .send(request(server, uri).GET().build(), HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(token.statusCode()).isEqualTo(200);
+        }
+
+        assertThat(tokenFile).doesNotExist();
+    }
+
+    @Test
+    void testOutputDirectory(@TempDir Path folder) throws IOException, InterruptedException {
+        String input = TestUtils.loadFile("nested.war").toAbsolutePath().toString();
+        HttpClient client = HttpClient.newHttpClient();
+
+        try (BuildFinderServer server = new BuildFinderServer(createConfig(folder), null, null, null)) {
+            server.start(0);
+
+            URI uri = server.getURI();
+            List<String> escaping = List
+                    .of("..", "../other", "sub/../../other", folder.resolveSibling("other").toString());
+
+            for (String outputDirectory : escaping) {
+                String body = MAPPER
+                        .writeValueAsString(Map.of("files", List.of(input), "output-directory", outputDirectory));
+                HttpResponse<String> response = client.send(
+                        request(server, uri).POST(HttpRequest.BodyPublishers.ofString(body, UTF_8)).build(),
+                        HttpResponse.BodyHandlers.ofString(UTF_8));
+
+                assertThat(response.statusCode()).as(outputDirectory).isEqualTo(400);
+            }
+
+            String body = MAPPER.writeValueAsString(Map.of("files", List.of(input), "output-directory", "sub/./job"));
+            HttpResponse<String> response = client.send(
+                    request(server, uri).POST(HttpRequest.BodyPublishers.ofString(body, UTF_8)).build(),
+                    HttpResponse.BodyHandlers.ofString(UTF_8));
+
+            assertThat(response.statusCode()).isEqualTo(202);
+            assertThat(Path.of(MAPPER.readTree(response.body()).get("output-directory").asText()))
+                    .isEqualTo(folder.resolve("sub").resolve("job"));
+        }
+    }
+}
@@ -55,9 +55,15 @@ public class BuildConfig {
     @JsonAlias("checksum-type")
     private Set<ChecksumType> checksumTypes;
 
+    @JsonAlias("compact-output")
+    private Boolean compactOutput;
+
     @JsonAlias("disable-cache")
     private Boolean disableCache;
 
+    @JsonAlias("disable-licenses")
+    private Boolean disableLicenses;
+
     @JsonAlias("disable-recursion")
     private Boolean disableRecursion;
 
@@ -72,12 +78,27 @@ public class BuildConfig {
     @JsonAlias("koji-num-threads")
     private Integer kojiNumThreads;
 
+    @JsonAlias("koji-retries")
+    private Integer kojiRetries;
+
+    @JsonAlias("koji-retry-delay")
+    private Long kojiRetryDelay;
+
     @JsonAlias("koji-web-url")
     private URL kojiWebURL;
 
+    @JsonAlias("licenses-only")
+    private Boolean licensesOnly;
+
+    @JsonAlias("lookup-strategy")
+    private LookupStrategy lookupStrategy;
+
     @JsonAlias("output-directory")
     private String outputDirectory;
 
+    @JsonAlias("output-format")
+    private OutputFormat outputFormat;
+
     @JsonAlias("pnc-num-threads")
     private Long pncNumThreads;
 
@@ -87,6 +108,12 @@ public class BuildConfig {
     @JsonAlias("pnc-url")
     private URL pncURL;
 
+    @JsonAlias("resume")
+    private Boolean resume;
+
+    @JsonAlias("spill-threshold")
+    private Integer spillThreshold;
+
     @JsonAlias("use-builds-file")
     private Boolean useBuildsFile;
 
@@ -211,6 +238,18 @@ public class BuildConfig {
         this.checksumTypes = checksumTypes;
     }
 
+    public Boolean getCompactOutput() {
+        if (compactOutput == null) {
+            compactOutput = ConfigDefaults.COMPACT_OUTPUT;
+        }
+
+        return compactOutput;
+    }
+
+    public void setCompactOutput(Boolean compactOutput) {
+        this.compactOutput = compactOutput;
+    }
+
     public Boolean getDisableCache() {
         if (disableCache == null) {
             disableCache = ConfigDefaults.DISABLE_CACHE;
@@ -223,6 +262,18 @@ public class BuildConfig {
         this.disableCache = disableCache;
     }
 
+    public Boolean getDisableLicenses() {
+        if (disableLicenses == null) {
+            disableLicenses = ConfigDefaults.DISABLE_LICENSES;
+        }
+
+        return disableLicenses;
+    }
+
+    public void setDisableLicenses(Boolean disableLicenses) {
+        this.disableLicenses = disableLicenses;
+    }
+
     public Boolean getDisableRecursion() {
         if (disableRecursion == null) {
             disableRecursion = ConfigDefaults.DISABLE_RECURSION;
@@ -283,6 +334,30 @@ public class BuildConfig {
         this.kojiNumThreads = kojiNumThreads;
     }
 
+    public Integer getKojiRetries() {
+        if (kojiRetries == null) {
+            kojiRetries = ConfigDefaults.KOJI_RETRIES;
+        }
+
+        return kojiRetries;
+    }
+
+    public void setKojiRetries(Integer kojiRetries) {
+        this.kojiRetries = kojiRetries;
+    }
+
+    public Long getKojiRetryDelay() {
+        if (kojiRetryDelay == null) {
+            kojiRetryDelay = ConfigDefaults.KOJI_RETRY_DELAY;
+        }
+
+        return kojiRetryDelay;
+    }
+
+    public void setKojiRetryDelay(Long kojiRetryDelay) {
+        this.kojiRetryDelay = kojiRetryDelay;
+    }
+
     public URL getKojiWebURL() {
         if (kojiWebURL == null) {
             kojiWebURL = ConfigDefaults.KOJI_WEB_URL;
@@ -295,6 +370,30 @@ public class BuildConfig {
         this.kojiWebURL = kojiWebURL;
     }
 
+    public Boolean getLicensesOnly() {
+        if (licensesOnly == null) {
+            licensesOnly = ConfigDefaults.LICENSES_ONLY;
+        }
+
+        return licensesOnly;
+    }
+
+    public void setLicensesOnly(Boolean licensesOnly) {
+        this.licensesOnly = licensesOnly;
+    }
+
+    public LookupStrategy getLookupStrategy() {
+        if (lookupStrategy == null) {
+            lookupStrategy = ConfigDefaults.LOOKUP_STRATEGY;
+        }
+
+        return lookupStrategy;
+    }
+
+    public void setLookupStrategy(LookupStrategy lookupStrategy) {
+        this.lookupStrategy = lookupStrategy;
+    }
+
     public String getOutputDirectory() {
         if (outputDirectory == null) {
             outputDirectory = ConfigDefaults.OUTPUT_DIR;
@@ -307,6 +406,18 @@ public class BuildConfig {
         this.outputDirectory = outputDirectory;
     }
 
+    public OutputFormat getOutputFormat() {
+        if (outputFormat == null) {
+            outputFormat = ConfigDefaults.OUTPUT_FORMAT;
+        }
+
+        return outputFormat;
+    }
+
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
     public Integer getPncPartitionSize() {
         if (pncPartitionSize == null) {
             pncPartitionSize = ConfigDefaults.PNC_PARTITION_SIZE;
@@ -343,6 +454,30 @@ public class BuildConfig {
         this.pncURL = pncURL;
     }
 
+    public Boolean getResume() {
+        if (resume == null) {
+            resume = ConfigDefaults.RESUME;
+        }
+
+        return resume;
+    }
+
+    public void setResume(Boolean resume) {
+        this.resume = resume;
+    }
+
+    public Integer getSpillThreshold() {
+        if (spillThreshold == null) {
+            spillThreshold = ConfigDefaults.SPILL_THRESHOLD;
+        }
+
+        return spillThreshold;
+    }
+
+    public void setSpillThreshold(Integer spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
     public Boolean getUseBuildsFile() {
         if (useBuildsFile == null) {
             useBuildsFile = ConfigDefaults.USE_BUILDS_FILE;
@@ -372,10 +507,15 @@ public class BuildConfig {
         return "BuildConfig{" + "archiveExtensions=" + archiveExtensions + ", archiveTypes=" + archiveTypes
                 + ", buildSystems=" + buildSystems + ", cacheLifespan=" + cacheLifespan + ", cacheMaxIdle="
                 + cacheMaxIdle + ", checksumOnly=" + checksumOnly + ", checksumTypes=" + checksumTypes
-                + ", disableCache=" + disableCache + ", disableRecursion=" + disableRecursion + ", excludes=" + excludes
+                + ", compactOutput=" + compactOutput + ", disableCache=" + disableCache + ", disableLicenses="
+                + disableLicenses + ", disableRecursion=" + disableRecursion + ", excludes=" + excludes
                 + ", kojiHubURL=" + kojiHubURL + ", kojiMulticallSize=" + kojiMulticallSize + ", kojiNumThreads="
-                + kojiNumThreads + ", kojiWebURL=" + kojiWebURL + ", outputDirectory='" + outputDirectory + '\''
-                + ", pncPartitionSize=" + pncPartitionSize + ", pncURL=" + pncURL + ", useBuildsFile=" + useBuildsFile
-                + ", useChecksumsFile=" + useChecksumsFile + '}';
+                + kojiNumThreads + ", kojiRetries=" + kojiRetries + ", kojiRetryDelay=" + kojiRetryDelay
+                + ", kojiWebURL=" + kojiWebURL + ", licensesOnly=" + licensesOnly + ", lookupStrategy="
+                + lookupStrategy
+                + ", outputDirectory='" + outputDirectory + '\'' + ", outputFormat=" + outputFormat
+                + ", pncPartitionSize=" + pncPartitionSize + ", pncURL=" + pncURL + ", resume=" + resume
+                + ", spillThreshold=" + spillThreshold + ", useBuildsFile=" + useBuildsFile + ", useChecksumsFile="
+                + useChecksumsFile + '}';
     }
 }
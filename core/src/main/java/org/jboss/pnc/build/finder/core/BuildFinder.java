@@ -22,10 +22,12 @@ import static org.jboss.pnc.build.finder.core.Utils.BANG_SLASH;
 import static org.jboss.pnc.build.finder.core.Utils.getAllErrorMessages;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -33,21 +35,25 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -68,7 +74,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.redhat.red.build.koji.KojiClientException;
 import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
 import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveQuery;
@@ -85,7 +90,11 @@ public class BuildFinder
         implements Callable<Map<BuildSystemInteger, KojiBuild>>, Supplier<Map<BuildSystemInteger, KojiBuild>> {
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildFinder.class);
 
-    private static final String BUILDS_FILENAME = "builds.json";
+    private static final String BUILDS_FILENAME_BASENAME = "builds";
+
+    private static final String CHECKPOINT_FILENAME = "checkpoint.jsonl";
+
+    private static final String LOOKUP_FAILED_FILENAME = "lookup-failed.json";
 
     private static final String CHECKSUMS_FILENAME_BASENAME = "checksums-";
 
@@ -101,17 +110,25 @@ public class BuildFinder
 
     private static final int ALL_KOJI_BUILDS_SIZE = 1835;
 
+    private static final long ADAPTIVE_MIN_PNC_LOOKUPS = 100L;
+
+    private static final double ADAPTIVE_PNC_HIT_RATIO = 0.9D;
+
+    private static final int MAX_RETRY_SHIFT = 16;
+
+    private static final long MAX_RETRY_DELAY = TimeUnit.SECONDS.toMillis(60L);
+
     private final ClientSession session;
 
     private final BuildConfig config;
 
-    private Map<BuildSystemInteger, KojiBuild> builds;
+    private BuildMap builds;
 
     private List<KojiBuild> buildsList;
 
     private List<KojiBuild> buildsFoundList;
 
-    private final Map<Integer, KojiBuild> allKojiBuilds;
+    private final LongObjectMap<KojiBuild> allKojiBuilds;
 
     private Path outputDirectory;
 
@@ -131,10 +148,24 @@ public class BuildFinder
 
     private final Map<Checksum, Collection<String>> notFoundChecksums;
 
+    private final Map<Checksum, Collection<String>> lookupFailedChecksums;
+
     private final BuildFinderUtils buildFinderUtils;
 
     private BuildFinderListener listener;
 
+    private final Map<String, List<KojiArchiveInfo>> prefetchedArchives;
+
+    private long pncLookups;
+
+    private long pncHits;
+
+    private ExecutorService prefetchPool;
+
+    private CheckpointJournal journal;
+
+    private BuildFinderMetrics metrics;
+
     public BuildFinder(ClientSession session, BuildConfig config) {
         this(session, config, null, null, null);
     }
@@ -162,10 +193,10 @@ public class BuildFinder
         this.outputDirectory = Path.of("");
         this.analyzer = analyzer;
         this.cacheManager = cacheManager;
-        // this.allKojiBuilds = Maps.newHashMapWithExpectedSize(ALL_KOJI_BUILDS_SIZE);
-        this.allKojiBuilds = new HashMap<>(); // FIXME
+        this.allKojiBuilds = new LongObjectMap<>(ALL_KOJI_BUILDS_SIZE);
         this.buildFinderUtils = new BuildFinderUtils(config, analyzer, session);
         this.pncBuildFinder = new PncBuildFinder(pncclient, buildFinderUtils, config);
+        this.metrics = analyzer != null ? analyzer.getMetrics() : new BuildFinderMetrics();
 
         if (cacheManager != null) {
             this.buildCache = cacheManager.getCache("builds");
@@ -183,31 +214,49 @@ public class BuildFinder
 
         this.foundChecksums = Maps.newHashMapWithExpectedSize(FOUND_CHECKSUMS_SIZE);
         this.notFoundChecksums = Maps.newHashMapWithExpectedSize(NOT_FOUND_CHECKSUMS_SIZE);
+        this.lookupFailedChecksums = new HashMap<>();
+        this.prefetchedArchives = new ConcurrentHashMap<>();
 
         initBuilds();
     }
 
     public static String getChecksumFilename(ChecksumType checksumType) {
-        return CHECKSUMS_FILENAME_BASENAME + checksumType + ".json";
+        return getChecksumFilename(checksumType, OutputFormat.json);
+    }
+
+    public static String getChecksumFilename(ChecksumType checksumType, OutputFormat outputFormat) {
+        return CHECKSUMS_FILENAME_BASENAME + checksumType + outputFormat.getExtension();
     }
 
     public static String getBuildsFilename() {
-        return BUILDS_FILENAME;
+        return getBuildsFilename(OutputFormat.json);
+    }
+
+    public static String getBuildsFilename(OutputFormat outputFormat) {
+        return BUILDS_FILENAME_BASENAME + outputFormat.getExtension();
+    }
+
+    public static String getCheckpointFilename() {
+        return CHECKPOINT_FILENAME;
+    }
+
+    public static String getLookupFailedFilename() {
+        return LOOKUP_FAILED_FILENAME;
     }
 
     private void initBuilds() {
-        builds = Maps.newHashMapWithExpectedSize(BUILDS_SIZE);
+        builds = new BuildMap(BUILDS_SIZE);
         KojiBuild build = BuildFinderUtils.createKojiBuildZero();
-        builds.put(new BuildSystemInteger(0), build);
+        builds.put(BuildSystem.none, 0, build);
     }
 
     private void addArchiveWithoutBuild(Checksum checksum, Collection<String> filenames) {
-        KojiBuild buildZero = builds.get(new BuildSystemInteger(0, BuildSystem.none));
+        KojiBuild buildZero = builds.get(BuildSystem.none, 0);
         buildFinderUtils.addArchiveWithoutBuild(buildZero, checksum, filenames);
     }
 
     private void addRpmWithoutBuild(Checksum checksum, Collection<String> filenames, KojiRpmInfo rpm) {
-        KojiBuild buildZero = builds.get(new BuildSystemInteger(0, BuildSystem.none));
+        KojiBuild buildZero = builds.get(BuildSystem.none, 0);
         buildFinderUtils.addArchiveWithoutBuild(buildZero, checksum, filenames, rpm);
     }
 
@@ -409,7 +458,7 @@ public class BuildFinder
 
             markFound(entry);
 
-            Integer id = build.getBuildInfo().getId();
+            int id = build.getBuildInfo().getId();
 
             allKojiBuilds.put(id, build);
 
@@ -421,7 +470,7 @@ public class BuildFinder
                 }
             }
 
-            builds.put(new BuildSystemInteger(id, BuildSystem.koji), build);
+            builds.put(BuildSystem.koji, id, build);
         }
     }
 
@@ -447,15 +496,17 @@ public class BuildFinder
         }
 
         String checksum = archives.get(0).getChecksum();
-        List<Integer> candidateIds = candidates.stream()
-                .map(KojiBuild::getBuildInfo)
-                .map(KojiBuildInfo::getId)
-                .toList();
 
-        LOGGER.debug("Found {} builds containing archive with checksum {}: {}", candidatesSize, checksum, candidateIds);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                    "Found {} builds containing archive with checksum {}: {}",
+                    candidatesSize,
+                    checksum,
+                    candidates.stream().map(KojiBuild::getBuildInfo).map(KojiBuildInfo::getId).toList());
+        }
 
         for (KojiArchiveInfo archive : archives) {
-            KojiBuild duplicateBuild = builds.get(new BuildSystemInteger(archive.getBuildId(), BuildSystem.koji));
+            KojiBuild duplicateBuild = builds.get(BuildSystem.koji, archive.getBuildId());
 
             if (duplicateBuild != null) {
                 LOGGER.debug(
@@ -469,17 +520,14 @@ public class BuildFinder
             }
         }
 
-        List<KojiBuild> cachedBuilds = candidateIds.stream()
-                .map(id -> builds.get(new BuildSystemInteger(id, BuildSystem.koji)))
-                .filter(Objects::nonNull)
-                .toList();
-
-        if (!cachedBuilds.isEmpty()) {
-            KojiBuild build = cachedBuilds.get(cachedBuilds.size() - 1);
+        for (int i = candidatesSize - 1; i >= 0; i--) {
+            KojiBuild build = builds.get(BuildSystem.koji, candidates.get(i).getBuildInfo().getId());
 
-            LOGGER.debug("Found suitable cached build id {}", build.getBuildInfo().getId());
+            if (build != null) {
+                LOGGER.debug("Found suitable cached build id {}", build.getBuildInfo().getId());
 
-            return build;
+                return build;
+            }
         }
 
         List<KojiBuild> completedBuilds = candidates.stream()
@@ -647,6 +695,20 @@ public class BuildFinder
      */
     public Map<BuildSystemInteger, KojiBuild> findBuilds(Map<Checksum, Collection<String>> checksumTable)
             throws KojiClientException {
+        return findBuilds(checksumTable, null);
+    }
+
+    /**
+     * Find builds with the given checksums, looking up each file by its checksum of the given type whenever it has one.
+     *
+     * @param checksumTable the checksum table
+     * @param checksumType the preferred checksum type, or null to look up the files by the given checksums
+     * @return the map of builds
+     * @throws KojiClientException if an error occurs
+     */
+    public Map<BuildSystemInteger, KojiBuild> findBuilds(
+            Map<Checksum, Collection<String>> checksumTable,
+            ChecksumType checksumType) throws KojiClientException {
         if (checksumTable == null || checksumTable.isEmpty()) {
             LOGGER.warn("Koji Checksum table is empty");
             return Collections.emptyMap();
@@ -662,10 +724,21 @@ public class BuildFinder
         /*
          * Determine whether the checksums to be found have been previously cached
          */
-        for (Entry<Checksum, Collection<String>> entry : entries) {
-            Checksum checksum = entry.getKey();
+        for (Entry<Checksum, Collection<String>> fileEntry : entries) {
+            Entry<Checksum, Collection<String>> entry = fileEntry;
             Collection<String> filenames = entry.getValue();
 
+            if (checksumType != null) {
+                Checksum preferredChecksum = buildFinderUtils
+                        .getPreferredChecksum(fileEntry.getKey(), filenames, checksumType);
+
+                if (preferredChecksum != fileEntry.getKey()) {
+                    entry = new SimpleImmutableEntry<>(preferredChecksum, filenames);
+                }
+            }
+
+            Checksum checksum = entry.getKey();
+
             if (buildFinderUtils.shouldSkipChecksum(checksum, filenames)) {
                 LOGGER.debug("Skipped checksum {} for filenames {}", checksum, filenames);
                 // FIXME: We must check for a cached copy and remove it if present
@@ -686,6 +759,14 @@ public class BuildFinder
                     rpmCaches.get(checksum.getType()).put(checksum.getValue(), cacheRpmBuildInfo);
                     buildCache.put(cacheRpmBuildInfo.getBuildInfo().getId(), cacheRpmBuildInfo);
                 }
+            } else if ((cacheArchiveInfos = prefetchedArchives.remove(checksum.getValue())) != null) {
+                LOGGER.debug("Checksum {} already looked up while querying Pnc", green(checksum));
+                cachedChecksums.add(entry);
+                cachedArchiveInfos.add(cacheArchiveInfos);
+            } else if (journal != null && (cacheArchiveInfos = journal.getArchives(checksum.getValue())) != null) {
+                LOGGER.debug("Checksum {} already looked up in checkpoint", green(checksum));
+                cachedChecksums.add(entry);
+                cachedArchiveInfos.add(cacheArchiveInfos);
             } else {
                 ListKojiArchiveInfoProtobufWrapper wrapper = null;
 
@@ -719,7 +800,6 @@ public class BuildFinder
         int chunkSize = config.getKojiMulticallSize();
         List<List<Entry<Checksum, Collection<String>>>> chunks = ListUtils.partition(checksums, chunkSize);
         int numChunks = chunks.size();
-        Collection<KojiArchiveQuery> allQueries = new ArrayList<>(numChecksums);
 
         if (numChecksums > 0) {
             LOGGER.debug("Looking up {} checksums", green(numChecksums));
@@ -746,11 +826,9 @@ public class BuildFinder
 
                     LOGGER.debug("Added {} queries", green(querySize));
 
-                    allQueries.addAll(queries);
-
                     tasks.add(() -> {
                         LOGGER.debug("Looking up checksums for chunk {}/{}", green(chunkNumber), green(numChunks));
-                        return session.listArchives(queries);
+                        return listArchives(queries);
                     });
                 }
             }
@@ -778,62 +856,29 @@ public class BuildFinder
             }
         }
 
-        List<KojiArchiveInfo> archivesToEnrich = archives.stream().flatMap(List::stream).toList();
-
-        session.enrichArchiveTypeInfo(archivesToEnrich);
-
-        /*
-         * For any KojiArchiveInfo, create a protobuf wrapper and add it to the checksum cache.
-         */
-        Iterator<KojiArchiveQuery> itqueries = allQueries.iterator();
-
-        for (List<KojiArchiveInfo> archiveList : archives) {
-            String queryChecksum = itqueries.next().getChecksum();
-
-            if (archiveList.isEmpty()) {
-                if (cacheManager != null) {
-                    checksumCaches.get(ChecksumType.md5).put(queryChecksum, new ListKojiArchiveInfoProtobufWrapper());
-                }
-            } else {
-                String archiveChecksum = archiveList.get(0).getChecksum();
-
-                if (!queryChecksum.equals(archiveChecksum)) {
-                    LOGGER.warn(
-                            "Checksums {} and {} don't match, but this should never happen",
-                            queryChecksum,
-                            archiveChecksum);
-                }
-
-                if (cacheManager != null) {
-                    checksumCaches.get(ChecksumType.md5)
-                            .put(queryChecksum, new ListKojiArchiveInfoProtobufWrapper(archiveList));
-                }
-            }
-        }
-
         /*
          * Create a list of buildIds associated with all the KojiArchiveInfo found (either already in the cache or just
          * queried)
          */
-        Stream<Integer> archiveBuildIds = archives.stream().flatMap(List::stream).map(KojiArchiveInfo::getBuildId);
-        Stream<Integer> cachedBuildIds = cachedArchiveInfos.stream()
-                .flatMap(List::stream)
-                .map(KojiArchiveInfo::getBuildId);
-        List<Integer> buildIds = Stream.concat(archiveBuildIds, cachedBuildIds)
-                .sorted()
-                .distinct()
-                .collect(Collectors.toCollection(ArrayList::new));
-        int buildIdsSize = buildIds.size();
+        int[] buildIds = Utils.sortDistinct(
+                Stream.concat(archives.stream(), cachedArchiveInfos.stream())
+                        .filter(Objects::nonNull)
+                        .flatMap(List::stream)
+                        .mapToInt(KojiArchiveInfo::getBuildId)
+                        .toArray());
 
         /*
-         * For any buildId in the list, remove the ones already present in the cache
+         * For any buildId in the list, remove the ones already present in the cache or the checkpoint
          */
-        if (cacheManager != null) {
-            Iterator<Integer> it = buildIds.iterator();
+        if (cacheManager != null || journal != null) {
+            int numBuildIds = 0;
 
-            while (it.hasNext()) {
-                Integer id = it.next();
-                KojiBuild build = buildCache.get(id);
+            for (int id : buildIds) {
+                KojiBuild build = cacheManager != null ? buildCache.get(id) : null;
+
+                if (build == null && journal != null) {
+                    build = journal.getBuild(id);
+                }
 
                 if (build != null) {
                     LOGGER.debug(
@@ -841,11 +886,16 @@ public class BuildFinder
                             green(id),
                             green(build.getBuildInfo().getNvr()));
                     allKojiBuilds.put(id, build);
-                    it.remove();
+                } else {
+                    buildIds[numBuildIds++] = id;
                 }
             }
+
+            buildIds = Arrays.copyOf(buildIds, numBuildIds);
         }
 
+        int buildIdsSize = buildIds.length;
+
         if (!rpmEntries.isEmpty()) {
             try {
                 handleRPMs(rpmEntries, pool);
@@ -864,13 +914,13 @@ public class BuildFinder
          * submitting a list of KojiArchiveQuery with a buildId. 2- find all the KojiTaskInfo associated with each
          * build. 3- find all the KojiTagInfo associated with each build.
          */
-        if (!buildIds.isEmpty()) {
-            List<KojiIdOrName> idsOrNames = buildIds.stream().map(KojiIdOrName::getFor).toList();
+        if (buildIdsSize > 0) {
+            List<KojiIdOrName> idsOrNames = Arrays.stream(buildIds).mapToObj(KojiIdOrName::getFor).toList();
             Future<List<KojiBuildInfo>> futureArchiveBuilds = pool.submit(() -> session.getBuild(idsOrNames));
             Future<List<List<KojiTagInfo>>> futureTagInfos = pool.submit(() -> session.listTags(idsOrNames));
             List<KojiArchiveQuery> queries = new ArrayList<>(buildIdsSize);
 
-            for (Integer buildId : buildIds) {
+            for (int buildId : buildIds) {
                 KojiArchiveQuery query = new KojiArchiveQuery().withBuildId(buildId);
                 queries.add(query);
             }
@@ -947,7 +997,7 @@ public class BuildFinder
                     build.setTaskInfo(ittasks.next());
                 }
 
-                Integer id = build.getBuildInfo().getId();
+                int id = build.getBuildInfo().getId();
 
                 allKojiBuilds.put(id, build);
 
@@ -984,6 +1034,17 @@ public class BuildFinder
             if (!archivesToUpdate.isEmpty()) {
                 session.enrichArchiveTypeInfo(archivesToUpdate);
             }
+
+            if (journal != null) {
+                for (KojiBuildInfo archiveBuild : archiveBuilds) {
+                    try {
+                        journal.addBuild(allKojiBuilds.get(archiveBuild.getId()));
+                    } catch (IOException e) {
+                        Utils.shutdownAndAwaitTermination(pool);
+                        throw new KojiClientException("Error writing checkpoint", e);
+                    }
+                }
+            }
         }
 
         checksums.addAll(cachedChecksums);
@@ -1009,6 +1070,12 @@ public class BuildFinder
             Checksum checksum = entry.getKey();
             Collection<String> filenames = entry.getValue();
             List<KojiArchiveInfo> localArchiveInfos = itarchives.next();
+
+            if (localArchiveInfos == null) {
+                markLookupFailed(entry);
+                continue;
+            }
+
             int size = localArchiveInfos.size();
 
             if (size == 0) {
@@ -1016,7 +1083,7 @@ public class BuildFinder
                 markNotFound(entry);
             } else {
                 KojiArchiveInfo archive;
-                Integer buildId;
+                int buildId;
                 String archiveFilenames;
 
                 if (size == 1) {
@@ -1047,7 +1114,7 @@ public class BuildFinder
                         archive = optionalArchive.get();
                         buildId = archive.getBuildId();
                         archiveFilenames = localArchiveInfos.stream()
-                                .filter(a -> a.getBuildId().equals(buildId))
+                                .filter(a -> a.getBuildId() == buildId)
                                 .map(KojiArchiveInfo::getFilename)
                                 .collect(Collectors.joining(", "));
 
@@ -1060,14 +1127,13 @@ public class BuildFinder
                     }
                 }
 
-                BuildSystemInteger buildSystemBuildId = new BuildSystemInteger(buildId, BuildSystem.koji);
-                KojiBuild build = builds.get(buildSystemBuildId);
+                KojiBuild build = builds.get(BuildSystem.koji, buildId);
 
                 if (build == null) {
                     build = allKojiBuilds.get(buildId);
 
                     if (build != null) {
-                        builds.put(buildSystemBuildId, build);
+                        builds.put(BuildSystem.koji, buildId, build);
 
                         if (LOGGER.isInfoEnabled()) {
                             LOGGER.info(
@@ -1103,7 +1169,7 @@ public class BuildFinder
         /*
          * As a final step, cleanup the buildZero.
          */
-        KojiBuild buildZero = builds.get(new BuildSystemInteger(0, BuildSystem.none));
+        KojiBuild buildZero = builds.get(BuildSystem.none, 0);
 
         // XXX: This was meant to be shared between Pnc and Koji, but it appears to add files which are already present
         // buildFinderUtils.addFilesInError(buildZero);
@@ -1160,8 +1226,9 @@ public class BuildFinder
 
         foundChecksums.put(entry.getKey(), new ArrayList<>(entry.getValue()));
         notFoundChecksums.remove(entry.getKey());
+        lookupFailedChecksums.remove(entry.getKey());
 
-        KojiBuild buildZero = builds.get(new BuildSystemInteger(0, BuildSystem.none));
+        KojiBuild buildZero = builds.get(BuildSystem.none, 0);
         buildZero.getArchives()
                 .removeIf(
                         localArchive -> localArchive.getChecksums()
@@ -1181,6 +1248,14 @@ public class BuildFinder
         addArchiveWithoutBuild(entry.getKey(), new ArrayList<>(entry.getValue()));
     }
 
+    /*
+     * A checksum whose lookup kept failing is neither found nor not found, so it is kept out of build zero
+     */
+    private void markLookupFailed(Entry<Checksum, Collection<String>> entry) {
+        LOGGER.debug("Mark lookup failed checksum: {}", entry);
+        lookupFailedChecksums.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    }
+
     public Map<BuildSystemInteger, KojiBuild> getBuildsMap() {
         if (builds == null) {
             return Collections.emptyMap();
@@ -1205,7 +1280,7 @@ public class BuildFinder
         return Collections.unmodifiableList(buildsList);
     }
 
-    private KojiBuild findBestBuild(Map<Integer, KojiBuild> allBuilds, List<KojiArchiveInfo> archiveInfos) {
+    private KojiBuild findBestBuild(LongObjectMap<KojiBuild> allBuilds, List<KojiArchiveInfo> archiveInfos) {
         LOGGER.debug(
                 "Find best build for checksum {} filename {} out of {} archives",
                 green(archiveInfos.get(0).getChecksum()),
@@ -1224,12 +1299,17 @@ public class BuildFinder
     }
 
     private static List<KojiBuild> getKojiBuildsForArchives(
-            Map<Integer, KojiBuild> allBuilds,
+            LongObjectMap<KojiBuild> allBuilds,
             List<KojiArchiveInfo> archiveInfos) {
-        Set<Integer> buildIds = archiveInfos.stream()
-                .map(KojiArchiveInfo::getBuildId)
-                .collect(Collectors.toCollection(HashSet::new));
-        return buildIds.stream().map(allBuilds::get).toList();
+        int[] buildIds = Utils
+                .sortDistinct(archiveInfos.stream().mapToInt(KojiArchiveInfo::getBuildId).toArray());
+        List<KojiBuild> candidates = new ArrayList<>(buildIds.length);
+
+        for (int buildId : buildIds) {
+            candidates.add(allBuilds.get(buildId));
+        }
+
+        return candidates;
     }
 
     public Map<Checksum, Collection<String>> getFoundChecksums() {
@@ -1240,6 +1320,16 @@ public class BuildFinder
         return Collections.unmodifiableMap(notFoundChecksums);
     }
 
+    /**
+     * Gets the checksums whose lookup in Koji kept failing, even when looked up on their own. These checksums are not
+     * in the found or the not found checksums, since it is not known whether Koji has them.
+     *
+     * @return the checksums whose lookup failed, with their filenames
+     */
+    public Map<Checksum, Collection<String>> getLookupFailedChecksums() {
+        return Collections.unmodifiableMap(lookupFailedChecksums);
+    }
+
     public Path getOutputDirectory() {
         return outputDirectory;
     }
@@ -1249,46 +1339,335 @@ public class BuildFinder
     }
 
     public void outputToFile() throws IOException {
-        JSONUtils.dumpObjectToFile(builds, outputDirectory.resolve(getBuildsFilename()));
+        JSONUtils.dumpMapToFile(
+                builds,
+                outputDirectory.resolve(getBuildsFilename(config.getOutputFormat())),
+                config.getOutputFormat(),
+                config.getCompactOutput());
+        outputLookupFailedToFile();
+    }
+
+    /**
+     * Writes the checksum values whose lookup failed, with their filenames, to the output directory. The file is
+     * removed when no lookup failed, so that a file from a previous run is not mistaken for one of this run.
+     *
+     * @throws IOException if an error occurs writing or removing the file
+     */
+    public void outputLookupFailedToFile() throws IOException {
+        Path path = outputDirectory.resolve(LOOKUP_FAILED_FILENAME);
+
+        if (lookupFailedChecksums.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        Map<String, Collection<String>> map = new TreeMap<>();
+
+        for (Entry<Checksum, Collection<String>> entry : lookupFailedChecksums.entrySet()) {
+            map.computeIfAbsent(entry.getKey().getValue(), k -> new TreeSet<>()).addAll(entry.getValue());
+        }
+
+        JSONUtils.dumpObjectToFile(map, path);
+    }
+
+    /*
+     * Look up the given queries in Koji, retrying failed lookups. If the lookups keep failing, the queries are split in
+     * two until each query that always fails is isolated. Such queries get a null result, which marks their lookup as
+     * failed rather than not found, but if every single query fails the error is not isolated and is thrown.
+     */
+    private List<List<KojiArchiveInfo>> listArchives(List<KojiArchiveQuery> queries) throws KojiClientException {
+        KojiClientException exception;
+
+        try {
+            return listArchivesWithRetry(queries);
+        } catch (KojiClientException e) {
+            exception = e;
+        }
+
+        int size = queries.size();
+
+        if (size == 1) {
+            throw exception;
+        }
+
+        LOGGER.warn(
+                "Splitting lookup of {} checksums after repeated errors: {}",
+                red(size),
+                red(getAllErrorMessages(exception)));
+
+        List<List<KojiArchiveInfo>> archiveLists = new ArrayList<>(size);
+        Map<KojiArchiveQuery, KojiClientException> failures = new LinkedHashMap<>();
+
+        splitArchives(queries, archiveLists, failures);
+
+        if (failures.size() == size) {
+            throw exception;
+        }
+
+        for (Entry<KojiArchiveQuery, KojiClientException> failure : failures.entrySet()) {
+            LOGGER.error(
+                    "Skipping lookup of checksum {}: {}",
+                    boldRed(failure.getKey().getChecksum()),
+                    boldRed(getAllErrorMessages(failure.getValue())));
+        }
+
+        return archiveLists;
+    }
+
+    /*
+     * Look up each half of the given queries once, splitting again any half that fails. The lookups have already been
+     * retried with backoff, so they are not retried again. A single query that fails gets a null result.
+     */
+    private void splitArchives(
+            List<KojiArchiveQuery> queries,
+            List<List<KojiArchiveInfo>> archiveLists,
+            Map<KojiArchiveQuery, KojiClientException> failures) {
+        int size = queries.size();
+
+        for (List<KojiArchiveQuery> half : List.of(queries.subList(0, size / 2), queries.subList(size / 2, size))) {
+            try {
+                archiveLists.addAll(listAndCacheArchives(half));
+            } catch (KojiClientException e) {
+                if (half.size() > 1) {
+                    splitArchives(half, archiveLists, failures);
+                } else {
+                    failures.put(half.get(0), e);
+                    archiveLists.add(null);
+                }
+            }
+        }
+    }
+
+    private List<List<KojiArchiveInfo>> listArchivesWithRetry(List<KojiArchiveQuery> queries)
+            throws KojiClientException {
+        int maxRetries = config.getKojiRetries();
+
+        for (int retry = 0;; retry++) {
+            try {
+                return listAndCacheArchives(queries);
+            } catch (KojiClientException e) {
+                if (retry >= maxRetries) {
+                    throw e;
+                }
+
+                long delay = getRetryDelay(config.getKojiRetryDelay(), retry);
+
+                LOGGER.warn(
+                        "Lookup of {} checksums failed (retry {}/{} in {} ms): {}",
+                        red(queries.size()),
+                        red(retry + 1),
+                        red(maxRetries),
+                        red(delay),
+                        red(getAllErrorMessages(e)));
+
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException e2) {
+                    Thread.currentThread().interrupt();
+                    throw new KojiClientException("Koji archive thread interrupted", e2);
+                }
+            }
+        }
+    }
+
+    /*
+     * Exponential backoff with jitter: a random delay between half and all of the initial delay doubled for each retry
+     */
+    private static long getRetryDelay(long initialDelay, int retry) {
+        long delay = Math.min(initialDelay, MAX_RETRY_DELAY) << Math.min(retry, MAX_RETRY_SHIFT);
+        delay = Math.min(delay, MAX_RETRY_DELAY);
+        return delay / 2L + ThreadLocalRandom.current().nextLong(delay / 2L + 1L);
+    }
+
+    /*
+     * Look up the given queries in Koji and add the results to the checksum cache as soon as they are received
+     */
+    private List<List<KojiArchiveInfo>> listAndCacheArchives(List<KojiArchiveQuery> queries)
+            throws KojiClientException {
+        List<List<KojiArchiveInfo>> archiveLists = session.listArchives(queries);
+
+        session.enrichArchiveTypeInfo(archiveLists.stream().flatMap(List::stream).toList());
+
+        Iterator<KojiArchiveQuery> itqueries = queries.iterator();
+
+        for (List<KojiArchiveInfo> archiveList : archiveLists) {
+            String queryChecksum = itqueries.next().getChecksum();
+
+            if (archiveList.isEmpty()) {
+                if (cacheManager != null) {
+                    checksumCaches.get(ChecksumType.md5).put(queryChecksum, new ListKojiArchiveInfoProtobufWrapper());
+                }
+            } else {
+                String archiveChecksum = archiveList.get(0).getChecksum();
+
+                if (!queryChecksum.equals(archiveChecksum)) {
+                    LOGGER.warn(
+                            "Checksums {} and {} don't match, but this should never happen",
+                            queryChecksum,
+                            archiveChecksum);
+                }
+
+                if (cacheManager != null) {
+                    checksumCaches.get(ChecksumType.md5)
+                            .put(queryChecksum, new ListKojiArchiveInfoProtobufWrapper(archiveList));
+                }
+            }
+
+            if (journal != null) {
+                try {
+                    journal.addArchives(queryChecksum, archiveList);
+                } catch (IOException e) {
+                    throw new KojiClientException("Error writing checkpoint", e);
+                }
+            }
+        }
+
+        return archiveLists;
+    }
+
+    private boolean shouldPrefetchKojiArchives() {
+        return switch (config.getLookupStrategy()) {
+            case parallel -> true;
+            case adaptive -> pncLookups < ADAPTIVE_MIN_PNC_LOOKUPS
+                    || (double) pncHits / (double) pncLookups < ADAPTIVE_PNC_HIT_RATIO;
+            default -> false;
+        };
+    }
+
+    /*
+     * Look up in Koji the archives for the given checksums while they are being looked up in Pnc. The results are
+     * only stored, and are used by findBuilds for any checksums that were not found in Pnc.
+     */
+    private List<Future<Void>> prefetchKojiArchives(
+            Map<Checksum, Collection<String>> checksumTable,
+            ExecutorService pool) {
+        List<String> values = new ArrayList<>(checksumTable.size());
+
+        for (Entry<Checksum, Collection<String>> entry : checksumTable.entrySet()) {
+            Checksum checksum = entry.getKey();
+            Collection<String> filenames = entry.getValue();
+
+            if (buildFinderUtils.isEmptyFileDigest(checksum) || buildFinderUtils.isEmptyZipDigest(checksum)
+                    || !buildFinderUtils.hasArchiveExtension(filenames)
+                    || filenames.stream().anyMatch(filename -> filename.endsWith(".rpm"))) {
+                continue;
+            }
+
+            String value = checksum.getValue();
+
+            if (checksumCaches != null && checksumCaches.get(ChecksumType.md5).containsKey(value)) {
+                continue;
+            }
+
+            values.add(value);
+        }
+
+        List<List<String>> chunks = ListUtils.partition(values, config.getKojiMulticallSize());
+        List<Future<Void>> futures = new ArrayList<>(chunks.size());
+
+        LOGGER.debug("Looking up {} checksums in Koji while querying Pnc", green(values.size()));
+
+        for (List<String> chunk : chunks) {
+            futures.add(pool.submit(() -> {
+                List<KojiArchiveQuery> queries = chunk.stream()
+                        .map(value -> new KojiArchiveQuery().withChecksum(value))
+                        .toList();
+                List<List<KojiArchiveInfo>> archiveLists = listAndCacheArchives(queries);
+                Iterator<String> itvalues = chunk.iterator();
+
+                for (List<KojiArchiveInfo> archiveList : archiveLists) {
+                    prefetchedArchives.put(itvalues.next(), archiveList);
+                }
+
+                return null;
+            }));
+        }
+
+        return futures;
+    }
+
+    private static void awaitKojiArchives(Collection<Future<Void>> futures) throws KojiClientException {
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // The checksums of a failed chunk are looked up again by findBuilds if needed
+                LOGGER.debug("Error getting Koji archives while querying Pnc: {}", getAllErrorMessages(e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KojiClientException("Koji archive thread interrupted", e);
+            }
+        }
+    }
+
+    /*
+     * Gets the checksums of the given type of the files not found so far, leaving out the checksums which have already
+     * been looked up
+     */
+    private Map<Checksum, Collection<String>> getUnsearchedNotFoundChecksums(ChecksumType checksumType) {
+        Map<Checksum, Collection<String>> checksums = new HashMap<>();
+
+        for (Entry<Checksum, Collection<String>> entry : notFoundChecksums.entrySet()) {
+            Checksum checksum = buildFinderUtils.getPreferredChecksum(entry.getKey(), entry.getValue(), checksumType);
+
+            if (!notFoundChecksums.containsKey(checksum)) {
+                checksums.put(checksum, entry.getValue());
+            }
+        }
+
+        return checksums;
     }
 
     @Override
     public Map<BuildSystemInteger, KojiBuild> call() throws KojiClientException {
+        try {
+            return findAllBuilds();
+        } finally {
+            // The Koji prefetch pool is shared by all batches of the run
+            if (prefetchPool != null) {
+                Utils.shutdownAndAwaitTermination(prefetchPool);
+                prefetchPool = null;
+            }
+        }
+    }
+
+    private Map<BuildSystemInteger, KojiBuild> findAllBuilds() throws KojiClientException {
         Instant startTime = Instant.now();
         MultiValuedMap<Checksum, String> localchecksumMap = new ArrayListValuedHashMap<>(CHECKSUMS_SIZE); // TODO: fix
                                                                                                           // size
-        Collection<Checksum> checksums = Sets.newHashSetWithExpectedSize(CHECKSUMS_SIZE);
-        Checksum checksum;
+        Collection<FileChecksums> files = new ArrayList<>(CHECKSUMS_SIZE);
+        FileChecksums fileChecksums;
         boolean finished = false;
         Map<BuildSystemInteger, KojiBuild> allBuilds = Maps.newHashMapWithExpectedSize(ALL_BUILDS_SIZE);
 
         while (!finished) {
             try {
-                checksum = analyzer.getQueue().take();
+                fileChecksums = analyzer.getQueue().take();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new KojiClientException("Error taking from queue", e);
             }
 
-            if (checksum.getValue() == null) {
+            if (fileChecksums.isEmpty()) {
                 break;
             }
 
-            checksums.add(checksum);
+            files.add(fileChecksums);
 
-            int numElements = analyzer.getQueue().drainTo(checksums);
+            int numElements = analyzer.getQueue().drainTo(files);
 
             LOGGER.debug("Got {} checksums from queue", numElements + 1);
 
-            for (Checksum cksum : checksums) {
-                String value = cksum.getValue();
+            for (FileChecksums file : files) {
+                Checksum checksum = file.get(ChecksumType.md5);
 
-                if (value == null) {
+                if (file.isEmpty()) {
                     finished = true;
-                } else {
-                    if (cksum.getType() == ChecksumType.md5) {
-                        String filename = cksum.getFilename();
-                        localchecksumMap.put(cksum, filename);
+                } else if (checksum != null) {
+                    String filename = checksum.getFilename();
+
+                    if (!localchecksumMap.containsMapping(checksum, filename)) {
+                        localchecksumMap.put(checksum, filename);
                     }
                 }
             }
@@ -1297,66 +1676,57 @@ public class BuildFinder
             Map<BuildSystemInteger, KojiBuild> kojiBuildsNew;
             Map<Checksum, Collection<String>> map = localchecksumMap.asMap();
 
+            if (journal != null && !map.isEmpty()) {
+                try {
+                    journal.startBatch(map.keySet().stream().map(Checksum::getValue).toList());
+                } catch (IOException e) {
+                    throw new KojiClientException("Error writing checkpoint", e);
+                }
+            }
+
             if (config.getBuildSystems().contains(BuildSystem.pnc) && config.getPncURL() != null) {
-                // The preferred checksumType for PNC is sha256, so replace the original map with a preferred map
-                LOGGER.debug(
-                        "Swapping the original MD5-based checksum map to a SHA256-based checksum map (whenever possible) for finding builds in PNC!");
-                Map<Checksum, Collection<String>> sha256BasedCheckumMap = BuildFinderUtils
-                        .swapEntriesWithPreferredChecksum(map, analyzer.getFiles(), ChecksumType.sha256);
-                LOGGER.debug(
-                        "Original MD5-based checksum map: {}, new SHA256-based checksum map: {}",
-                        map,
-                        sha256BasedCheckumMap);
+                // The preferred checksumType for PNC is sha256, which is selected for each file when it is looked up
+                LOGGER.debug("Finding builds in PNC by SHA256 checksum (whenever possible) for checksum map: {}", map);
+                List<Future<Void>> prefetchFutures = Collections.emptyList();
+
+                if (shouldPrefetchKojiArchives()) {
+                    if (prefetchPool == null) {
+                        prefetchPool = Executors.newFixedThreadPool(config.getKojiNumThreads());
+                    }
+
+                    prefetchFutures = prefetchKojiArchives(map, prefetchPool);
+                }
+
                 try {
-                    pncBuildsNew = pncBuildFinder.findBuildsPnc(sha256BasedCheckumMap);
+                    pncBuildsNew = pncBuildFinder.findBuildsPnc(map, ChecksumType.sha256);
+                    awaitKojiArchives(prefetchFutures);
                 } catch (RemoteResourceException e) {
                     throw new KojiClientException("Pnc error", e);
                 }
 
+                int numPncLookups = map.size();
+                pncLookups += numPncLookups;
+                pncHits += numPncLookups - pncBuildsNew.getNotFoundChecksums().size();
+
                 allBuilds.putAll(pncBuildsNew.getFoundBuilds());
 
                 if (!pncBuildsNew.getNotFoundChecksums().isEmpty()) {
                     LOGGER.debug(
                             "Need to search in Brew!! Not found checksums: {}",
                             pncBuildsNew.getNotFoundChecksums());
-                    LOGGER.debug(
-                            "Swapping back the SHA256-based checksum map to a MD5-based checksum map for finding builds in Brew!");
-
-                    Map<Checksum, Collection<String>> md5BasedNotFoundCheckumMap = BuildFinderUtils
-                            .swapEntriesWithPreferredChecksum(
-                                    pncBuildsNew.getNotFoundChecksums(),
-                                    analyzer.getFiles(),
-                                    ChecksumType.md5);
+                    LOGGER.debug("Finding builds in Brew by MD5 checksum (whenever possible)");
 
-                    LOGGER.debug(
-                            "Original SHA256-based not found checksum map: {}",
-                            pncBuildsNew.getNotFoundChecksums());
-                    LOGGER.debug("New MD5-based not found checksum map: {}", md5BasedNotFoundCheckumMap);
-
-                    kojiBuildsNew = findBuilds(md5BasedNotFoundCheckumMap);
+                    kojiBuildsNew = findBuilds(pncBuildsNew.getNotFoundChecksums(), ChecksumType.md5);
                     allBuilds.putAll(kojiBuildsNew);
 
                     LOGGER.debug(
                             "Searching again in Brew the not found checksums with a SHA256-based map, to find the missed files (e.g. signed binaries)");
-                    LOGGER.debug(
-                            "Swapping the MD5-based not found checksum map to a SHA256-based checksum map for finding more builds in Brew!");
 
-                    Map<Checksum, Collection<String>> sha256BasedNotFoundCheckumMap = BuildFinderUtils
-                            .swapEntriesWithPreferredChecksum(
-                                    notFoundChecksums,
-                                    analyzer.getFiles(),
-                                    ChecksumType.sha256);
+                    Map<Checksum, Collection<String>> sha256BasedNotFoundCheckumMap = getUnsearchedNotFoundChecksums(
+                            ChecksumType.sha256);
 
-                    LOGGER.debug("Original MD5-based not found checksum map: {}", notFoundChecksums);
                     LOGGER.debug("New SHA256-based not found checksum map: {}", sha256BasedNotFoundCheckumMap);
 
-                    // In case the same checksum has already been processed, remove them from the new checksum map
-                    sha256BasedNotFoundCheckumMap.keySet().removeAll(notFoundChecksums.keySet());
-
-                    LOGGER.debug(
-                            "New SHA256-based not found checksum map after the removal of already processed checksums: {}",
-                            sha256BasedNotFoundCheckumMap);
-
                     kojiBuildsNew = findBuilds(sha256BasedNotFoundCheckumMap);
                     LOGGER.debug("Found more Brew builds which were missed initially: {}", kojiBuildsNew);
                     allBuilds.putAll(kojiBuildsNew);
@@ -1366,38 +1736,46 @@ public class BuildFinder
                 allBuilds.putAll(kojiBuildsNew);
                 LOGGER.debug(
                         "Searching again in Brew the not found checksums with a SHA256-based map, to find the missed files (like the signed binaries)");
-                LOGGER.debug(
-                        "Swapping the MD5-based not found checksum map to a SHA256-based checksum map for finding more builds in Brew!");
 
-                Map<Checksum, Collection<String>> sha256BasedNotFoundCheckumMap = BuildFinderUtils
-                        .swapEntriesWithPreferredChecksum(notFoundChecksums, analyzer.getFiles(), ChecksumType.sha256);
+                Map<Checksum, Collection<String>> sha256BasedNotFoundCheckumMap = getUnsearchedNotFoundChecksums(
+                        ChecksumType.sha256);
 
-                LOGGER.debug("Original MD5-based not found checksum map: {}", notFoundChecksums);
                 LOGGER.debug("New SHA256-based not found checksum map: {}", sha256BasedNotFoundCheckumMap);
 
-                // In case the same checksum has already been processed, remove them from the new checksum map
-                sha256BasedNotFoundCheckumMap.keySet().removeAll(notFoundChecksums.keySet());
-
-                LOGGER.debug(
-                        "New SHA256-based not found checksum map after the removal of already processed checksums: {}",
-                        sha256BasedNotFoundCheckumMap);
-
                 kojiBuildsNew = findBuilds(sha256BasedNotFoundCheckumMap);
                 LOGGER.debug("Found more Brew builds which were missed initially: {}", kojiBuildsNew);
                 allBuilds.putAll(kojiBuildsNew);
             }
 
+            if (journal != null) {
+                try {
+                    journal.addBatch(map.size());
+                } catch (IOException e) {
+                    throw new KojiClientException("Error writing checkpoint", e);
+                }
+            }
+
             localchecksumMap.clear();
-            checksums.clear();
+            files.clear();
+            prefetchedArchives.clear();
         }
 
         int size = allBuilds.size();
         int numBuilds = size >= 1 ? size - 1 : 0;
+        Instant endTime = Instant.now();
+        Duration duration = Duration.between(startTime, endTime).abs();
 
-        if (LOGGER.isInfoEnabled()) {
-            Instant endTime = Instant.now();
-            Duration duration = Duration.between(startTime, endTime).abs();
+        metrics.time(BuildFinderMetrics.FINDER_TIME, duration.toNanos());
+        metrics.count(BuildFinderMetrics.FINDER_BUILDS, numBuilds);
+
+        if (!lookupFailedChecksums.isEmpty()) {
+            LOGGER.error(
+                    "Lookup failed for {} checksums, which are reported in {} instead of as not found",
+                    boldRed(lookupFailedChecksums.size()),
+                    boldRed(LOOKUP_FAILED_FILENAME));
+        }
 
+        if (LOGGER.isInfoEnabled()) {
             LOGGER.info(
                     "Found {} builds in {} (average: {})",
                     green(numBuilds),
@@ -1522,6 +1900,32 @@ public class BuildFinder
         }
     }
 
+    public CheckpointJournal getCheckpointJournal() {
+        return journal;
+    }
+
+    /**
+     * Sets the journal used to record, and to skip on a resumed run, the Koji lookups already completed.
+     *
+     * @param journal the checkpoint journal
+     */
+    public void setCheckpointJournal(CheckpointJournal journal) {
+        this.journal = journal;
+    }
+
+    public BuildFinderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics to record the build lookup time in. By default, the metrics of the analyzer are used.
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(BuildFinderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void setListener(BuildFinderListener listener) {
         this.listener = listener;
 
@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers for the stages of a run. The metrics are kept in memory, so that they can be written as a JSON
+ * summary to the output directory, and are also forwarded to any added {@link MetricsRegistry}. Metrics which are
+ * recorded for each file should be recorded through a {@link Counter} or {@link Timer} handle, which is looked up only
+ * once.
+ */
+public final class BuildFinderMetrics implements MetricsRegistry {
+    public static final String ANALYZER_BYTES = "analyzer.checksum.bytes";
+
+    public static final String ANALYZER_FILES = "analyzer.checksum.files";
+
+    public static final String ANALYZER_LICENSES = "analyzer.licenses";
+
+    public static final String ANALYZER_TIME = "analyzer.time";
+
+    public static final String ANALYZER_VFS_LAYERS = "analyzer.vfs.layers";
+
+    public static final String CACHE_HITS = "cache.hits";
+
+    public static final String CACHE_MISSES = "cache.misses";
+
+    public static final String FINDER_BUILDS = "finder.builds";
+
+    public static final String FINDER_TIME = "finder.time";
+
+    public static final String KOJI_CALLS = "koji.calls";
+
+    public static final String PNC_REQUESTS = "pnc.requests";
+
+    private static final String METRICS_FILENAME = "metrics.json";
+
+    private static final double NANOS_PER_MILLI = 1.0e6D;
+
+    private static final double NANOS_PER_SECOND = 1.0e9D;
+
+    private final Map<MetricId, LongAdder> counters;
+
+    private final Map<MetricId, TimerValue> timers;
+
+    private final List<MetricsRegistry> registries;
+
+    public BuildFinderMetrics() {
+        counters = new ConcurrentHashMap<>();
+        timers = new ConcurrentHashMap<>();
+        registries = new CopyOnWriteArrayList<>();
+    }
+
+    public static String getMetricsFilename() {
+        return METRICS_FILENAME;
+    }
+
+    public void addRegistry(MetricsRegistry registry) {
+        registries.add(registry);
+    }
+
+    @Override
+    public void count(String name, long amount, String... tags) {
+        counters.computeIfAbsent(new MetricId(name, tags), k -> new LongAdder()).add(amount);
+
+        for (MetricsRegistry registry : registries) {
+            registry.count(name, amount, tags);
+        }
+    }
+
+    @Override
+    public void time(String name, long nanos, String... tags) {
+        timers.computeIfAbsent(new MetricId(name, tags), k -> new TimerValue()).record(nanos);
+
+        for (MetricsRegistry registry : registries) {
+            registry.time(name, nanos, tags);
+        }
+    }
+
+    /**
+     * Gets a handle to a counter, which adds to the counter without looking it up each time.
+     *
+     * @param name the counter name
+     * @param tags the tag keys and values
+     * @return the counter
+     */
+    public Counter counter(String name, String... tags) {
+        MetricId id = new MetricId(name, tags);
+        return new Counter(id, counters.computeIfAbsent(id, k -> new LongAdder()));
+    }
+
+    /**
+     * Gets a handle to a timer, which records in the timer without looking it up each time.
+     *
+     * @param name the timer name
+     * @param tags the tag keys and values
+     * @return the timer
+     */
+    public Timer timer(String name, String... tags) {
+        MetricId id = new MetricId(name, tags);
+        return new Timer(id, timers.computeIfAbsent(id, k -> new TimerValue()));
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @return the start time to pass to {@link #stop(String, long, String...)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since the given start time in a timer.
+     *
+     * @param name the timer name
+     * @param startNanos the start time returned by {@link #start()}
+     * @param tags the tag keys and values
+     */
+    public void stop(String name, long startNanos, String... tags) {
+        time(name, System.nanoTime() - startNanos, tags);
+    }
+
+    /**
+     * Gets the value of a counter, or the number of durations recorded in a timer.
+     *
+     * @param name the counter or timer name
+     * @param tags the tag keys and values
+     * @return the count, or 0 if nothing was recorded
+     */
+    public long getCount(String name, String... tags) {
+        MetricId id = new MetricId(name, tags);
+        LongAdder counter = counters.get(id);
+
+        if (counter != null) {
+            return counter.sum();
+        }
+
+        TimerValue timer = timers.get(id);
+
+        return timer != null ? timer.count.sum() : 0L;
+    }
+
+    /**
+     * Gets a summary of all metrics, grouped by name. Timers contain the number of recorded durations, their total,
+     * mean, and maximum, and the rate of recorded durations per second of total time.
+     *
+     * @return the summary
+     */
+    public Map<String, Object> getSummary() {
+        Map<String, List<Map<String, Object>>> counterSummary = new TreeMap<>();
+
+        for (Entry<MetricId, LongAdder> entry : counters.entrySet()) {
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("tags", entry.getKey().getTagMap());
+            value.put("count", entry.getValue().sum());
+            counterSummary.computeIfAbsent(entry.getKey().name, k -> new ArrayList<>()).add(value);
+        }
+
+        Map<String, List<Map<String, Object>>> timerSummary = new TreeMap<>();
+
+        for (Entry<MetricId, TimerValue> entry : timers.entrySet()) {
+            TimerValue timer = entry.getValue();
+            long count = timer.count.sum();
+            long totalNanos = timer.totalNanos.sum();
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("tags", entry.getKey().getTagMap());
+            value.put("count", count);
+            value.put("total-ms", totalNanos / NANOS_PER_MILLI);
+            value.put("mean-ms", count > 0L ? totalNanos / NANOS_PER_MILLI / count : 0.0D);
+            value.put("max-ms", timer.maxNanos.get() / NANOS_PER_MILLI);
+            value.put("per-second", totalNanos > 0L ? count * NANOS_PER_SECOND / totalNanos : 0.0D);
+            timerSummary.computeIfAbsent(entry.getKey().name, k -> new ArrayList<>()).add(value);
+        }
+
+        Comparator<Map<String, Object>> byTags = Comparator.comparing(value -> String.valueOf(value.get("tags")));
+        counterSummary.values().forEach(values -> values.sort(byTags));
+        timerSummary.values().forEach(values -> values.sort(byTags));
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("counters", counterSummary);
+        summary.put("timers", timerSummary);
+        return Collections.unmodifiableMap(summary);
+    }
+
+    /**
+     * Writes the summary of all metrics as JSON to the output directory.
+     *
+     * @param outputDirectory the output directory
+     * @throws IOException if an error occurs writing the file
+     */
+    public void writeSummary(Path outputDirectory) throws IOException {
+        JSONUtils.dumpObjectToFile(getSummary(), outputDirectory.resolve(METRICS_FILENAME));
+    }
+
+    /**
+     * A handle to a counter of these metrics.
+     */
+    public final class Counter {
+        private final String name;
+
+        private final String[] tags;
+
+        private final LongAdder value;
+
+        private Counter(MetricId id, LongAdder value) {
+            this.name = id.name;
+            this.tags = id.tags.toArray(new String[0]);
+            this.value = value;
+        }
+
+        /**
+         * Adds to the counter.
+         *
+         * @param amount the amount to add
+         */
+        public void add(long amount) {
+            value.add(amount);
+
+            for (MetricsRegistry registry : registries) {
+                registry.count(name, amount, tags);
+            }
+        }
+    }
+
+    /**
+     * A handle to a timer of these metrics.
+     */
+    public final class Timer {
+        private final String name;
+
+        private final String[] tags;
+
+        private final TimerValue value;
+
+        private Timer(MetricId id, TimerValue value) {
+            this.name = id.name;
+            this.tags = id.tags.toArray(new String[0]);
+            this.value = value;
+        }
+
+        /**
+         * Records a duration in the timer.
+         *
+         * @param nanos the duration in nanoseconds
+         */
+        public void record(long nanos) {
+            value.record(nanos);
+
+            for (MetricsRegistry registry : registries) {
+                registry.time(name, nanos, tags);
+            }
+        }
+
+        /**
+         * Records the time elapsed since the given start time in the timer.
+         *
+         * @param startNanos the start time returned by {@link BuildFinderMetrics#start()}
+         */
+        public void stop(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    private static final class MetricId {
+        private final String name;
+
+        private final List<String> tags;
+
+        private MetricId(String name, String... tags) {
+            if (tags.length % 2 != 0) {
+                throw new IllegalArgumentException("Tags must be given as keys and values: " + Arrays.toString(tags));
+            }
+
+            this.name = name;
+            this.tags = List.of(tags);
+        }
+
+        private Map<String, String> getTagMap() {
+            Map<String, String> map = new LinkedHashMap<>();
+
+            for (int i = 0; i < tags.size(); i += 2) {
+                map.put(tags.get(i), tags.get(i + 1));
+            }
+
+            return map;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            MetricId metricId = (MetricId) o;
+            return name.equals(metricId.name) && tags.equals(metricId.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + tags.hashCode();
+        }
+    }
+
+    private static final class TimerValue {
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+    }
+}
@@ -26,7 +26,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -136,20 +135,24 @@ public final class BuildFinderUtils {
     }
 
     private boolean shouldSkipExtension(Collection<String> filenames) {
+        if (!hasArchiveExtension(filenames)) {
+            LOGGER.warn("Skipped due to invalid archive extension for files: {}", red(String.join(", ", filenames)));
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean hasArchiveExtension(Collection<String> filenames) {
         Collection<String> newArchiveExtensions = new ArrayList<>(archiveExtensions.size() + 1);
 
         newArchiveExtensions.addAll(archiveExtensions);
         newArchiveExtensions.add("rpm");
 
-        if (filenames.stream()
-                .noneMatch(
+        return filenames.stream()
+                .anyMatch(
                         filename -> newArchiveExtensions.stream()
-                                .anyMatch(extension -> filename.endsWith("." + extension)))) {
-            LOGGER.warn("Skipped due to invalid archive extension for files: {}", red(String.join(", ", filenames)));
-            return true;
-        }
-
-        return false;
+                                .anyMatch(extension -> filename.endsWith("." + extension)));
     }
 
     public void addArchiveToBuild(KojiBuild build, KojiArchiveInfo archive, Collection<String> filenames) {
@@ -438,37 +441,31 @@ public final class BuildFinderUtils {
         return extensionsToCheck;
     }
 
-    public static Map<Checksum, Collection<String>> swapEntriesWithPreferredChecksum(
-            Map<Checksum, Collection<String>> originalMap,
-            Map<String, Collection<Checksum>> fileInverseMap,
-            ChecksumType preferredChecksumType) {
-
-        Map<Checksum, Collection<String>> preferredChecksumMap = new HashMap<>(originalMap.size(), 1.0f);
+    /**
+     * Gets the checksum of the given type of the file with the given checksum. The checksums computed together with the
+     * given checksum are checked first, and then the checksums of the file known to the distribution analyzer.
+     *
+     * @param checksum the checksum
+     * @param filenames the files with the checksum
+     * @param checksumType the checksum type
+     * @return the checksum of the given type, or the given checksum if the file has no checksum of that type
+     */
+    public Checksum getPreferredChecksum(Checksum checksum, Collection<String> filenames, ChecksumType checksumType) {
+        if (checksum.getType() == checksumType) {
+            return checksum;
+        }
 
-        for (Map.Entry<Checksum, Collection<String>> entry : originalMap.entrySet()) {
-            Checksum checksum = entry.getKey();
-            Collection<String> files = entry.getValue();
+        FileChecksums fileChecksums = checksum.getFileChecksums();
+        Checksum preferredChecksum = fileChecksums != null ? fileChecksums.get(checksumType) : null;
 
-            if (checksum.getType().equals(preferredChecksumType)) {
-                // If the checksum type is already the preferred type, then there is no need to search further
-                preferredChecksumMap.put(checksum, files);
-                continue;
-            }
+        if (preferredChecksum == null && distributionAnalyzer != null && !filenames.isEmpty()) {
+            Collection<Checksum> checksums = distributionAnalyzer.getFiles().get(filenames.iterator().next());
 
-            Collection<Checksum> fileChecksums = fileInverseMap.get(files.iterator().next());
-            Optional<Checksum> preferredChecksum = fileChecksums != null
-                    ? Checksum.findByType(fileChecksums, preferredChecksumType)
-                    : Optional.empty();
-
-            if (preferredChecksum.isPresent()) {
-                // The preferred checksum was found, use it
-                preferredChecksumMap.put(preferredChecksum.get(), files);
-            } else {
-                // The preferred checksum type was not found, use the original checksum
-                preferredChecksumMap.put(checksum, files);
+            if (checksums != null) {
+                preferredChecksum = Checksum.findByType(checksums, checksumType).orElse(null);
             }
         }
 
-        return preferredChecksumMap;
+        return preferredChecksum != null ? preferredChecksum : checksum;
     }
 }
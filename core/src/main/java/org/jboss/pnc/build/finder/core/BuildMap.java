@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+
+/**
+ * A map of builds keyed by build system and integer build id.
+ * <p>
+ * The build system and id are packed into a single {@code long} key, so that {@link #get(BuildSystem, int)} and
+ * {@link #put(BuildSystem, int, KojiBuild)} do not allocate. The {@link BuildSystemInteger} keys seen through the
+ * {@link Map} interface are only created when iterating over the entries.
+ */
+final class BuildMap extends AbstractMap<BuildSystemInteger, KojiBuild> {
+    private final LongObjectMap<KojiBuild> map;
+
+    BuildMap(int expectedSize) {
+        this.map = new LongObjectMap<>(expectedSize);
+    }
+
+    static long key(BuildSystem buildSystem, int id) {
+        return ((long) buildSystem.getValue() << Integer.SIZE) | (id & 0xFFFFFFFFL);
+    }
+
+    private static BuildSystemInteger toBuildSystemInteger(long key) {
+        return new BuildSystemInteger((int) key, BuildSystem.fromInteger((int) (key >>> Integer.SIZE)));
+    }
+
+    private static long toKey(Object o) {
+        if (!(o instanceof BuildSystemInteger buildSystemInteger) || buildSystemInteger.getBuildSystem() == null) {
+            return -1L;
+        }
+
+        try {
+            return key(buildSystemInteger.getBuildSystem(), Integer.parseInt(buildSystemInteger.getValue()));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    KojiBuild get(BuildSystem buildSystem, int id) {
+        return map.get(key(buildSystem, id));
+    }
+
+    KojiBuild put(BuildSystem buildSystem, int id, KojiBuild build) {
+        return map.put(key(buildSystem, id), build);
+    }
+
+    @Override
+    public KojiBuild get(Object key) {
+        long k = toKey(key);
+        return k != -1L ? map.get(k) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        long k = toKey(key);
+        return k != -1L && map.containsKey(k);
+    }
+
+    @Override
+    public KojiBuild put(BuildSystemInteger key, KojiBuild value) {
+        long k = toKey(key);
+
+        if (k == -1L) {
+            throw new IllegalArgumentException("Build id is not an integer: " + key);
+        }
+
+        return map.put(k, value);
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public Collection<KojiBuild> values() {
+        return map.values();
+    }
+
+    @Override
+    public Set<Entry<BuildSystemInteger, KojiBuild>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<BuildSystemInteger, KojiBuild>> iterator() {
+                return map.iterator((key, build) -> new SimpleImmutableEntry<>(toBuildSystemInteger(key), build));
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
@@ -100,6 +100,16 @@ public class BuildSystemInteger implements Comparable<Object> {
 
         @Override
         public Object deserializeKey(String s, DeserializationContext deserializationContext) {
+            return parse(s);
+        }
+
+        /**
+         * Parses a key written by {@link BuildSystemInteger#toString()}.
+         *
+         * @param s the key
+         * @return the build system integer
+         */
+        public static BuildSystemInteger parse(String s) {
             String[] t = PATTERN.split(s);
             String value = t[0];
             BuildSystem buildSystem = BuildSystem.valueOf(t[1]);
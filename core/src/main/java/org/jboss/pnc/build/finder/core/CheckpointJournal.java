@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.green;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.red;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+
+/**
+ * Journal of the Koji lookups completed by a {@link BuildFinder}, so that an interrupted run can be resumed without
+ * looking up again what was already found.
+ * <p>
+ * The journal is a file with one compact JSON object per line. Each line holds either the archives found for a
+ * checksum, a build fetched by id, the checksums of a started batch, or the size of a completed batch. Lines are
+ * flushed as soon as they are written, so only the last line can be partially written. Such a line is discarded when
+ * the journal is replayed, while any other line which cannot be read is skipped.
+ */
+public final class CheckpointJournal implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointJournal.class);
+
+    private static final String KEY_CHECKSUM = "checksum";
+
+    private static final String KEY_ARCHIVES = "archives";
+
+    private static final String KEY_BUILD = "build";
+
+    private static final String KEY_BATCH = "batch";
+
+    private static final String KEY_PENDING = "pending";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ObjectMapper MAPPER = new BuildFinderObjectMapper();
+
+    private static final ObjectWriter WRITER = MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    private final Path path;
+
+    private final Map<String, List<KojiArchiveInfo>> archives;
+
+    private final Map<Integer, KojiBuild> builds;
+
+    private final BufferedWriter writer;
+
+    private int completedBatches;
+
+    private long completedChecksums;
+
+    private List<String> pendingChecksums;
+
+    /**
+     * Opens the journal at the given path.
+     *
+     * @param path the journal file
+     * @param resume whether to replay and append to an existing journal instead of starting a new one
+     * @throws IOException if the journal cannot be read or written
+     */
+    public CheckpointJournal(Path path, boolean resume) throws IOException {
+        this.path = path;
+        this.archives = new ConcurrentHashMap<>();
+        this.builds = new ConcurrentHashMap<>();
+        this.pendingChecksums = Collections.emptyList();
+
+        if (resume && Files.isRegularFile(path)) {
+            replay();
+            this.writer = Files.newBufferedWriter(path, UTF_8, StandardOpenOption.APPEND);
+        } else {
+            this.writer = Files.newBufferedWriter(path, UTF_8);
+        }
+    }
+
+    private void replay() throws IOException {
+        discardPartialLine();
+
+        TypeReference<List<KojiArchiveInfo>> archivesType = new ArchiveListTypeReference();
+        int lineNumber = 0;
+        int numSkipped = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    if (!replayEntry(MAPPER.readTree(line), archivesType)) {
+                        throw new IllegalArgumentException("Unknown entry: " + line);
+                    }
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    LOGGER.warn("Skipping invalid entry at line {} of checkpoint {}", red(lineNumber), red(path));
+                    LOGGER.debug("Error", e);
+                    numSkipped++;
+                }
+            }
+        }
+
+        pendingChecksums = pendingChecksums.stream().filter(checksum -> !archives.containsKey(checksum)).toList();
+
+        LOGGER.info(
+                "Resuming from checkpoint {} with {} completed batches ({} checksums), {} archive lookups "
+                        + "and {} builds",
+                green(path),
+                green(completedBatches),
+                green(completedChecksums),
+                green(archives.size()),
+                green(builds.size()));
+
+        if (!pendingChecksums.isEmpty()) {
+            LOGGER.info(
+                    "The last batch was interrupted with {} checksums left to look up",
+                    green(pendingChecksums.size()));
+        }
+
+        if (numSkipped > 0) {
+            LOGGER.warn("Skipped {} invalid entries of checkpoint {}", red(numSkipped), red(path));
+        }
+    }
+
+    /*
+     * Returns whether the entry is one of the known kinds. A batch is pending from its pending entry until its batch
+     * entry, and batches are looked up one at a time, so only the last one can still be pending.
+     */
+    private boolean replayEntry(JsonNode node, TypeReference<List<KojiArchiveInfo>> archivesType)
+            throws JsonProcessingException {
+        if (node.has(KEY_CHECKSUM)) {
+            List<KojiArchiveInfo> archiveInfos = MAPPER.convertValue(node.get(KEY_ARCHIVES), archivesType);
+
+            if (archiveInfos == null) {
+                throw new IllegalArgumentException("Missing archives");
+            }
+
+            archives.put(node.get(KEY_CHECKSUM).asText(), archiveInfos);
+        } else if (node.has(KEY_BUILD)) {
+            KojiBuild build = MAPPER.treeToValue(node.get(KEY_BUILD), KojiBuild.class);
+
+            if (build == null || build.getBuildInfo() == null) {
+                throw new IllegalArgumentException("Missing build info");
+            }
+
+            builds.put(build.getBuildInfo().getId(), build);
+        } else if (node.has(KEY_PENDING)) {
+            List<String> checksums = new ArrayList<>(node.get(KEY_PENDING).size());
+            node.get(KEY_PENDING).forEach(checksum -> checksums.add(checksum.asText()));
+            pendingChecksums = checksums;
+        } else if (node.has(KEY_BATCH)) {
+            completedBatches++;
+            completedChecksums += node.get(KEY_BATCH).asLong();
+            pendingChecksums = Collections.emptyList();
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /*
+     * Truncates the journal after its last newline, which removes a line whose write was interrupted
+     */
+    private void discardPartialLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+            while (end > 0L) {
+                int length = (int) Math.min(BUFFER_SIZE, end);
+                long start = end - length;
+                buffer.clear().limit(length);
+
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, start + buffer.position()) < 0) {
+                        throw new IOException("Unexpected end of checkpoint " + path);
+                    }
+                }
+
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        truncate(channel, start + i + 1L, size);
+                        return;
+                    }
+                }
+
+                end = start;
+            }
+
+            truncate(channel, 0L, size);
+        }
+    }
+
+    private void truncate(FileChannel channel, long length, long size) throws IOException {
+        if (length < size) {
+            LOGGER.warn("Discarding incomplete entry at end of checkpoint {}", red(path));
+            channel.truncate(length);
+        }
+    }
+
+    /**
+     * Gets the archives previously found for the given checksum.
+     *
+     * @param checksum the checksum value
+     * @return the archives found, or null if the checksum has not been looked up yet
+     */
+    public List<KojiArchiveInfo> getArchives(String checksum) {
+        return archives.get(checksum);
+    }
+
+    /**
+     * Gets the build previously fetched with the given id.
+     *
+     * @param id the build id
+     * @return the build, or null if the build has not been fetched yet
+     */
+    public KojiBuild getBuild(Integer id) {
+        return builds.get(id);
+    }
+
+    public int getCompletedBatches() {
+        return completedBatches;
+    }
+
+    /**
+     * Gets the checksums of the batch which was interrupted in the replayed journal that were not looked up yet.
+     *
+     * @return the checksum values, or an empty list if no batch was interrupted
+     */
+    public List<String> getPendingChecksums() {
+        return Collections.unmodifiableList(pendingChecksums);
+    }
+
+    public void addArchives(String checksum, List<KojiArchiveInfo> archiveInfos) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put(KEY_CHECKSUM, checksum);
+        node.set(KEY_ARCHIVES, MAPPER.valueToTree(archiveInfos));
+        write(node);
+    }
+
+    public void addBuild(KojiBuild build) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.set(KEY_BUILD, MAPPER.valueToTree(build));
+        write(node);
+    }
+
+    /**
+     * Records the start of a batch, so that a resumed run knows which checksums were being looked up.
+     *
+     * @param checksums the checksum values of the batch
+     * @throws IOException if the journal cannot be written
+     */
+    public void startBatch(Collection<String> checksums) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        checksums.forEach(node.putArray(KEY_PENDING)::add);
+        write(node);
+    }
+
+    public void addBatch(int numChecksums) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put(KEY_BATCH, numChecksums);
+        write(node);
+        completedBatches++;
+        completedChecksums += numChecksums;
+    }
+
+    private synchronized void write(JsonNode node) throws IOException {
+        writer.write(WRITER.writeValueAsString(node));
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static final class ArchiveListTypeReference extends TypeReference<List<KojiArchiveInfo>> {
+
+    }
+}
@@ -24,11 +24,11 @@ import java.io.Serializable;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -37,6 +37,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileName;
@@ -56,38 +57,62 @@ public class Checksum implements Comparable<Checksum>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Checksum.class);
 
     @Serial
-    private static final long serialVersionUID = -7347509034711302799L;
+    private static final long serialVersionUID = 4181393458102337457L;
 
     private static final int BUFFER_SIZE = 1024;
 
     private ChecksumType type;
 
-    private String value;
+    /*
+     * The value is stored as the digest bytes when it is a lowercase hex string, which is always the case for the
+     * checksums computed here and for the ones returned by Koji and Pnc. Any other value is kept as is.
+     */
+    @JsonIgnore
+    private byte[] digest;
+
+    @JsonIgnore
+    private String rawValue;
 
     @JsonIgnore
-    private String filename;
+    private InternedPath filename;
 
     @JsonIgnore
     private long fileSize;
 
+    @JsonIgnore
+    private transient int hash;
+
+    // Not named after the value property, since Jackson would then apply the annotations of this field to it
+    private transient String hexValue;
+
+    @JsonIgnore
+    private transient FileChecksums fileChecksums;
+
     public Checksum() {
 
     }
 
     public Checksum(ChecksumType type, String value, String filename, long fileSize) {
         this.type = type;
-        this.value = value;
-        this.filename = filename;
+        setValue(value);
+        this.filename = InternedPath.of(filename);
         this.fileSize = fileSize;
     }
 
     public Checksum(ChecksumType type, String value, LocalFile localFile) {
         this.type = type;
-        this.value = value;
-        this.filename = localFile.getFilename();
+        setValue(value);
+        this.filename = localFile.getPath();
         this.fileSize = localFile.getSize();
     }
 
+    private Checksum(ChecksumType type, byte[] digest, String filename, long fileSize) {
+        this.type = type;
+        this.digest = digest;
+        this.filename = InternedPath.of(filename);
+        this.fileSize = fileSize;
+    }
+
     public static long determineFileSize(FileContent fc) throws FileSystemException {
         try {
             return fc.getSize();
@@ -112,6 +137,7 @@ public class Checksum implements Comparable<Checksum>, Serializable {
         Collection<CompletableFuture<Void>> futures = new ArrayList<>(checksumTypesSize);
         Map<ChecksumType, CompletableFuture<Checksum>> futures2 = new EnumMap<>(ChecksumType.class);
         FileName filename = fo.getName();
+        String path = Utils.normalizePath(fo, root);
         long fileSize;
 
         if ("rpm".equals(filename.getExtension())) {
@@ -150,10 +176,10 @@ public class Checksum implements Comparable<Checksum>, Serializable {
                                 throw new IOException("Missing " + checksumType.getAlgorithm() + " for " + fo);
                             }
 
-                            String sigmd5 = Hex.encodeHexString((byte[]) md5);
+                            byte[] sigmd5 = (byte[]) md5;
 
                             future = CompletableFuture.supplyAsync(
-                                    () -> new Checksum(checksumType, sigmd5, Utils.normalizePath(fo, root), fileSize));
+                                    () -> new Checksum(checksumType, sigmd5, path, fileSize));
 
                             futures2.put(checksumType, future);
                         }
@@ -165,10 +191,10 @@ public class Checksum implements Comparable<Checksum>, Serializable {
                                 break;
                             }
 
-                            String sigsha1 = Hex.encodeHexString((byte[]) sha1);
+                            byte[] sigsha1 = (byte[]) sha1;
 
                             future = CompletableFuture.supplyAsync(
-                                    () -> new Checksum(checksumType, sigsha1, Utils.normalizePath(fo, root), fileSize));
+                                    () -> new Checksum(checksumType, sigsha1, path, fileSize));
 
                             futures2.put(checksumType, future);
                         }
@@ -180,14 +206,10 @@ public class Checksum implements Comparable<Checksum>, Serializable {
                                 break;
                             }
 
-                            String sigsha256 = Hex.encodeHexString((byte[]) sha256);
+                            byte[] sigsha256 = (byte[]) sha256;
 
                             future = CompletableFuture.supplyAsync(
-                                    () -> new Checksum(
-                                            checksumType,
-                                            sigsha256,
-                                            Utils.normalizePath(fo, root),
-                                            fileSize));
+                                    () -> new Checksum(checksumType, sigsha256, path, fileSize));
 
                             futures2.put(checksumType, future);
                         }
@@ -225,11 +247,7 @@ public class Checksum implements Comparable<Checksum>, Serializable {
             for (ChecksumType checksumType : checksumTypes) {
                 CompletableFuture<Checksum> future = CompletableFuture.supplyAsync(() -> {
                     MessageDigest md = mds.get(checksumType);
-                    return new Checksum(
-                            checksumType,
-                            Hex.encodeHexString(md.digest()),
-                            Utils.normalizePath(fo, root),
-                            fileSize);
+                    return new Checksum(checksumType, md.digest(), path, fileSize);
                 });
 
                 futures2.put(checksumType, future);
@@ -256,14 +274,26 @@ public class Checksum implements Comparable<Checksum>, Serializable {
     }
 
     static Optional<Checksum> findByType(Collection<Checksum> checksums, ChecksumType type) {
-        List<Checksum> list = checksums.stream().filter(checksum -> checksum.getType() == type).toList();
-        Checksum checksum = null;
-
-        if (!list.isEmpty()) {
-            checksum = list.get(0);
+        for (Checksum checksum : checksums) {
+            if (checksum.getType() == type) {
+                return Optional.of(checksum);
+            }
         }
 
-        return Optional.ofNullable(checksum);
+        return Optional.empty();
+    }
+
+    /**
+     * Gets the record of the checksums computed together with this checksum for the same file.
+     *
+     * @return the record, or null if this checksum was not computed together with the others
+     */
+    FileChecksums getFileChecksums() {
+        return fileChecksums;
+    }
+
+    void setFileChecksums(FileChecksums fileChecksums) {
+        this.fileChecksums = fileChecksums;
     }
 
     public ChecksumType getType() {
@@ -272,22 +302,77 @@ public class Checksum implements Comparable<Checksum>, Serializable {
 
     public void setType(ChecksumType type) {
         this.type = type;
+        this.hash = 0;
     }
 
     public String getValue() {
-        return value;
+        if (digest == null) {
+            return rawValue;
+        }
+
+        String v = hexValue;
+
+        if (v == null) {
+            v = Hex.encodeHexString(digest);
+            hexValue = v;
+        }
+
+        return v;
     }
 
     public void setValue(String value) {
-        this.value = value;
+        this.digest = value != null ? decodeHex(value) : null;
+        this.rawValue = digest == null ? value : null;
+        this.hexValue = digest != null ? value : null;
+        this.hash = 0;
+    }
+
+    private static byte[] decodeHex(String value) {
+        int length = value.length();
+
+        if (length == 0 || (length & 1) != 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length >> 1];
+
+        for (int i = 0; i < length; i += 2) {
+            int high = hexDigit(value.charAt(i));
+            int low = hexDigit(value.charAt(i + 1));
+
+            if (high < 0 || low < 0) {
+                return null;
+            }
+
+            bytes[i >> 1] = (byte) (high << 4 | low);
+        }
+
+        return bytes;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+
+        return -1;
     }
 
     public String getFilename() {
-        return filename;
+        return filename != null ? filename.toString() : null;
     }
 
     public void setFilename(String filename) {
-        this.filename = filename;
+        this.filename = InternedPath.of(filename);
+        this.hash = 0;
+    }
+
+    InternedPath getPath() {
+        return filename;
     }
 
     public long getFileSize() {
@@ -296,6 +381,7 @@ public class Checksum implements Comparable<Checksum>, Serializable {
 
     public void setFileSize(long fileSize) {
         this.fileSize = fileSize;
+        this.hash = 0;
     }
 
     @Override
@@ -310,13 +396,15 @@ public class Checksum implements Comparable<Checksum>, Serializable {
             return i;
         }
 
-        int j = StringUtils.compare(value, o.value);
+        // Lowercase hex strings of the same length sort in the same order as their unsigned bytes
+        int j = digest != null && o.digest != null ? Arrays.compareUnsigned(digest, o.digest)
+                : StringUtils.compare(getValue(), o.getValue());
 
         if (j != 0) {
             return j;
         }
 
-        int k = StringUtils.compare(filename, o.filename);
+        int k = ObjectUtils.compare(filename, o.filename);
 
         if (k != 0) {
             return k;
@@ -336,18 +424,29 @@ public class Checksum implements Comparable<Checksum>, Serializable {
         }
 
         Checksum checksum = (Checksum) o;
-        return fileSize == checksum.fileSize && type == checksum.type && Objects.equals(value, checksum.value)
+        return fileSize == checksum.fileSize && type == checksum.type && hashCode() == checksum.hashCode()
+                && Arrays.equals(digest, checksum.digest) && Objects.equals(rawValue, checksum.rawValue)
                 && Objects.equals(filename, checksum.filename);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, value, filename, fileSize);
+        int h = hash;
+
+        if (h == 0) {
+            h = type != null ? type.ordinal() : -1;
+            h = 31 * h + (digest != null ? Arrays.hashCode(digest) : Objects.hashCode(rawValue));
+            h = 31 * h + Objects.hashCode(filename);
+            h = 31 * h + Long.hashCode(fileSize);
+            hash = h;
+        }
+
+        return h;
     }
 
     @Override
     public String toString() {
-        return "Checksum{" + "type=" + type + ", value='" + value + '\'' + ", filename='" + filename + '\''
+        return "Checksum{" + "type=" + type + ", value='" + getValue() + '\'' + ", filename='" + filename + '\''
                 + ", fileSize=" + fileSize + '}';
     }
 }
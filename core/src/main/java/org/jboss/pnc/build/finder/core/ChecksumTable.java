@@ -0,0 +1,697 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.commons.collections4.multimap.AbstractMultiValuedMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A table of file checksums stored outside the heap in memory-mapped files, for inputs with too many files to keep
+ * their checksums in memory.
+ * <p>
+ * Each checksum is appended as a record to a file which is mapped in segments as it grows. Two hash indexes, also
+ * memory-mapped, point to the latest record for each checksum value and for each filename, and every record links to
+ * the previous record with the same value and with the same filename. The operating system pages the files in and out
+ * as needed, so the heap used by the table does not depend on the number of checksums. The files are deleted as soon
+ * as they are mapped, so that their storage is released once the table is closed and the mappings are no longer
+ * reachable.
+ * <p>
+ * Checksums can only be added. Lookups return copies of the matching records, and the map views returned by
+ * {@link #asChecksumsMap(Collection)} and {@link #asFilesMap()} are read-only. Once the table is closed, it is empty.
+ */
+public final class ChecksumTable implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChecksumTable.class);
+
+    private static final int SEGMENT_SHIFT = 26;
+
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private static final int NEXT_BY_VALUE = 0;
+
+    private static final int NEXT_BY_FILENAME = 8;
+
+    private static final int FILE_SIZE = 16;
+
+    private static final int VALUE_HASH = 24;
+
+    private static final int FILENAME_HASH = 28;
+
+    private static final int TYPE = 32;
+
+    private static final int VALUE_LENGTH = 33;
+
+    private static final int FILENAME_LENGTH = 35;
+
+    private static final int HEADER_SIZE = 39;
+
+    private static final int MAX_VALUE_LENGTH = 0xFFFF;
+
+    private static final int NO_TYPE = -1;
+
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 16;
+
+    private static final int MAX_INDEX_CAPACITY = 1 << 27;
+
+    private static final ChecksumType[] TYPES = ChecksumType.values();
+
+    private final Path directory;
+
+    private final FileChannel channel;
+
+    private final List<ByteBuffer> segments;
+
+    private final Index valueIndex;
+
+    private final Index filenameIndex;
+
+    private final int[] numValues;
+
+    private final long[] numEntries;
+
+    private long end;
+
+    private int modCount;
+
+    private boolean closed;
+
+    /**
+     * Creates an empty table whose files are created in the given directory.
+     *
+     * @param directory the directory
+     * @throws IOException if an error occurs creating the files
+     */
+    public ChecksumTable(Path directory) throws IOException {
+        this.directory = directory;
+        Path file = Files.createTempFile(directory, "checksums-", ".dat");
+        this.channel = FileChannel.open(file, READ, WRITE);
+        deleteMappedFile(file);
+        this.segments = new ArrayList<>();
+        this.valueIndex = new Index(NEXT_BY_VALUE, VALUE_HASH);
+        this.filenameIndex = new Index(NEXT_BY_FILENAME, FILENAME_HASH);
+        this.numValues = new int[TYPES.length];
+        this.numEntries = new long[TYPES.length];
+        // Offset 0 marks the end of a list of records
+        this.end = Long.BYTES;
+    }
+
+    private static void deleteMappedFile(Path file) {
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            // Some platforms do not allow deleting a file which is still open
+            LOGGER.debug("Could not delete {} yet, deleting on exit", file, e);
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    private static int hash(int seed, byte[] bytes) {
+        int h = seed;
+
+        for (byte b : bytes) {
+            h = 31 * h + b;
+        }
+
+        return h;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int position(long record) {
+        return (int) record & (SEGMENT_SIZE - 1);
+    }
+
+    private ByteBuffer segment(long record) {
+        return segments.get((int) (record >>> SEGMENT_SHIFT));
+    }
+
+    private ByteBuffer map(String prefix, long size) throws IOException {
+        Path file = Files.createTempFile(directory, prefix, ".dat");
+
+        try (FileChannel fc = FileChannel.open(file, READ, WRITE)) {
+            return fc.map(MapMode.READ_WRITE, 0L, size);
+        } finally {
+            deleteMappedFile(file);
+        }
+    }
+
+    private long next(long record, int field) {
+        return segment(record).getLong(position(record) + field);
+    }
+
+    private int type(long record) {
+        return segment(record).get(position(record) + TYPE);
+    }
+
+    private long fileSize(long record) {
+        return segment(record).getLong(position(record) + FILE_SIZE);
+    }
+
+    private int valueLength(long record) {
+        return segment(record).getShort(position(record) + VALUE_LENGTH) & MAX_VALUE_LENGTH;
+    }
+
+    private int filenameLength(long record) {
+        return segment(record).getInt(position(record) + FILENAME_LENGTH);
+    }
+
+    private String value(long record) {
+        byte[] bytes = new byte[valueLength(record)];
+        segment(record).get(position(record) + HEADER_SIZE, bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private String filename(long record) {
+        byte[] bytes = new byte[filenameLength(record)];
+        segment(record).get(position(record) + HEADER_SIZE + valueLength(record), bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private boolean bytesEqual(long record, int offset, byte[] key) {
+        ByteBuffer buffer = segment(record);
+        int start = position(record) + offset;
+
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean matchesValue(long record, int hash, int type, byte[] value) {
+        return segment(record).getInt(position(record) + VALUE_HASH) == hash && type(record) == type
+                && valueLength(record) == value.length && bytesEqual(record, HEADER_SIZE, value);
+    }
+
+    private boolean matchesFilename(long record, int hash, byte[] filename) {
+        return segment(record).getInt(position(record) + FILENAME_HASH) == hash
+                && filenameLength(record) == filename.length
+                && bytesEqual(record, HEADER_SIZE + valueLength(record), filename);
+    }
+
+    private long append(int type, byte[] value, byte[] filename, int valueHash, int filenameHash, long fileSize)
+            throws IOException {
+        int length = HEADER_SIZE + value.length + filename.length;
+
+        if (value.length > MAX_VALUE_LENGTH || length > SEGMENT_SIZE) {
+            throw new IOException("Checksum record is too large for file " + new String(filename, UTF_8));
+        }
+
+        if (position(end) + length > SEGMENT_SIZE) {
+            end = ((end >>> SEGMENT_SHIFT) + 1L) << SEGMENT_SHIFT;
+        }
+
+        while (segments.size() <= (int) (end >>> SEGMENT_SHIFT)) {
+            long offset = (long) segments.size() << SEGMENT_SHIFT;
+            segments.add(channel.map(MapMode.READ_WRITE, offset, SEGMENT_SIZE));
+        }
+
+        long record = end;
+        ByteBuffer buffer = segment(record);
+        int position = position(record);
+
+        buffer.putLong(position + FILE_SIZE, fileSize);
+        buffer.putInt(position + VALUE_HASH, valueHash);
+        buffer.putInt(position + FILENAME_HASH, filenameHash);
+        buffer.put(position + TYPE, (byte) type);
+        buffer.putShort(position + VALUE_LENGTH, (short) value.length);
+        buffer.putInt(position + FILENAME_LENGTH, filename.length);
+        buffer.put(position + HEADER_SIZE, value);
+        buffer.put(position + HEADER_SIZE + value.length, filename);
+
+        end += length;
+
+        return record;
+    }
+
+    /**
+     * Adds the given checksum, unless the table already has a checksum of the same type and value for the same file.
+     *
+     * @param checksum the checksum
+     * @return whether the checksum was added
+     * @throws IOException if an error occurs growing the files
+     */
+    public synchronized boolean add(Checksum checksum) throws IOException {
+        if (closed) {
+            throw new IOException("Checksum table is closed");
+        }
+
+        int type = checksum.getType().ordinal();
+        byte[] value = checksum.getValue().getBytes(UTF_8);
+        byte[] filename = checksum.getFilename().getBytes(UTF_8);
+        int valueHash = hash(type, value);
+        int filenameHash = hash(NO_TYPE, filename);
+
+        for (long r = filenameIndex.get(filenameHash, NO_TYPE, filename); r != 0L; r = next(r, NEXT_BY_FILENAME)) {
+            if (matchesValue(r, valueHash, type, value)) {
+                return false;
+            }
+        }
+
+        long record = append(type, value, filename, valueHash, filenameHash, checksum.getFileSize());
+
+        if (valueIndex.add(record, valueHash, type, value)) {
+            numValues[type]++;
+        }
+
+        filenameIndex.add(record, filenameHash, NO_TYPE, filename);
+        numEntries[type]++;
+        modCount++;
+
+        return true;
+    }
+
+    /**
+     * Gets the files having a checksum of the given type and value.
+     *
+     * @param type the checksum type
+     * @param value the checksum value
+     * @return the files, or an empty collection if there are none
+     */
+    public synchronized Collection<LocalFile> get(ChecksumType type, String value) {
+        byte[] key = value.getBytes(UTF_8);
+        return localFiles(valueIndex.get(hash(type.ordinal(), key), type.ordinal(), key));
+    }
+
+    /**
+     * Gets the checksums of the given file.
+     *
+     * @param filename the filename
+     * @return the checksums, or an empty collection if there are none
+     */
+    public synchronized Collection<Checksum> get(String filename) {
+        byte[] key = filename.getBytes(UTF_8);
+        return checksums(filenameIndex.get(hash(NO_TYPE, key), NO_TYPE, key), filename);
+    }
+
+    public synchronized long size() {
+        long size = 0L;
+
+        for (long n : numEntries) {
+            size += n;
+        }
+
+        return size;
+    }
+
+    private List<LocalFile> localFiles(long head) {
+        List<LocalFile> localFiles = new ArrayList<>(1);
+
+        for (long r = head; r != 0L; r = next(r, NEXT_BY_VALUE)) {
+            localFiles.add(new LocalFile(filename(r), fileSize(r)));
+        }
+
+        return localFiles;
+    }
+
+    private List<Checksum> checksums(long head, String filename) {
+        List<Checksum> checksums = new ArrayList<>(1);
+
+        for (long r = head; r != 0L; r = next(r, NEXT_BY_FILENAME)) {
+            checksums.add(new Checksum(TYPES[type(r)], value(r), filename, fileSize(r)));
+        }
+
+        return checksums;
+    }
+
+    /**
+     * Closes the file of the records and drops the mapped segments and indexes, so that the memory and the storage they
+     * use can be released. Closing a closed table has no effect.
+     *
+     * @throws IOException if an error occurs closing the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        modCount++;
+        segments.clear();
+        valueIndex.release();
+        filenameIndex.release();
+        Arrays.fill(numValues, 0);
+        Arrays.fill(numEntries, 0L);
+        channel.close();
+    }
+
+    /**
+     * Returns read-only views of the checksums of the given types, keyed by checksum value, in the form returned by
+     * {@link DistributionAnalyzer#getChecksums()}.
+     *
+     * @param checksumTypes the checksum types
+     * @return the views
+     */
+    public Map<ChecksumType, MultiValuedMap<String, LocalFile>> asChecksumsMap(Collection<ChecksumType> checksumTypes) {
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> map = new EnumMap<>(ChecksumType.class);
+
+        for (ChecksumType checksumType : checksumTypes) {
+            map.put(checksumType, new ChecksumsView(this, checksumType));
+        }
+
+        return map;
+    }
+
+    /**
+     * Returns a read-only view of the checksums keyed by filename, in the form returned by
+     * {@link DistributionAnalyzer#getFiles()}.
+     *
+     * @return the view
+     */
+    public Map<String, Collection<Checksum>> asFilesMap() {
+        return new FilesMap();
+    }
+
+    /*
+     * An open-addressing hash table of the latest record for each key, where the records are linked through the given
+     * next field
+     */
+    private final class Index {
+        private final int nextField;
+
+        private final int hashField;
+
+        private ByteBuffer slots;
+
+        private int capacity;
+
+        private int size;
+
+        private Index(int nextField, int hashField) {
+            this.nextField = nextField;
+            this.hashField = hashField;
+        }
+
+        private boolean matches(long record, int hash, int type, byte[] key) {
+            return nextField == NEXT_BY_VALUE ? matchesValue(record, hash, type, key)
+                    : matchesFilename(record, hash, key);
+        }
+
+        private void release() {
+            slots = null;
+            capacity = 0;
+            size = 0;
+        }
+
+        private void allocate(int newCapacity) throws IOException {
+            slots = map(nextField == NEXT_BY_VALUE ? "values-" : "filenames-", (long) newCapacity * Long.BYTES);
+            capacity = newCapacity;
+        }
+
+        private int slot(int hash, int type, byte[] key) {
+            int mask = capacity - 1;
+            int i = spread(hash) & mask;
+            long head;
+
+            while ((head = slots.getLong(i * Long.BYTES)) != 0L && !matches(head, hash, type, key)) {
+                i = (i + 1) & mask;
+            }
+
+            return i;
+        }
+
+        private long get(int hash, int type, byte[] key) {
+            return capacity == 0 ? 0L : slots.getLong(slot(hash, type, key) * Long.BYTES);
+        }
+
+        private boolean add(long record, int hash, int type, byte[] key) throws IOException {
+            if (capacity == 0) {
+                allocate(INITIAL_INDEX_CAPACITY);
+            }
+
+            int slot = slot(hash, type, key);
+            long head = slots.getLong(slot * Long.BYTES);
+
+            segment(record).putLong(position(record) + nextField, head);
+            slots.putLong(slot * Long.BYTES, record);
+
+            if (head != 0L) {
+                return false;
+            }
+
+            if (++size > capacity >>> 1) {
+                grow();
+            }
+
+            return true;
+        }
+
+        private void grow() throws IOException {
+            if (capacity == MAX_INDEX_CAPACITY) {
+                throw new IOException("Too many keys in checksum table: " + size);
+            }
+
+            ByteBuffer oldSlots = slots;
+            int oldCapacity = capacity;
+
+            allocate(oldCapacity << 1);
+
+            int mask = capacity - 1;
+
+            for (int i = 0; i < oldCapacity; i++) {
+                long head = oldSlots.getLong(i * Long.BYTES);
+
+                if (head != 0L) {
+                    int j = spread(segment(head).getInt(position(head) + hashField)) & mask;
+
+                    while (slots.getLong(j * Long.BYTES) != 0L) {
+                        j = (j + 1) & mask;
+                    }
+
+                    slots.putLong(j * Long.BYTES, head);
+                }
+            }
+        }
+    }
+
+    /*
+     * Iterates over the heads of the lists of records in the given index, optionally only those of a checksum type
+     */
+    private final class HeadIterator<T> implements Iterator<T> {
+        private final Index index;
+
+        private final int type;
+
+        private final LongFunction<T> function;
+
+        private final int expectedModCount;
+
+        private int slot;
+
+        private long next;
+
+        private HeadIterator(Index index, int type, LongFunction<T> function) {
+            this.index = index;
+            this.type = type;
+            this.function = function;
+
+            synchronized (ChecksumTable.this) {
+                this.expectedModCount = modCount;
+                advance();
+            }
+        }
+
+        private void advance() {
+            next = 0L;
+
+            while (slot < index.capacity && next == 0L) {
+                long head = index.slots.getLong(slot++ * Long.BYTES);
+
+                if (head != 0L && (type == NO_TYPE || type(head) == type)) {
+                    next = head;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != 0L;
+        }
+
+        @Override
+        public T next() {
+            synchronized (ChecksumTable.this) {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+
+                if (next == 0L) {
+                    throw new NoSuchElementException();
+                }
+
+                T result = function.apply(next);
+                advance();
+                return result;
+            }
+        }
+    }
+
+    /*
+     * The files of each checksum value of a type
+     */
+    private final class ValuesMap extends AbstractMap<String, Collection<LocalFile>> {
+        private final ChecksumType checksumType;
+
+        private ValuesMap(ChecksumType checksumType) {
+            this.checksumType = checksumType;
+        }
+
+        @Override
+        public Collection<LocalFile> get(Object key) {
+            if (!(key instanceof String value)) {
+                return null;
+            }
+
+            Collection<LocalFile> localFiles = ChecksumTable.this.get(checksumType, value);
+            return localFiles.isEmpty() ? null : Collections.unmodifiableCollection(localFiles);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            synchronized (ChecksumTable.this) {
+                return numValues[checksumType.ordinal()];
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Collection<LocalFile>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Collection<LocalFile>>> iterator() {
+                    return new HeadIterator<>(
+                            valueIndex,
+                            checksumType.ordinal(),
+                            head -> new SimpleImmutableEntry<>(value(head), localFiles(head)));
+                }
+
+                @Override
+                public int size() {
+                    return ValuesMap.this.size();
+                }
+            };
+        }
+    }
+
+    private static final class ChecksumsView extends AbstractMultiValuedMap<String, LocalFile> {
+        private final ChecksumTable table;
+
+        private final ChecksumType checksumType;
+
+        private ChecksumsView(ChecksumTable table, ChecksumType checksumType) {
+            super(table.new ValuesMap(checksumType));
+            this.table = table;
+            this.checksumType = checksumType;
+        }
+
+        /*
+         * Only used when adding a mapping for a new key, which the read-only map of values then rejects
+         */
+        @Override
+        protected Collection<LocalFile> createCollection() {
+            return new ArrayList<>(1);
+        }
+
+        @Override
+        public int size() {
+            synchronized (table) {
+                return (int) Math.min(Integer.MAX_VALUE, table.numEntries[checksumType.ordinal()]);
+            }
+        }
+    }
+
+    /*
+     * The checksums of each file
+     */
+    private final class FilesMap extends AbstractMap<String, Collection<Checksum>> {
+        @Override
+        public Collection<Checksum> get(Object key) {
+            if (!(key instanceof String filename)) {
+                return null;
+            }
+
+            Collection<Checksum> checksums = ChecksumTable.this.get(filename);
+            return checksums.isEmpty() ? null : Collections.unmodifiableCollection(checksums);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            synchronized (ChecksumTable.this) {
+                return filenameIndex.size;
+            }
+        }
+
+        @Override
+        public Set<Entry<String, Collection<Checksum>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Collection<Checksum>>> iterator() {
+                    return new HeadIterator<>(filenameIndex, NO_TYPE, head -> {
+                        String filename = filename(head);
+                        return new SimpleImmutableEntry<>(filename, checksums(head, filename));
+                    });
+                }
+
+                @Override
+                public int size() {
+                    return FilesMap.this.size();
+                }
+            };
+        }
+    }
+}
@@ -47,21 +47,30 @@ public abstract class ConfigDefaults {
     public static final Boolean CHECKSUM_ONLY = Boolean.FALSE;
     public static final Set<ChecksumType> CHECKSUM_TYPES = Collections
             .unmodifiableSet(EnumSet.allOf(ChecksumType.class));
+    public static final Boolean COMPACT_OUTPUT = Boolean.FALSE;
     public static final String CONFIG_FILE = "config.json";
     public static final Path CONFIG_PATH = USER_HOME.resolve(".build-finder");
     public static final Path CONFIG = CONFIG_PATH.resolve(CONFIG_FILE);
     public static final Boolean DISABLE_CACHE = Boolean.FALSE;
     public static final Path CACHE_LOCATION = CONFIG_PATH.resolve("cache");
+    public static final Boolean DISABLE_LICENSES = Boolean.FALSE;
     public static final Boolean DISABLE_RECURSION = Boolean.FALSE;
     public static final List<Pattern> EXCLUDES = List.of(Pattern.compile("^(?!.*/pom\\.xml$).*/.*\\.xml$"));
     public static final URL KOJI_HUB_URL = null;
     public static final Integer KOJI_MULTICALL_SIZE = 8;
     public static final Integer KOJI_NUM_THREADS = 12;
+    public static final Integer KOJI_RETRIES = 3;
+    public static final Long KOJI_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1L);
     public static final URL KOJI_WEB_URL = null;
+    public static final Boolean LICENSES_ONLY = Boolean.FALSE;
+    public static final LookupStrategy LOOKUP_STRATEGY = LookupStrategy.sequential;
     public static final String OUTPUT_DIR = ".";
+    public static final OutputFormat OUTPUT_FORMAT = OutputFormat.json;
     public static final Long PNC_NUM_THREADS = 10L;
     public static final Integer PNC_PARTITION_SIZE = 18;
     public static final URL PNC_URL = null;
+    public static final Boolean RESUME = Boolean.FALSE;
+    public static final Integer SPILL_THRESHOLD = 0;
     public static final Boolean USE_BUILDS_FILE = Boolean.FALSE;
     public static final Boolean USE_CHECKSUMS_FILE = Boolean.FALSE;
 
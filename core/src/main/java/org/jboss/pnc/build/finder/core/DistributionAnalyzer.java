@@ -15,10 +15,10 @@
  */
 package org.jboss.pnc.build.finder.core;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.reverseOrder;
 import static java.util.Map.Entry.comparingByValue;
 import static java.util.function.Function.identity;
-import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.counting;
 import static java.util.stream.Collectors.groupingBy;
 import static org.jboss.pnc.build.finder.core.AnsiUtils.boldRed;
@@ -33,9 +33,12 @@ import static org.jboss.pnc.build.finder.core.MavenUtils.isPom;
 import static org.jboss.pnc.build.finder.core.MavenUtils.isPomXml;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.NOASSERTION;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getCurrentLicenseId;
-import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getMatchingLicense;
+import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.findMatchingLicenseText;
+import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.findSPDXIdentifierFromFileName;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getNumberOfSPDXLicenses;
+import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getSPDXLicenseId;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getSPDXLicenseListVersion;
+import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getSpdxLicenseMappingVersion;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.getSpdxLicenseMapping;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.isLicenseFile;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.isLicenseFileName;
@@ -45,44 +48,59 @@ import static org.jboss.pnc.build.finder.core.Utils.getAllErrorMessages;
 import static org.jboss.pnc.build.finder.core.Utils.normalizePath;
 import static org.jboss.pnc.build.finder.core.Utils.shutdownAndAwaitTermination;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.SystemProperties;
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileExtensionSelector;
 import org.apache.commons.vfs2.FileObject;
@@ -90,8 +108,10 @@ import org.apache.commons.vfs2.FileSystem;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemManager;
 import org.apache.commons.vfs2.InvertIncludeFileSelector;
+import org.apache.commons.vfs2.impl.DefaultFileReplicator;
 import org.apache.commons.vfs2.impl.StandardFileSystemManager;
 import org.apache.commons.vfs2.provider.http5.Http5FileProvider;
+import org.apache.maven.model.Model;
 import org.codehaus.plexus.interpolation.InterpolationException;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.infinispan.commons.api.BasicCache;
@@ -101,7 +121,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiValuedMap<String, LocalFile>>>,
-        Supplier<Map<ChecksumType, MultiValuedMap<String, LocalFile>>> {
+        Supplier<Map<ChecksumType, MultiValuedMap<String, LocalFile>>>, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DistributionAnalyzer.class);
 
     /**
@@ -126,13 +146,35 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
 
     private static final String LICENSES_FILENAME_BASENAME = "licenses";
 
+    private static final String LICENSE_FILES_CACHE = "license-files";
+
+    private static final String LICENSE_NAMES_CACHE = "license-names";
+
+    private static final String POM_MODELS_CACHE = "pom-models";
+
+    private static final String NULL_MARKER = "\0";
+
+    private static final String REPLICATOR_DIRECTORY_PREFIX = "input-";
+
+    private static final String DEPTH_TAG = "depth";
+
+    private static final String SCHEME_TAG = "scheme";
+
+    private static final String SOURCE_TAG = "source";
+
     private static final int FILE_ERRORS_SIZE = 2;
 
     private static final int LOCAL_FILES_SIZE = 44515;
 
+    private static final int MERGE_BATCH_SIZE = 1024;
+
+    private static final int LICENSE_QUEUE_SIZE = 1024;
+
+    private static final int MAX_PENDING_LICENSE_TASKS = 64;
+
     private final List<String> inputs;
 
-    private final MultiValuedMap<String, Checksum> inverseMap;
+    private final MultiValuedMap<InternedPath, Checksum> inverseMap;
 
     private final BuildConfig config;
 
@@ -140,49 +182,89 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
 
     private final BasicCacheContainer cacheManager;
 
-    private final AtomicInteger level;
+    private final ConcurrentMap<String, String> licenseFilesCache;
+
+    private final ConcurrentMap<String, String> licenseNamesCache;
+
+    private final String licenseCacheVersion;
+
+    private final ConcurrentMap<String, Model> pomModelsCache;
 
     private final ExecutorService pool;
 
+    private final ExecutorService licensePool;
+
     private final Set<ChecksumType> checksumTypesToCheck;
 
+    private final boolean analyzeLicenses;
+
+    private final boolean licensesOnly;
+
     private final List<FileError> fileErrors;
 
+    private final Object lock;
+
     private Map<ChecksumType, MultiValuedMap<String, LocalFile>> map;
 
-    private final Map<String, Collection<LicenseInfo>> licensesMap;
+    private volatile ChecksumTable table;
 
-    private String root;
+    private final Map<String, Collection<LicenseInfo>> licensesMap;
 
-    private BlockingQueue<Checksum> queue;
+    private BlockingQueue<FileChecksums> queue;
 
     private DistributionAnalyzerListener listener;
 
+    private BuildFinderMetrics metrics;
+
+    private MetricHandles metricHandles;
+
     public DistributionAnalyzer(List<String> inputs, BuildConfig config) {
         this(inputs, config, null);
     }
 
     public DistributionAnalyzer(List<String> inputs, BuildConfig config, BasicCacheContainer cacheManager) {
-        Map<String, List<String>> mapping = getSpdxLicenseMapping();
-
-        if (LOGGER.isInfoEnabled()) {
-            LOGGER.info(
-                    "Loaded URL mappings for {} SPDX licenses: {}",
-                    green(mapping.size()),
-                    green(String.join(", ", mapping.keySet())));
-        }
+        this(inputs, config, cacheManager, null);
+    }
 
+    /*
+     * The license cache version defaults to the versions of the SPDX license list and of the license mapping
+     */
+    DistributionAnalyzer(
+            List<String> inputs,
+            BuildConfig config,
+            BasicCacheContainer cacheManager,
+            String licenseCacheVersion) {
         this.inputs = inputs;
         this.config = config;
         checksumTypesToCheck = EnumSet.copyOf(config.getChecksumTypes());
+        analyzeLicenses = Boolean.FALSE.equals(config.getDisableLicenses());
+        licensesOnly = analyzeLicenses && Boolean.TRUE.equals(config.getLicensesOnly());
         map = new EnumMap<>(ChecksumType.class);
-        licensesMap = new TreeMap<>();
-        String licenseListVersion = getSPDXLicenseListVersion();
-        int licenseListSize = getNumberOfSPDXLicenses();
-        LOGGER.info(
-                "Using SPDX License List {} containing {} licenses",
-                green(licenseListVersion),
-                green(licenseListSize));
+        licensesMap = new ConcurrentSkipListMap<>();
+
+        // Only touch SpdxLicenseUtils when licenses are analyzed, since its initialization loads the license list
+        if (analyzeLicenses) {
+            Map<String, List<String>> mapping = getSpdxLicenseMapping();
+
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info(
+                        "Loaded URL mappings for {} SPDX licenses: {}",
+                        green(mapping.size()),
+                        green(String.join(", ", mapping.keySet())));
+            }
+
+            String licenseListVersion = getSPDXLicenseListVersion();
+            int licenseListSize = getNumberOfSPDXLicenses();
+            LOGGER.info(
+                    "Using SPDX License List {} containing {} licenses",
+                    green(licenseListVersion),
+                    green(licenseListSize));
+            this.licenseCacheVersion = licenseCacheVersion != null ? licenseCacheVersion
+                    : licenseListVersion + '-' + getSpdxLicenseMappingVersion();
+        } else {
+            LOGGER.info("License analysis: {}", green("disabled"));
+            this.licenseCacheVersion = licenseCacheVersion;
+        }
 
         for (ChecksumType checksumType : checksumTypesToCheck) {
             map.put(checksumType, new HashSetValuedHashMap<>()); // TODO: size
@@ -198,11 +280,30 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
             for (ChecksumType checksumType : checksumTypesToCheck) {
                 fileCaches.put(checksumType, cacheManager.getCache("files-" + checksumType));
             }
+
+            licenseFilesCache = cacheManager.getCache(LICENSE_FILES_CACHE);
+            licenseNamesCache = cacheManager.getCache(LICENSE_NAMES_CACHE);
+            pomModelsCache = cacheManager.getCache(POM_MODELS_CACHE);
+        } else {
+            licenseFilesCache = new ConcurrentHashMap<>();
+            licenseNamesCache = new ConcurrentHashMap<>();
+            pomModelsCache = new ConcurrentHashMap<>();
         }
 
-        level = new AtomicInteger();
         pool = Executors.newWorkStealingPool();
+        int numLicenseThreads = Runtime.getRuntime().availableProcessors();
+        // Once the queue is full, the traversal runs the license tasks itself instead of queuing them without bound
+        licensePool = new ThreadPoolExecutor(
+                numLicenseThreads,
+                numLicenseThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(LICENSE_QUEUE_SIZE),
+                new ThreadPoolExecutor.CallerRunsPolicy());
         fileErrors = new ArrayList<>(FILE_ERRORS_SIZE);
+        lock = new Object();
+        metrics = new BuildFinderMetrics();
+        metricHandles = new MetricHandles(metrics);
     }
 
     private static boolean isJavaArchive(FileObject fo) {
@@ -211,132 +312,10 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
 
     public Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksumFiles() throws IOException {
         Instant startTime = Instant.now();
+        long startNanos = BuildFinderMetrics.start();
 
-        try (FileSystemManager manager = createManager()) {
-            for (String input : inputs) {
-                try (FileObject fo = getFileObjectOfFile(manager, input)) {
-                    if (LOGGER.isDebugEnabled()) {
-                        try (FileContent fc = fo.getContent()) {
-                            LOGGER.debug("Will checksum file {}, size: {}", fo, fc.getSize());
-                        }
-                    }
-
-                    root = fo.getName()
-                            .getFriendlyURI()
-                            .substring(0, fo.getName().getFriendlyURI().indexOf(fo.getName().getBaseName()));
-                    Set<Checksum> fileChecksums = cacheManager != null
-                            ? Checksum.checksum(fo, checksumTypesToCheck, root)
-                            : null;
-
-                    if (fileChecksums != null) {
-                        Iterator<ChecksumType> it = checksumTypesToCheck.iterator();
-
-                        while (it.hasNext()) {
-                            ChecksumType checksumType = it.next();
-                            String value = Checksum.findByType(fileChecksums, checksumType)
-                                    .map(Checksum::getValue)
-                                    .orElse(null);
-
-                            if (value != null) {
-                                MultiValuedMap<String, LocalFile> localMap = fileCaches.get(checksumType).get(value);
-
-                                if (localMap != null) {
-                                    map.get(checksumType).putAll(localMap);
-
-                                    Collection<Entry<String, LocalFile>> entries = localMap.entries();
-                                    try {
-                                        for (Entry<String, LocalFile> entry : entries) {
-                                            inverseMap.put(
-                                                    entry.getValue().getFilename(),
-                                                    new Checksum(checksumType, entry.getKey(), entry.getValue()));
-                                        }
-                                    } catch (ClassCastException e) {
-                                        if (LOGGER.isErrorEnabled()) {
-                                            LOGGER.error(
-                                                    "Error loading cache {}: {}. The cache format has changed"
-                                                            + " and you will have to manually delete the existing cache",
-                                                    boldRed(ConfigDefaults.CACHE_LOCATION),
-                                                    boldRed(getAllErrorMessages(e)));
-                                        }
-
-                                        throw e;
-                                    }
-
-                                    if (queue != null && checksumType == ChecksumType.md5) {
-                                        for (Entry<String, LocalFile> entry : entries) {
-                                            try {
-                                                Checksum checksum = new Checksum(
-                                                        checksumType,
-                                                        entry.getKey(),
-                                                        entry.getValue());
-                                                queue.put(checksum);
-                                            } catch (InterruptedException e) {
-                                                Thread.currentThread().interrupt();
-                                                throw new IOException(e);
-                                            }
-                                        }
-                                    }
-
-                                    it.remove();
-
-                                    int size = localMap.size();
-
-                                    if (listener != null) {
-                                        listener.checksumsComputed(new ChecksumsComputedEvent(size));
-                                    }
-                                    if (LOGGER.isInfoEnabled()) {
-                                        LOGGER.info(
-                                                "Loaded {} checksums for file: {} (checksum: {}) from cache",
-                                                green(size),
-                                                green(normalizePath(fo, root)),
-                                                green(value));
-                                    }
-                                } else {
-                                    if (LOGGER.isInfoEnabled()) {
-                                        LOGGER.info(
-                                                "File: {} (checksum: {}) not found in cache",
-                                                green(normalizePath(fo, root)),
-                                                green(value));
-                                    }
-                                }
-                            }
-                        }
-                    }
-
-                    if (!checksumTypesToCheck.isEmpty()) {
-                        if (LOGGER.isInfoEnabled()) {
-                            LOGGER.info(
-                                    "Finding checksums: {} for file: {}",
-                                    green(
-                                            String.join(
-                                                    ", ",
-                                                    checksumTypesToCheck.stream()
-                                                            .map(String::valueOf)
-                                                            .collect(Collectors.toUnmodifiableSet()))),
-                                    green(normalizePath(fo, root)));
-                        }
-
-                        listChildren(fo);
-
-                        if (fileChecksums != null) {
-                            for (ChecksumType checksumType : checksumTypesToCheck) {
-                                Optional<Checksum> cksum = Checksum.findByType(fileChecksums, checksumType);
-
-                                if (cksum.isPresent()) {
-                                    fileCaches.get(checksumType)
-                                            .put(
-                                                    cksum.get().getValue(),
-                                                    new MultiValuedMapProtobufWrapper<>(map.get(checksumType)));
-                                } else {
-                                    throw new IOException("Checksum type " + checksumType + " not found");
-                                }
-                            }
-                        }
-                    } else {
-                        listChildren(fo);
-                    }
-                }
-            }
+        try {
+            analyzeInputs();
         } finally {
             try {
                 Optional<Path> optionalPath = Utils.getVfsCache();
@@ -362,11 +341,14 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
             }
 
             shutdownAndAwaitTermination(pool);
+            shutdownAndAwaitTermination(licensePool);
         }
 
+        metrics.stop(BuildFinderMetrics.ANALYZER_TIME, startNanos);
+
         int numChecksums = map.values().iterator().next().size();
 
-        if (LOGGER.isInfoEnabled()) {
+        if (analyzeLicenses && LOGGER.isInfoEnabled()) {
             List<String> totalLicenses = licensesMap.values()
                     .stream()
                     .flatMap(Collection::stream)
@@ -384,6 +366,9 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
                     green(uniqueLicenses.size()),
                     green(totalLicenses.size()),
                     green(licenseCounts));
+        }
+
+        if (LOGGER.isInfoEnabled()) {
             Instant endTime = Instant.now();
             Duration duration = Duration.between(startTime, endTime).abs();
             LOGGER.info(
@@ -401,8 +386,232 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         return Collections.unmodifiableMap(map);
     }
 
-    private static FileSystemManager createManager() throws FileSystemException {
-        StandardFileSystemManager sfs = new StandardFileSystemManager();
+    /*
+     * Analyze the inputs concurrently, each with its own traversal state. The checksum tasks of all inputs are
+     * submitted to the same work-stealing pool, and the file errors are added in the order of the inputs. Since the
+     * file system manager is not documented to be thread-safe, each input gets its own manager, which replicates
+     * nested files to its own directory in the VFS cache.
+     */
+    private void analyzeInputs() throws IOException {
+        int numInputs = inputs.size();
+        int numThreads = Math.max(1, Math.min(numInputs, Runtime.getRuntime().availableProcessors()));
+        ExecutorService inputPool = Executors.newFixedThreadPool(numThreads);
+        Optional<Path> vfsCache = Utils.getVfsCache();
+
+        try {
+            List<Future<InputState>> futures = new ArrayList<>(numInputs);
+
+            for (String input : inputs) {
+                Path replicatorDirectory = createReplicatorDirectory(vfsCache);
+                futures.add(inputPool.submit(() -> {
+                    try (FileSystemManager manager = createManager(replicatorDirectory)) {
+                        return analyzeInput(manager, input);
+                    }
+                }));
+            }
+
+            for (Future<InputState> future : futures) {
+                fileErrors.addAll(future.get().fileErrors);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IOException(cause);
+        } finally {
+            shutdownAndAwaitTermination(inputPool);
+        }
+    }
+
+    private static Path createReplicatorDirectory(Optional<Path> vfsCache) throws IOException {
+        if (vfsCache.isEmpty()) {
+            return null;
+        }
+
+        Path directory = Files.createDirectories(vfsCache.get());
+        return Files.createTempDirectory(directory, REPLICATOR_DIRECTORY_PREFIX);
+    }
+
+    private InputState analyzeInput(FileSystemManager manager, String input) throws IOException {
+        try (FileObject fo = getFileObjectOfFile(manager, input)) {
+            if (LOGGER.isDebugEnabled()) {
+                try (FileContent fc = fo.getContent()) {
+                    LOGGER.debug("Will checksum file {}, size: {}", fo, fc.getSize());
+                }
+            }
+
+            String root = fo.getName()
+                    .getFriendlyURI()
+                    .substring(0, fo.getName().getFriendlyURI().indexOf(fo.getName().getBaseName()));
+            InputState state = new InputState(root, checksumTypesToCheck, cacheManager != null);
+            Set<Checksum> fileChecksums = cacheManager != null
+                    ? Checksum.checksum(fo, state.checksumTypes, root)
+                    : null;
+
+            if (fileChecksums != null) {
+                Iterator<ChecksumType> it = state.checksumTypes.iterator();
+
+                while (it.hasNext()) {
+                    ChecksumType checksumType = it.next();
+                    String value = Checksum.findByType(fileChecksums, checksumType)
+                            .map(Checksum::getValue)
+                            .orElse(null);
+
+                    if (value != null) {
+                        MultiValuedMap<String, LocalFile> localMap = fileCaches.get(checksumType).get(value);
+
+                        if (localMap != null) {
+                            Collection<Entry<String, LocalFile>> entries = localMap.entries();
+
+                            try {
+                                for (Entry<String, LocalFile> entry : entries) {
+                                    LocalFile localFile = entry.getValue();
+                                    Checksum checksum = new Checksum(checksumType, entry.getKey(), localFile);
+                                    addChecksum(checksum, localFile, state);
+                                }
+                            } catch (ClassCastException e) {
+                                if (LOGGER.isErrorEnabled()) {
+                                    LOGGER.error(
+                                            "Error loading cache {}: {}. The cache format has changed"
+                                                    + " and you will have to manually delete the existing cache",
+                                            boldRed(ConfigDefaults.CACHE_LOCATION),
+                                            boldRed(getAllErrorMessages(e)));
+                                }
+
+                                throw e;
+                            }
+
+                            mergeChecksums(state);
+
+                            if (queue != null && checksumType == ChecksumType.md5) {
+                                for (Entry<String, LocalFile> entry : entries) {
+                                    try {
+                                        Checksum checksum = new Checksum(
+                                                checksumType,
+                                                entry.getKey(),
+                                                entry.getValue());
+                                        queue.put(new FileChecksums(List.of(checksum)));
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                        throw new IOException(e);
+                                    }
+                                }
+                            }
+
+                            it.remove();
+
+                            int size = localMap.size();
+
+                            if (listener != null) {
+                                listener.checksumsComputed(new ChecksumsComputedEvent(size));
+                            }
+                            if (LOGGER.isInfoEnabled()) {
+                                LOGGER.info(
+                                        "Loaded {} checksums for file: {} (checksum: {}) from cache",
+                                        green(size),
+                                        green(normalizePath(fo, root)),
+                                        green(value));
+                            }
+                        } else {
+                            if (LOGGER.isInfoEnabled()) {
+                                LOGGER.info(
+                                        "File: {} (checksum: {}) not found in cache",
+                                        green(normalizePath(fo, root)),
+                                        green(value));
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (licensesOnly) {
+                skipUncachedChecksums(fo, state);
+            }
+
+            if (!state.checksumTypes.isEmpty()) {
+                if (LOGGER.isInfoEnabled()) {
+                    LOGGER.info(
+                            "Finding checksums: {} for file: {}",
+                            green(
+                                    String.join(
+                                            ", ",
+                                            state.checksumTypes.stream()
+                                                    .map(String::valueOf)
+                                                    .collect(Collectors.toUnmodifiableSet()))),
+                            green(normalizePath(fo, root)));
+                }
+
+                deferLicenseTasks(listChildren(fo, state), state);
+
+                if (fileChecksums != null) {
+                    for (ChecksumType checksumType : state.checksumTypes) {
+                        Optional<Checksum> cksum = Checksum.findByType(fileChecksums, checksumType);
+
+                        if (cksum.isPresent()) {
+                            fileCaches.get(checksumType)
+                                    .put(
+                                            cksum.get().getValue(),
+                                            new MultiValuedMapProtobufWrapper<>(state.map.get(checksumType)));
+                        } else {
+                            throw new IOException("Checksum type " + checksumType + " not found");
+                        }
+                    }
+                }
+            } else if (analyzeLicenses) {
+                deferLicenseTasks(listChildren(fo, state), state);
+            }
+
+            mergeChecksums(state);
+
+            // The license tasks are only joined once all the files of the input have been checksummed
+            while (!state.licenseTasks.isEmpty()) {
+                completeLicenseTasks(state.licenseTasks.remove(), state);
+            }
+
+            return state;
+        }
+    }
+
+    /*
+     * In license-only mode, only the checksums found in the cache are reported, and the traversal only extracts
+     * licenses.
+     */
+    private static void skipUncachedChecksums(FileObject fo, InputState state) {
+        if (!state.checksumTypes.isEmpty()) {
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info(
+                        "Skipping checksums: {} for file: {} not found in cache",
+                        green(
+                                String.join(
+                                        ", ",
+                                        state.checksumTypes.stream()
+                                                .map(String::valueOf)
+                                                .collect(Collectors.toUnmodifiableSet()))),
+                        green(normalizePath(fo, state.root)));
+            }
+
+            state.checksumTypes.clear();
+        }
+    }
+
+    private static FileSystemManager createManager(Path replicatorDirectory) throws FileSystemException {
+        StandardFileSystemManager sfs = new StandardFileSystemManager() {
+            @Override
+            protected DefaultFileReplicator createDefaultFileReplicator() {
+                return replicatorDirectory != null ? new DefaultFileReplicator(replicatorDirectory.toFile())
+                        : super.createDefaultFileReplicator();
+            }
+        };
 
         sfs.init();
 
@@ -460,24 +669,25 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
                 && Stream.of(manager.getSchemes()).anyMatch(s -> s.equals(fo.getName().getExtension()));
     }
 
-    private boolean isDistributionArchive(FileObject fo) {
-        return level.intValue() == 1 && !isJavaArchive(fo);
+    private static boolean isDistributionArchive(FileObject fo, InputState state) {
+        return state.level == 1 && !isJavaArchive(fo);
     }
 
-    private boolean isTarArchive(FileObject fo) throws FileSystemException {
+    private static boolean isTarArchive(FileObject fo, InputState state) throws FileSystemException {
         FileObject parent = fo.getParent();
 
-        return level.intValue() == 2 && parent.isFolder() && parent.getName().getFriendlyURI().endsWith(BANG_SLASH)
+        return state.level == 2 && parent.isFolder() && parent.getName().getFriendlyURI().endsWith(BANG_SLASH)
                 && parent.getChildren().length == 1;
     }
 
-    private boolean shouldListArchive(FileObject fo) throws FileSystemException {
-        return Boolean.FALSE.equals(config.getDisableRecursion()) || isDistributionArchive(fo) || isTarArchive(fo);
+    private boolean shouldListArchive(FileObject fo, InputState state) throws FileSystemException {
+        return Boolean.FALSE.equals(config.getDisableRecursion()) || isDistributionArchive(fo, state)
+                || isTarArchive(fo, state);
     }
 
-    private void listArchive(FileObject fo) {
+    private void listArchive(FileObject fo, InputState state) throws InterruptedIOException {
         if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("Creating file system for: {}", normalizePath(fo, root));
+            LOGGER.debug("Creating file system for: {}", normalizePath(fo, state.root));
         }
 
         FileSystem fileSystem = fo.getFileSystem();
@@ -486,13 +696,24 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         FileSystem fs = null;
 
         try {
+            long startNanos = BuildFinderMetrics.start();
             layered = manager.createFileSystem(fo.getName().getExtension(), fo);
+            metricHandles.getLayerTimer(fo.getName().getExtension()).stop(startNanos);
             fs = layered.getFileSystem();
-            listChildren(layered);
+            LicenseTasks licenseTasks = listChildren(layered, state);
+
+            // The file system is closed along with the license tasks of its files
+            if (licenseTasks != null) {
+                licenseTasks.fileSystem = fs;
+                fs = null;
+                deferLicenseTasks(licenseTasks, state);
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
         } catch (IOException e) {
-            String filename = normalizePath(fo, root);
+            String filename = normalizePath(fo, state.root);
             String message = getMessage(e);
-            fileErrors.add(new FileError(filename, message));
+            state.fileErrors.add(new FileError(filename, message));
             LOGGER.warn("Unable to process archive/compressed file: {}: {}", red(filename), red(message));
             LOGGER.debug("Error", e);
         } finally {
@@ -536,39 +757,127 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         return !excludeFile && !excludeExtension;
     }
 
-    private Callable<Set<Checksum>> checksumTask(FileObject fo) {
-        return () -> Checksum.checksum(fo, checksumTypesToCheck, root);
+    private static void addChecksum(Checksum checksum, LocalFile localFile, InputState state) {
+        state.pendingChecksums.add(checksum);
+        state.pendingLocalFiles.add(localFile);
+    }
+
+    /*
+     * Merges the pending checksums of an input into the shared checksum maps, so that the inputs only contend for the
+     * lock once per batch of files. The files are queued for lookup only once they have been merged, since the build
+     * finder looks them up with getFiles().
+     */
+    private void mergeChecksums(InputState state) throws IOException {
+        if (!state.pendingChecksums.isEmpty()) {
+            synchronized (lock) {
+                for (int i = 0; i < state.pendingChecksums.size(); i++) {
+                    putChecksum(state.pendingChecksums.get(i), state.pendingLocalFiles.get(i));
+                }
+
+                spillIfNeeded();
+            }
+
+            state.pendingChecksums.clear();
+            state.pendingLocalFiles.clear();
+        }
+
+        try {
+            for (FileChecksums fileChecksums : state.pendingFiles) {
+                queue.put(fileChecksums);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+
+        state.pendingFiles.clear();
+    }
+
+    /*
+     * Adds a checksum of a file to the checksum maps, or to the checksum table once they have been spilled. The caller
+     * must hold the lock.
+     */
+    private void putChecksum(Checksum checksum, LocalFile localFile) throws IOException {
+        if (table != null) {
+            table.add(checksum);
+        } else {
+            map.get(checksum.getType()).put(checksum.getValue(), localFile);
+            inverseMap.put(checksum.getPath(), checksum);
+        }
+    }
+
+    /*
+     * Moves the checksums to a checksum table backed by memory-mapped files once the checksums of more files than the
+     * spill threshold are held in memory. The caller must hold the lock.
+     */
+    private void spillIfNeeded() throws IOException {
+        int spillThreshold = config.getSpillThreshold();
+
+        if (table != null || spillThreshold <= 0 || inverseMap.keySet().size() <= spillThreshold) {
+            return;
+        }
+
+        Path directory = Path.of(SystemProperties.getJavaIoTmpdir());
+
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(
+                    "Spilling checksums of {} files to memory-mapped files in {}",
+                    green(inverseMap.keySet().size()),
+                    green(directory));
+        }
+
+        ChecksumTable checksumTable = new ChecksumTable(directory);
+
+        for (Checksum checksum : inverseMap.values()) {
+            checksumTable.add(checksum);
+        }
+
+        map = checksumTable.asChecksumsMap(map.keySet());
+        table = checksumTable;
+        inverseMap.clear();
+    }
+
+    /*
+     * The checksum time and the bytes hashed are recorded by archive depth, since nested archives are read through the
+     * VFS layers of their parents.
+     */
+    private Callable<Set<Checksum>> checksumTask(FileObject fo, InputState state) {
+        BuildFinderMetrics.Timer filesTimer = metricHandles.getFilesTimer(state.level);
+        BuildFinderMetrics.Counter bytesCounter = metricHandles.getBytesCounter(state.level);
+
+        return () -> {
+            long startNanos = BuildFinderMetrics.start();
+            Set<Checksum> checksums = Checksum.checksum(fo, state.checksumTypes, state.root);
+            filesTimer.stop(startNanos);
+
+            if (!checksums.isEmpty()) {
+                bytesCounter.add(checksums.iterator().next().getFileSize());
+            }
+
+            return checksums;
+        };
     }
 
-    private void handleFutureChecksum(Future<Set<Checksum>> future) throws IOException {
+    private void handleFutureChecksum(Future<Set<Checksum>> future, InputState state) throws IOException {
         try {
             Set<Checksum> checksums = future.get();
+            FileChecksums fileChecksums = new FileChecksums(checksums);
 
-            for (ChecksumType checksumType : checksumTypesToCheck) {
-                Optional<Checksum> optionalChecksum = Checksum.findByType(checksums, checksumType);
+            for (Checksum checksum : checksums) {
+                LocalFile localFile = new LocalFile(checksum.getPath(), checksum.getFileSize());
+                addChecksum(checksum, localFile, state);
 
-                if (optionalChecksum.isPresent()) {
-                    Checksum checksum = optionalChecksum.get();
-                    map.get(checksumType)
-                            .put(checksum.getValue(), new LocalFile(checksum.getFilename(), checksum.getFileSize()));
+                if (state.map != null) {
+                    state.map.get(checksum.getType()).put(checksum.getValue(), localFile);
                 }
             }
 
-            for (Checksum checksum : checksums) {
-                inverseMap.put(checksum.getFilename(), checksum);
+            if (queue != null && fileChecksums.get(ChecksumType.md5) != null) {
+                state.pendingFiles.add(fileChecksums);
             }
 
-            if (queue != null && config.getChecksumTypes().contains(ChecksumType.md5)) {
-                try {
-                    for (Checksum checksum : checksums) {
-                        if (checksum.getType() == ChecksumType.md5) {
-                            queue.put(checksum);
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException(e);
-                }
+            if (state.pendingChecksums.size() >= MERGE_BATCH_SIZE) {
+                mergeChecksums(state);
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -578,9 +887,18 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         }
     }
 
-    private void listChildren(FileObject fo) throws IOException {
+    /*
+     * License extraction runs on its own pool, concurrently with the traversal and the checksum tasks. The license
+     * tasks for the children of the given file object are not joined here, so that checksumming the following files
+     * does not wait for them. Instead, they are returned along with the children, which stay open until the license
+     * tasks are completed. If there are no license tasks, the children are closed and null is returned.
+     */
+    private LicenseTasks listChildren(FileObject fo, InputState state) throws IOException {
         List<FileObject> pomFiles = new ArrayList<>(LOCAL_FILES_SIZE);
         List<FileObject> localFiles = new ArrayList<>(LOCAL_FILES_SIZE);
+        List<Future<List<LicenseInfo>>> jarLicenseFutures = new ArrayList<>();
+        List<Future<Void>> pomLicenseFutures = new ArrayList<>();
+        LicenseTasks licenseTasks = null;
 
         try {
             FileExtensionSelector pomSelector = new FileExtensionSelector("pom");
@@ -591,51 +909,47 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
             Iterable<Future<Set<Checksum>>> futures;
             Collection<Callable<Set<Checksum>>> tasks = new ArrayList<>(numChildren);
 
-            if (isMainJar(fo)) {
-                List<LicenseInfo> licenseInfos = addLicensesFromJar(fo, pomFiles);
-                putLicenses(Utils.normalizePath(fo, root), licenseInfos);
+            boolean mainJar = analyzeLicenses && isMainJar(fo);
+
+            if (mainJar) {
+                for (FileObject file : pomFiles) {
+                    if (isLicenseSource(file)) {
+                        jarLicenseFutures.add(licensePool.submit(() -> addLicensesFromJar(fo, file, state.root)));
+                    }
+                }
             }
 
             for (FileObject file : pomFiles) {
                 if (file.isFile()) {
-                    if (!checksumTypesToCheck.isEmpty()) {
+                    if (!state.checksumTypes.isEmpty()) {
                         if (includeFile(file)) {
                             if ("tar".equals(file.getName().getScheme())) {
-                                Future<Set<Checksum>> future = pool.submit(checksumTask(file));
-                                handleFutureChecksum(future);
+                                Future<Set<Checksum>> future = pool.submit(checksumTask(file, state));
+                                handleFutureChecksum(future, state);
                             } else {
-                                tasks.add(checksumTask(file));
+                                tasks.add(checksumTask(file, state));
                             }
                         }
                     }
 
-                    boolean pom = isPom(file);
-                    boolean pomXml = isPomXml(file);
-
-                    if (pom || pomXml) {
-                        List<LicenseInfo> licenseInfos = addLicensesFromPom(file);
-
-                        try {
-                            Map<String, List<LicenseInfo>> map = getLicenses(root, file);
-                            putLicenses(map.keySet().iterator().next(), licenseInfos);
-                        } catch (XmlPullParserException | InterpolationException e) {
-                            if (LOGGER.isErrorEnabled()) {
-                                LOGGER.error(
-                                        "Error parsing POM file {}: {}",
-                                        boldRed(file),
-                                        boldRed(getAllErrorMessages(e)));
-                            }
-                        }
+                    if (analyzeLicenses && (isPom(file) || isPomXml(file))) {
+                        pomLicenseFutures.add(licensePool.submit(() -> {
+                            long startNanos = BuildFinderMetrics.start();
+                            List<LicenseInfo> licenseInfos = addLicensesFromPom(file, state.root);
+                            metricHandles.getLicensesTimer("pom").stop(startNanos);
+                            putLicenses(normalizePath(file, state.root), licenseInfos);
+                            return null;
+                        }));
                     }
 
                     if (isArchive(file)) {
-                        level.incrementAndGet();
+                        state.level++;
 
-                        if (shouldListArchive(file)) {
-                            listArchive(file);
+                        if (shouldListArchive(file, state)) {
+                            listArchive(file, state);
                         }
 
-                        level.decrementAndGet();
+                        state.level--;
                     }
                 }
             }
@@ -653,38 +967,110 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
                 }
 
                 for (Future<Set<Checksum>> future : futures) {
-                    handleFutureChecksum(future);
+                    handleFutureChecksum(future, state);
                 }
             }
+
+            if (mainJar || !pomLicenseFutures.isEmpty()) {
+                licenseTasks = new LicenseTasks(
+                        normalizePath(fo, state.root),
+                        mainJar,
+                        jarLicenseFutures,
+                        pomLicenseFutures,
+                        localFiles);
+            }
+
+            return licenseTasks;
         } finally {
-            for (FileObject file : localFiles) {
-                file.close();
+            if (licenseTasks == null) {
+                // The license tasks are only left if the traversal failed before they were returned
+                jarLicenseFutures.forEach(future -> future.cancel(true));
+                pomLicenseFutures.forEach(future -> future.cancel(true));
+
+                for (FileObject file : localFiles) {
+                    file.close();
+                }
+            }
+        }
+    }
+
+    /*
+     * Adds the given license tasks, if any, to the pending license tasks of the input, and completes the oldest ones
+     * which are done. The traversal only waits for the oldest ones once too many are pending, since each of them holds
+     * its files, and possibly an archive file system, open. The license tasks are completed in the order they were
+     * added, so that those of nested archives are completed before those of their parents.
+     */
+    private void deferLicenseTasks(LicenseTasks licenseTasks, InputState state) throws InterruptedIOException {
+        if (licenseTasks != null) {
+            state.licenseTasks.add(licenseTasks);
+        }
+
+        while (!state.licenseTasks.isEmpty() && (state.licenseTasks.peek().isDone()
+                || state.licenseTasks.size() > MAX_PENDING_LICENSE_TASKS)) {
+            completeLicenseTasks(state.licenseTasks.remove(), state);
+        }
+    }
+
+    /*
+     * Joins the given license tasks and closes their files. The licenses of a main jar are only complete once all of
+     * its license tasks are joined. Any failure of a license task is recorded as an error of the file containing it,
+     * and only an interruption of the traversal itself is thrown.
+     */
+    private void completeLicenseTasks(LicenseTasks licenseTasks, InputState state) throws InterruptedIOException {
+        try {
+            List<LicenseInfo> licenseInfos = new ArrayList<>();
+
+            for (Future<List<LicenseInfo>> future : licenseTasks.jarFutures) {
+                licenseInfos.addAll(future.get());
+            }
+
+            if (licenseTasks.mainJar) {
+                putLicenses(licenseTasks.filename, Collections.unmodifiableList(licenseInfos));
+            }
+
+            for (Future<Void> future : licenseTasks.pomFutures) {
+                future.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioe = new InterruptedIOException(
+                    "Interrupted processing licenses of file: " + licenseTasks.filename);
+            ioe.initCause(e);
+            throw ioe;
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            String message = getMessage(cause);
+            state.fileErrors.add(new FileError(licenseTasks.filename, message));
+            LOGGER.warn("Unable to process licenses of file: {}: {}", red(licenseTasks.filename), red(message));
+            LOGGER.debug("Error", cause);
+        } finally {
+            licenseTasks.close();
         }
     }
 
+    private static boolean isLicenseSource(FileObject fo) {
+        return isPomXml(fo) || isManifestMfFileName(fo) || isLicenseFile(fo);
+    }
+
     private static boolean isMainJar(FileObject fo) {
         String name = fo.getPublicURIString();
         return name.endsWith(JAR_URI) && !StringUtils.endsWithAny(name, JARS_TO_IGNORE);
     }
 
-    private List<LicenseInfo> addLicensesFromJar(FileObject jar, List<FileObject> localFiles) {
-        return localFiles.parallelStream()
-                .map(localFile -> addLicensesFromJar(jar, localFile))
-                .filter(not(Collection::isEmpty))
-                .flatMap(Collection::stream)
-                .toList();
-    }
-
-    private List<LicenseInfo> addLicensesFromJar(FileObject jar, FileObject localFile) {
+    private List<LicenseInfo> addLicensesFromJar(FileObject jar, FileObject localFile, String root) {
         List<LicenseInfo> licenseInfos;
+        long startNanos = BuildFinderMetrics.start();
+        String source = "none";
 
         try {
             if (isPomXml(localFile)) {
-                licenseInfos = addLicensesFromPom(localFile);
+                source = "pom-xml";
+                licenseInfos = addLicensesFromPom(localFile, root);
             } else if (isManifestMfFileName(localFile)) {
+                source = "bundle-license";
                 licenseInfos = addLicensesFromBundleLicense(localFile);
             } else if (isLicenseFile(localFile)) {
+                source = "text";
                 licenseInfos = addLicenseFromTextFile(jar, localFile);
             } else {
                 licenseInfos = Collections.emptyList();
@@ -696,20 +1082,22 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         // Second license pass which looks for relative file URLs, e.g., names such as META-INF/LICENSE
         licenseInfos.stream()
                 .filter(licenseInfo -> NOASSERTION.equals(licenseInfo.getSpdxLicenseId()))
-                .forEach(licenseInfo -> handleRelativeURL(jar, localFile, licenseInfo));
+                .forEach(licenseInfo -> handleRelativeURL(jar, localFile, licenseInfo, root));
 
         // If there are any licenses still unmatched, print them, but ignore unmatched files that were already checked
         // in the last step
         if (LOGGER.isWarnEnabled()) {
             licenseInfos.stream()
                     .filter(licenseInfo -> NOASSERTION.equals(licenseInfo.getSpdxLicenseId()))
-                    .forEach(licenseInfo -> checkMissingMapping(localFile, licenseInfo));
+                    .forEach(licenseInfo -> checkMissingMapping(localFile, licenseInfo, root));
         }
 
+        metricHandles.getLicensesTimer(source).stop(startNanos);
+
         return Collections.unmodifiableList(licenseInfos);
     }
 
-    private static List<LicenseInfo> addLicenseFromTextFile(FileObject jar, FileObject licenseFile) throws IOException {
+    private List<LicenseInfo> addLicenseFromTextFile(FileObject jar, FileObject licenseFile) throws IOException {
         String licenseId = getMatchingLicense(licenseFile);
         LicenseInfo licenseInfo = new LicenseInfo(
                 licenseFile,
@@ -718,7 +1106,67 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         return Collections.singletonList(licenseInfo);
     }
 
-    private static List<LicenseInfo> addLicensesFromBundleLicense(FileObject fileObject) throws IOException {
+    /**
+     * Gets the matching SPDX license identifier for the given license text file, or <code>NOASSERTION</code>. The
+     * results of matching the text are cached by the SHA-256 digest of the file content, so the same license file
+     * found in many jars is only matched once. The cache keys include the license cache version, so that the results
+     * are matched again once the license list or the license mapping changes.
+     *
+     * @param licenseFile the license text file
+     * @return the matching license identifier or <code>NOASSERTION</code> if no match
+     */
+    private String getMatchingLicense(FileObject licenseFile) {
+        Optional<String> optionalId = findSPDXIdentifierFromFileName(licenseFile);
+
+        if (optionalId.isPresent()) {
+            return optionalId.get();
+        }
+
+        byte[] bytes;
+
+        try (FileContent fc = licenseFile.getContent(); InputStream in = fc.getInputStream()) {
+            bytes = in.readAllBytes();
+        } catch (IOException e) {
+            return NOASSERTION;
+        }
+
+        String key = getLicenseCacheKey(DigestUtils.sha256Hex(bytes));
+        String licenseId = licenseFilesCache.get(key);
+
+        if (licenseId == null) {
+            licenseId = findMatchingLicenseText(new String(bytes, UTF_8)).orElse(NOASSERTION);
+            licenseFilesCache.put(key, licenseId);
+        }
+
+        return licenseId;
+    }
+
+    /**
+     * Gets the SPDX license identifier for the given license name and URL. The results are cached by the SHA-256 digest
+     * of the name and URL, along with the license cache version.
+     *
+     * @param name the license name
+     * @param url the license URL
+     * @return the matching SPDX license identifier, or <code>NOASSERTION</code> if no match
+     */
+    String getCachedSPDXLicenseId(String name, String url) {
+        String key = getLicenseCacheKey(
+                DigestUtils.sha256Hex(Objects.toString(name, NULL_MARKER) + '\n' + Objects.toString(url, NULL_MARKER)));
+        String licenseId = licenseNamesCache.get(key);
+
+        if (licenseId == null) {
+            licenseId = getSPDXLicenseId(name, url);
+            licenseNamesCache.put(key, licenseId);
+        }
+
+        return licenseId;
+    }
+
+    private String getLicenseCacheKey(String digest) {
+        return licenseCacheVersion + ':' + digest;
+    }
+
+    private List<LicenseInfo> addLicensesFromBundleLicense(FileObject fileObject) throws IOException {
         List<LicenseInfo> licenses = new ArrayList<>(3);
         List<BundleLicense> bundlesLicenses = getBundleLicenseFromManifest(fileObject);
 
@@ -727,16 +1175,16 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
             String description = bundleLicense.getDescription();
             String name = getFirstNonBlankString(licenseIdentifier, description);
             String url = bundleLicense.getLink();
-            LicenseInfo licenseInfo = new LicenseInfo(fileObject, name, url);
+            LicenseInfo licenseInfo = new LicenseInfo(fileObject, name, url, getCachedSPDXLicenseId(name, url));
             licenses.add(licenseInfo);
         }
 
         return Collections.unmodifiableList(licenses);
     }
 
-    private List<LicenseInfo> addLicensesFromPom(FileObject fileObject) throws IOException {
+    private List<LicenseInfo> addLicensesFromPom(FileObject fileObject, String root) throws IOException {
         try {
-            Map<String, List<LicenseInfo>> map = getLicenses(root, fileObject);
+            Map<String, List<LicenseInfo>> map = getLicenses(root, fileObject, pomModelsCache);
             Entry<String, List<LicenseInfo>> entry = map.entrySet().iterator().next();
             String pomOrJarFile = entry.getKey();
             List<LicenseInfo> licenseInfos = entry.getValue();
@@ -770,7 +1218,7 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         }
     }
 
-    private void checkMissingMapping(FileObject localFile, LicenseInfo licenseInfo) {
+    private static void checkMissingMapping(FileObject localFile, LicenseInfo licenseInfo, String root) {
         String name = licenseInfo.getName();
         String url = licenseInfo.getUrl();
 
@@ -795,7 +1243,11 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         }
     }
 
-    private void handleRelativeURL(FileObject jar, FileObject localFile, LicenseInfo licenseInfo) {
+    private void handleRelativeURL(
+            FileObject jar,
+            FileObject localFile,
+            LicenseInfo licenseInfo,
+            String root) {
         String name = licenseInfo.getName();
         String url = licenseInfo.getUrl();
 
@@ -864,13 +1316,12 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
     }
 
     private void putLicenses(String pomOrJarFile, Collection<LicenseInfo> licenseInfos) {
-        Collection<LicenseInfo> existingLicenses = licensesMap.get(pomOrJarFile);
-
-        if (existingLicenses != null) {
-            existingLicenses.addAll(licenseInfos);
-        } else {
-            licensesMap.put(pomOrJarFile, licenseInfos);
-        }
+        licensesMap.merge(pomOrJarFile, licenseInfos, (existingLicenses, newLicenses) -> {
+            List<LicenseInfo> mergedLicenses = new ArrayList<>(existingLicenses.size() + newLicenses.size());
+            mergedLicenses.addAll(existingLicenses);
+            mergedLicenses.addAll(newLicenses);
+            return mergedLicenses;
+        });
     }
 
     public List<String> getInputs() {
@@ -878,7 +1329,9 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
     }
 
     public Path getChecksumFile(ChecksumType checksumType) {
-        return Path.of(config.getOutputDirectory(), CHECKSUMS_FILENAME_BASENAME + checksumType + ".json");
+        return Path.of(
+                config.getOutputDirectory(),
+                CHECKSUMS_FILENAME_BASENAME + checksumType + config.getOutputFormat().getExtension());
     }
 
     public Path getLicensesFile() {
@@ -890,15 +1343,25 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
     }
 
     public void outputToFile(ChecksumType checksumType) throws IOException {
-        JSONUtils.dumpObjectToFile(getChecksums(checksumType), getChecksumFile(checksumType));
+        JSONUtils.dumpMapToFile(
+                getChecksums(checksumType),
+                getChecksumFile(checksumType),
+                config.getOutputFormat(),
+                config.getCompactOutput());
     }
 
     public void outputLicensesToFile() throws IOException {
-        JSONUtils.dumpObjectToFile(getLicensesMap(), getLicensesFile());
+        JSONUtils.dumpMapToFile(getLicensesMap(), getLicensesFile(), config.getCompactOutput());
     }
 
+    /**
+     * Gets the checksums of each file. The file paths are only converted to strings when iterating over the map.
+     *
+     * @return the checksums of each file
+     */
     public Map<String, Collection<Checksum>> getFiles() {
-        return Collections.unmodifiableMap(inverseMap.asMap());
+        ChecksumTable checksumTable = table;
+        return checksumTable != null ? checksumTable.asFilesMap() : new FilesMap(inverseMap.asMap());
     }
 
     public void setChecksums(Map<ChecksumType, MultiValuedMap<String, LocalFile>> map) {
@@ -924,7 +1387,7 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         checksumFiles();
 
         try {
-            queue.put(new Checksum());
+            queue.put(new FileChecksums(Collections.emptyList()));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException(e);
@@ -950,11 +1413,249 @@ public class DistributionAnalyzer implements Callable<Map<ChecksumType, MultiVal
         }
     }
 
-    public BlockingQueue<Checksum> getQueue() {
+    /**
+     * Gets the queue of the files checksummed so far that have an MD-5 checksum, each with all of its checksums. The
+     * end of the files is marked by an empty record.
+     *
+     * @return the queue of the checksummed files
+     */
+    public BlockingQueue<FileChecksums> getQueue() {
         return queue;
     }
 
     public void setListener(DistributionAnalyzerListener listener) {
         this.listener = listener;
     }
+
+    public BuildFinderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics to record the checksum, VFS layer, and license matching times in, e.g., to share them with the
+     * {@link BuildFinder}.
+     *
+     * @param metrics the metrics
+     */
+    public void setMetrics(BuildFinderMetrics metrics) {
+        this.metrics = metrics;
+        this.metricHandles = new MetricHandles(metrics);
+    }
+
+    /**
+     * Releases the checksum table the checksums were spilled to, if any. The checksums and the files are empty
+     * afterwards, so the analyzer must only be closed once they are no longer needed.
+     *
+     * @throws IOException if an error occurs closing the checksum table
+     */
+    @Override
+    public void close() throws IOException {
+        ChecksumTable checksumTable;
+
+        synchronized (lock) {
+            checksumTable = table;
+            table = null;
+        }
+
+        if (checksumTable != null) {
+            checksumTable.close();
+        }
+    }
+
+    /*
+     * A read-only view of the files map keyed by path string, which looks up files without building their path strings
+     */
+    private static final class FilesMap extends AbstractMap<String, Collection<Checksum>> {
+        private final Map<InternedPath, Collection<Checksum>> files;
+
+        private FilesMap(Map<InternedPath, Collection<Checksum>> files) {
+            this.files = files;
+        }
+
+        @Override
+        public Collection<Checksum> get(Object key) {
+            return key instanceof String filename ? files.get(InternedPath.of(filename)) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return files.size();
+        }
+
+        @Override
+        public Set<Entry<String, Collection<Checksum>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Collection<Checksum>>> iterator() {
+                    Iterator<Entry<InternedPath, Collection<Checksum>>> it = files.entrySet().iterator();
+
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Collection<Checksum>> next() {
+                            Entry<InternedPath, Collection<Checksum>> entry = it.next();
+                            return new SimpleImmutableEntry<>(entry.getKey().toString(), entry.getValue());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return files.size();
+                }
+            };
+        }
+    }
+
+    /*
+     * The handles of the metrics which are recorded for each file or archive, looked up once for each depth, scheme,
+     * and license source
+     */
+    private static final class MetricHandles {
+        private final BuildFinderMetrics metrics;
+
+        private final ConcurrentMap<Integer, BuildFinderMetrics.Timer> filesTimers;
+
+        private final ConcurrentMap<Integer, BuildFinderMetrics.Counter> bytesCounters;
+
+        private final ConcurrentMap<String, BuildFinderMetrics.Timer> layerTimers;
+
+        private final ConcurrentMap<String, BuildFinderMetrics.Timer> licensesTimers;
+
+        private MetricHandles(BuildFinderMetrics metrics) {
+            this.metrics = metrics;
+            this.filesTimers = new ConcurrentHashMap<>();
+            this.bytesCounters = new ConcurrentHashMap<>();
+            this.layerTimers = new ConcurrentHashMap<>();
+            this.licensesTimers = new ConcurrentHashMap<>();
+        }
+
+        private BuildFinderMetrics.Timer getFilesTimer(int depth) {
+            return filesTimers.computeIfAbsent(
+                    depth,
+                    k -> metrics.timer(BuildFinderMetrics.ANALYZER_FILES, DEPTH_TAG, String.valueOf(k)));
+        }
+
+        private BuildFinderMetrics.Counter getBytesCounter(int depth) {
+            return bytesCounters.computeIfAbsent(
+                    depth,
+                    k -> metrics.counter(BuildFinderMetrics.ANALYZER_BYTES, DEPTH_TAG, String.valueOf(k)));
+        }
+
+        private BuildFinderMetrics.Timer getLayerTimer(String scheme) {
+            return layerTimers
+                    .computeIfAbsent(scheme, k -> metrics.timer(BuildFinderMetrics.ANALYZER_VFS_LAYERS, SCHEME_TAG, k));
+        }
+
+        private BuildFinderMetrics.Timer getLicensesTimer(String source) {
+            return licensesTimers
+                    .computeIfAbsent(source, k -> metrics.timer(BuildFinderMetrics.ANALYZER_LICENSES, SOURCE_TAG, k));
+        }
+    }
+
+    /*
+     * The traversal state of a single input. When the file caches are in use, the checksums of the input are also
+     * collected separately, so that the cache entry of the input only holds its own files.
+     */
+    private static final class InputState {
+        private final String root;
+
+        private final Set<ChecksumType> checksumTypes;
+
+        private final Map<ChecksumType, MultiValuedMap<String, LocalFile>> map;
+
+        private final List<FileError> fileErrors;
+
+        private final List<Checksum> pendingChecksums;
+
+        private final List<LocalFile> pendingLocalFiles;
+
+        private final List<FileChecksums> pendingFiles;
+
+        private final Deque<LicenseTasks> licenseTasks;
+
+        private int level;
+
+        private InputState(String root, Set<ChecksumType> checksumTypes, boolean collectChecksums) {
+            this.root = root;
+            this.checksumTypes = EnumSet.copyOf(checksumTypes);
+            this.fileErrors = new ArrayList<>(FILE_ERRORS_SIZE);
+            this.pendingChecksums = new ArrayList<>(MERGE_BATCH_SIZE);
+            this.pendingLocalFiles = new ArrayList<>(MERGE_BATCH_SIZE);
+            this.pendingFiles = new ArrayList<>();
+            this.licenseTasks = new ArrayDeque<>();
+
+            if (collectChecksums) {
+                this.map = new EnumMap<>(ChecksumType.class);
+
+                for (ChecksumType checksumType : checksumTypes) {
+                    this.map.put(checksumType, new HashSetValuedHashMap<>());
+                }
+            } else {
+                this.map = null;
+            }
+        }
+    }
+
+    /*
+     * The license tasks for the children of a file object, which hold the children, and the file system of an archive,
+     * open until they are completed
+     */
+    private static final class LicenseTasks {
+        private final String filename;
+
+        private final boolean mainJar;
+
+        private final List<Future<List<LicenseInfo>>> jarFutures;
+
+        private final List<Future<Void>> pomFutures;
+
+        private final List<FileObject> files;
+
+        private FileSystem fileSystem;
+
+        private LicenseTasks(
+                String filename,
+                boolean mainJar,
+                List<Future<List<LicenseInfo>>> jarFutures,
+                List<Future<Void>> pomFutures,
+                List<FileObject> files) {
+            this.filename = filename;
+            this.mainJar = mainJar;
+            this.jarFutures = jarFutures;
+            this.pomFutures = pomFutures;
+            this.files = files;
+        }
+
+        private boolean isDone() {
+            return jarFutures.stream().allMatch(Future::isDone) && pomFutures.stream().allMatch(Future::isDone);
+        }
+
+        private void close() {
+            // Only has an effect if a license task failed before the others were joined
+            jarFutures.forEach(future -> future.cancel(true));
+            pomFutures.forEach(future -> future.cancel(true));
+
+            for (FileObject file : files) {
+                try {
+                    file.close();
+                } catch (FileSystemException e) {
+                    LOGGER.debug("Error closing {}", file, e);
+                }
+            }
+
+            if (fileSystem != null) {
+                fileSystem.getFileSystemManager().closeFileSystem(fileSystem);
+            }
+        }
+    }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.util.Collection;
+
+/**
+ * The checksums of a single file, at most one for each checksum type. Each checksum added to the record is linked back
+ * to it, so the checksum of another type for the same file can be found from any of them without looking up the
+ * file.
+ */
+public final class FileChecksums {
+    private static final ChecksumType[] CHECKSUM_TYPES = ChecksumType.values();
+
+    private final Checksum[] checksums;
+
+    /**
+     * Creates the record of the given checksums of a single file. An empty record marks the end of the files.
+     *
+     * @param checksums the checksums of the file
+     */
+    public FileChecksums(Collection<Checksum> checksums) {
+        this.checksums = new Checksum[CHECKSUM_TYPES.length];
+
+        for (Checksum checksum : checksums) {
+            this.checksums[checksum.getType().ordinal()] = checksum;
+            checksum.setFileChecksums(this);
+        }
+    }
+
+    /**
+     * Gets the checksum of the given type.
+     *
+     * @param type the checksum type
+     * @return the checksum of the given type, or null if it was not computed
+     */
+    public Checksum get(ChecksumType type) {
+        return checksums[type.ordinal()];
+    }
+
+    /**
+     * Returns whether the record has no checksums.
+     *
+     * @return whether the record has no checksums
+     */
+    public boolean isEmpty() {
+        for (Checksum checksum : checksums) {
+            if (checksum != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FileChecksums{");
+        String separator = "";
+
+        for (Checksum checksum : checksums) {
+            if (checksum != null) {
+                sb.append(separator).append(checksum.getType()).append('=').append(checksum.getValue());
+                separator = ", ";
+            }
+        }
+
+        return sb.append('}').toString();
+    }
+}
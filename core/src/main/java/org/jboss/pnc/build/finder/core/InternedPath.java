@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * A file path stored as a chain of shared segments, split after each {@code /}.
+ * <p>
+ * Paths are interned, so the long nested prefixes of the files in a distribution, like
+ * {@code product.zip!/product/lib/foo.war!/WEB-INF/lib/}, are stored only once, and equal paths are the same
+ * instance. The path string is only built by {@link #toString()}. Interning is weak, so paths that are no longer
+ * referenced can be garbage collected.
+ */
+public final class InternedPath implements Comparable<InternedPath>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 2716529468146521378L;
+
+    private static final Interner<InternedPath> PATHS = Interners.newWeakInterner();
+
+    private static final Interner<String> SEGMENTS = Interners.newWeakInterner();
+
+    private final InternedPath parent;
+
+    private final String segment;
+
+    private final int length;
+
+    private final int depth;
+
+    private final int hash;
+
+    private InternedPath(InternedPath parent, String segment) {
+        this.parent = parent;
+        this.segment = segment;
+        this.length = parent != null ? parent.length + segment.length() : segment.length();
+        this.depth = parent != null ? parent.depth + 1 : 0;
+        this.hash = parent != null ? 31 * parent.hash + segment.hashCode() : segment.hashCode();
+    }
+
+    /**
+     * Gets the interned path for the given string.
+     *
+     * @param path the path string
+     * @return the interned path, or null if the path string is null
+     */
+    public static InternedPath of(String path) {
+        if (path == null) {
+            return null;
+        }
+
+        int pathLength = path.length();
+
+        if (pathLength == 0) {
+            return PATHS.intern(new InternedPath(null, ""));
+        }
+
+        InternedPath current = null;
+        int start = 0;
+
+        while (start < pathLength) {
+            int end = path.indexOf('/', start);
+            end = end == -1 ? pathLength : end + 1;
+            current = PATHS.intern(new InternedPath(current, SEGMENTS.intern(path.substring(start, end))));
+            start = end;
+        }
+
+        return current;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gets the last segment of this path, which is interned and shared by all paths ending with it.
+     *
+     * @return the file name, or the last directory name with its trailing {@code /}
+     */
+    public String getFileName() {
+        return segment;
+    }
+
+    private void appendTo(StringBuilder sb) {
+        if (parent != null) {
+            parent.appendTo(sb);
+        }
+
+        sb.append(segment);
+    }
+
+    @Serial
+    private Object readResolve() {
+        return PATHS.intern(new InternedPath(parent, SEGMENTS.intern(segment)));
+    }
+
+    /*
+     * Paths are compared in the same order as their strings, but without building them. Since the parents are
+     * interned, the paths share the nodes of their common prefix, and the order is decided by the segments right after
+     * it. Only the last segment of a path has no trailing '/', so a segment can only be a prefix of another segment if
+     * it ends its path.
+     */
+    @Override
+    public int compareTo(InternedPath o) {
+        InternedPath p = this;
+        InternedPath q = o;
+
+        while (p.depth > q.depth) {
+            p = p.parent;
+        }
+
+        while (q.depth > p.depth) {
+            q = q.parent;
+        }
+
+        if (p == q) {
+            return Integer.compare(length, o.length);
+        }
+
+        while (p.parent != q.parent) {
+            p = p.parent;
+            q = q.parent;
+        }
+
+        return p.segment.compareTo(q.segment);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        // Parents are always interned, so they can be compared by identity
+        InternedPath path = (InternedPath) o;
+        return hash == path.hash && parent == path.parent && segment.equals(path.segment);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length);
+        appendTo(sb);
+        return sb.toString();
+    }
+}
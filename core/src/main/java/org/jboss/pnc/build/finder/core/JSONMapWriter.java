@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Writes a JSON object to a file one entry at a time, so that a large map never has to be serialized in one go. Each
+ * key is written as its string representation, as Jackson does for map keys, and the output is otherwise the same as
+ * that of {@link JSONUtils#dumpObjectToFile(Object, Path)}, unless compact output is requested. The object may also be
+ * written in the Smile format, which is always compact.
+ */
+public final class JSONMapWriter implements Closeable {
+    private static final ObjectMapper MAPPER = new BuildFinderObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final ObjectMapper COMPACT_MAPPER = new BuildFinderObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE, SerializationFeature.INDENT_OUTPUT);
+
+    private static final SmileFactory SMILE_FACTORY = SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build();
+
+    static {
+        SMILE_FACTORY.setCodec(COMPACT_MAPPER);
+    }
+
+    private final OutputFormat format;
+
+    private final JsonGenerator generator;
+
+    /**
+     * Creates a writer for the given file and writes the start of the object.
+     *
+     * @param path the file to write
+     * @param compact whether to write the object without indentation
+     * @throws IOException if an error occurs creating the file
+     */
+    public JSONMapWriter(Path path, boolean compact) throws IOException {
+        this(path, OutputFormat.json, compact);
+    }
+
+    /**
+     * Creates a writer for the given file in the given format and writes the start of the object.
+     *
+     * @param path the file to write
+     * @param format the format of the file
+     * @param compact whether to write the object without indentation
+     * @throws IOException if an error occurs creating the file
+     */
+    public JSONMapWriter(Path path, OutputFormat format, boolean compact) throws IOException {
+        this.format = format;
+        OutputStream out = Files.newOutputStream(path);
+
+        try {
+            if (format == OutputFormat.smile) {
+                generator = SMILE_FACTORY.createGenerator(out);
+            } else {
+                generator = (compact ? COMPACT_MAPPER : MAPPER).getFactory().createGenerator(out, JsonEncoding.UTF8);
+
+                if (!compact) {
+                    generator.useDefaultPrettyPrinter();
+                }
+            }
+
+            generator.writeStartObject();
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes an entry of the object.
+     *
+     * @param key the key
+     * @param value the value
+     * @throws IOException if an error occurs writing the entry
+     */
+    public void write(Object key, Object value) throws IOException {
+        generator.writeFieldName(String.valueOf(key));
+        generator.writeObject(value);
+    }
+
+    /**
+     * Writes the end of the object, followed by a newline for JSON, and closes the file.
+     *
+     * @throws IOException if an error occurs writing the file
+     */
+    @Override
+    public void close() throws IOException {
+        try (JsonGenerator g = generator) {
+            g.writeEndObject();
+
+            if (format == OutputFormat.json) {
+                g.writeRaw(System.lineSeparator());
+            }
+        }
+    }
+}
@@ -22,16 +22,25 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
 public final class JSONUtils {
     private static final ObjectMapper MAPPER = new BuildFinderObjectMapper();
 
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
     private JSONUtils() {
 
     }
@@ -49,9 +58,82 @@ public final class JSONUtils {
         Files.write(path, Collections.singletonList(""), StandardOpenOption.APPEND);
     }
 
+    /**
+     * Writes the given map to the given file one entry at a time.
+     *
+     * @param map the map
+     * @param path the file
+     * @param compact whether to write the map without indentation
+     * @throws IOException if an error occurs writing the file
+     */
+    public static void dumpMapToFile(Map<?, ?> map, Path path, boolean compact) throws IOException {
+        dumpMapToFile(map, path, OutputFormat.json, compact);
+    }
+
+    /**
+     * Writes the given map to the given file in the given format one entry at a time.
+     *
+     * @param map the map
+     * @param path the file
+     * @param format the format of the file
+     * @param compact whether to write the map without indentation
+     * @throws IOException if an error occurs writing the file
+     */
+    public static void dumpMapToFile(Map<?, ?> map, Path path, OutputFormat format, boolean compact)
+            throws IOException {
+        try (JSONMapWriter writer = new JSONMapWriter(path, format, compact)) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
     public static Map<String, Collection<LocalFile>> loadChecksumsFile(Path path) throws IOException {
-        TypeReference<Map<String, Collection<LocalFile>>> typeReference = new ChecksumsMapTypeReference();
-        return MAPPER.readValue(path.toFile(), typeReference);
+        Map<String, Collection<LocalFile>> checksums = new LinkedHashMap<>();
+        loadChecksumsFile(path, checksums::put);
+        return checksums;
+    }
+
+    /**
+     * Loads the given checksums file one entry at a time, passing each checksum and its files to the given consumer,
+     * so that the whole file never has to be held in memory.
+     *
+     * @param path the checksums file
+     * @param consumer the consumer of the checksums and their files
+     * @throws IOException if an error occurs reading the file
+     */
+    public static void loadChecksumsFile(Path path, BiConsumer<String, Collection<LocalFile>> consumer)
+            throws IOException {
+        readMapEntries(path, new LocalFilesTypeReference(), consumer);
+    }
+
+    /**
+     * Reads the JSON object in the given file one entry at a time, passing each key and value to the given consumer.
+     * The file is read as Smile if it has the Smile extension, see {@link OutputFormat#fromPath(Path)}.
+     *
+     * @param path the file
+     * @param valueType the type of the values
+     * @param consumer the consumer of the keys and values
+     * @param <V> the type of the values
+     * @throws IOException if an error occurs reading the file or if it does not contain an object
+     */
+    public static <V> void readMapEntries(Path path, TypeReference<V> valueType, BiConsumer<String, V> consumer)
+            throws IOException {
+        ObjectReader reader = MAPPER.readerFor(valueType);
+
+        try (JsonParser parser = OutputFormat.fromPath(path) == OutputFormat.smile
+                ? SMILE_FACTORY.createParser(path.toFile())
+                : MAPPER.createParser(path.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object in file " + path);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.currentName();
+                parser.nextToken();
+                consumer.accept(key, reader.readValue(parser));
+            }
+        }
     }
 
     public static Map<String, List<String>> loadLicenseMapping(InputStream in) throws IOException {
@@ -63,7 +145,7 @@ public final class JSONUtils {
 
     }
 
-    private static final class ChecksumsMapTypeReference extends TypeReference<Map<String, Collection<LocalFile>>> {
+    private static final class LocalFilesTypeReference extends TypeReference<Collection<LocalFile>> {
 
     }
 }
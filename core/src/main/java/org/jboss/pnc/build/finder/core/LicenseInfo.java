@@ -44,11 +44,15 @@ public class LicenseInfo implements Comparable<LicenseInfo> {
     }
 
     public LicenseInfo(FileObject fileObject, String name, String url) {
+        this(fileObject, name, url, SpdxLicenseUtils.getSPDXLicenseId(name, url));
+    }
+
+    public LicenseInfo(FileObject fileObject, String name, String url, String spdxLicenseId) {
         comments = null;
         distribution = null;
         this.name = name;
         this.url = url;
-        this.spdxLicenseId = SpdxLicenseUtils.getSPDXLicenseId(name, url);
+        this.spdxLicenseId = spdxLicenseId;
         sourceUrl = relativize(fileObject);
     }
 
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.apache.commons.lang3.ArrayUtils.EMPTY_STRING_ARRAY;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.ArrayUtils;
+
+/**
+ * Matches license names and URLs against a fixed list of license strings. Gives the same result as calling
+ * {@link LicenseUtils#containsWordsInSameOrder(String, String)} for each string in list order and taking the first
+ * match. Each string in the list is tokenized only once, when the matcher is created. Each string is indexed by its
+ * first word, so a lookup only checks the strings whose first word occurs in the license name or URL.
+ */
+final class LicenseNameMatcher {
+    private static final int[] EMPTY_INT_ARRAY = new int[0];
+
+    private static final int NOT_FOUND = -1;
+
+    private final String[][] nameTokens;
+
+    private final String[][] urlTokens;
+
+    private final Map<String, int[]> nameIndex;
+
+    private final Map<String, int[]> urlIndex;
+
+    private final Map<String, Integer> exactNames;
+
+    /**
+     * Creates a matcher for the given license strings.
+     *
+     * @param licenseStrings the license strings, in the order they should be matched
+     * @param nameTransformer transforms each license string before it is matched against a license name
+     * @param matchExactNames whether a license name equal to a license string (ignoring case) is a match
+     */
+    LicenseNameMatcher(
+            List<String> licenseStrings,
+            UnaryOperator<String> nameTransformer,
+            boolean matchExactNames) {
+        int size = licenseStrings.size();
+        nameTokens = new String[size][];
+        urlTokens = new String[size][];
+        exactNames = matchExactNames ? new TreeMap<>(String.CASE_INSENSITIVE_ORDER) : Map.of();
+
+        for (int i = 0; i < size; i++) {
+            String licenseString = licenseStrings.get(i);
+            nameTokens[i] = tokenize(nameTransformer.apply(licenseString));
+            urlTokens[i] = tokenize(licenseString);
+
+            if (matchExactNames) {
+                exactNames.putIfAbsent(licenseString, i);
+            }
+        }
+
+        nameIndex = createIndex(nameTokens);
+        urlIndex = createIndex(urlTokens);
+    }
+
+    private static String[] tokenize(String licenseString) {
+        return LicenseUtils.tokenizeLicenseString(licenseString).toArray(EMPTY_STRING_ARRAY);
+    }
+
+    // Strings without any words match everything and are stored under the null key
+    private static Map<String, int[]> createIndex(String[][] tokens) {
+        Map<String, List<Integer>> lists = new HashMap<>();
+
+        for (int i = 0; i < tokens.length; i++) {
+            String key = tokens[i].length > 0 ? tokens[i][0] : null;
+            lists.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+
+        Map<String, int[]> index = new HashMap<>(lists.size() * 4 / 3 + 1);
+
+        for (Entry<String, List<Integer>> entry : lists.entrySet()) {
+            index.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets the index of the first license string matching the given license name or license URL.
+     *
+     * @param licenseName the license name (may be <code>null</code>)
+     * @param licenseUrl the license URL (may be <code>null</code>)
+     * @return the index of the first matching license string, or -1 if there is no match
+     */
+    int indexOf(String licenseName, String licenseUrl) {
+        int first = Integer.MAX_VALUE;
+
+        if (licenseName != null) {
+            Integer exact = exactNames.get(licenseName);
+
+            if (exact != null) {
+                first = exact;
+            }
+
+            first = indexOf(tokenize(licenseName), nameIndex, nameTokens, first);
+        }
+
+        if (licenseUrl != null) {
+            first = indexOf(tokenize(licenseUrl), urlIndex, urlTokens, first);
+        }
+
+        return first != Integer.MAX_VALUE ? first : NOT_FOUND;
+    }
+
+    private static int indexOf(String[] candidate, Map<String, int[]> index, String[][] tokens, int first) {
+        Set<String> keys = new HashSet<>(List.of(candidate));
+        keys.add(null);
+
+        for (String key : keys) {
+            // Each list is in ascending order, so only its first match can be earlier than the current one
+            for (int i : index.getOrDefault(key, EMPTY_INT_ARRAY)) {
+                if (i >= first) {
+                    break;
+                }
+
+                if (containsInSameOrder(candidate, tokens[i])) {
+                    first = i;
+                    break;
+                }
+            }
+        }
+
+        return first;
+    }
+
+    private static boolean containsInSameOrder(String[] candidate, String[] searchStrings) {
+        int startIndex = 0;
+
+        for (String objectToFind : searchStrings) {
+            int index = ArrayUtils.indexOf(candidate, objectToFind, startIndex);
+
+            if (index == ArrayUtils.INDEX_NOT_FOUND) {
+                return false;
+            }
+
+            startIndex = index + 1;
+        }
+
+        return true;
+    }
+}
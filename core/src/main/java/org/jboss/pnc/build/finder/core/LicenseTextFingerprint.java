@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A fingerprint of an SPDX license template used to skip the expensive template comparison for license texts which
+ * cannot match. The fingerprint is the set of words which are required by the template, that is, the words outside of
+ * optional and variable regions.
+ * <p>
+ * A text matching the template contains all these words, except for the few which the SPDX comparison treats as
+ * equivalent to another spelling (e.g., "licence" and "license"). A text is therefore only rejected when it contains
+ * less than half of the required words, which leaves a wide margin.
+ */
+final class LicenseTextFingerprint {
+    private static final double MIN_CONTAINMENT = 0.5D;
+
+    private static final Pattern OPTIONAL_PATTERN = Pattern
+            .compile("<<beginOptional>>(?:(?!<<beginOptional>>).)*?<<endOptional>>", Pattern.DOTALL);
+
+    private static final Pattern VAR_PATTERN = Pattern.compile("<<var;.*?>>", Pattern.DOTALL);
+
+    private static final Pattern NON_WORD_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Set<String> requiredWords;
+
+    private LicenseTextFingerprint(Set<String> requiredWords) {
+        this.requiredWords = requiredWords;
+    }
+
+    /**
+     * Creates the fingerprint of the given SPDX license template.
+     *
+     * @param template the license template
+     * @return the fingerprint
+     */
+    static LicenseTextFingerprint of(String template) {
+        String requiredText = template;
+        String previous;
+
+        // Optional regions may be nested, so remove the innermost ones until there are none left
+        do {
+            previous = requiredText;
+            requiredText = OPTIONAL_PATTERN.matcher(requiredText).replaceAll(" ");
+        } while (!requiredText.equals(previous));
+
+        requiredText = VAR_PATTERN.matcher(requiredText).replaceAll(" ");
+
+        return new LicenseTextFingerprint(words(requiredText));
+    }
+
+    /**
+     * Gets the set of words in the given text, ignoring case and punctuation.
+     *
+     * @param text the text
+     * @return the set of words
+     */
+    static Set<String> words(String text) {
+        return Arrays.stream(NON_WORD_PATTERN.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    Set<String> getRequiredWords() {
+        return requiredWords;
+    }
+
+    /**
+     * Returns whether a text with the given words may match the template of this fingerprint.
+     *
+     * @param words the words of the text, see {@link #words(String)}
+     * @return false if the text cannot match the template, and true otherwise
+     */
+    boolean mayMatch(Set<String> words) {
+        if (requiredWords.isEmpty()) {
+            return true;
+        }
+
+        long found = requiredWords.stream().filter(words::contains).count();
+        return found >= MIN_CONTAINMENT * requiredWords.size();
+    }
+}
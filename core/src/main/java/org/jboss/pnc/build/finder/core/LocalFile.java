@@ -24,19 +24,28 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 @JsonDeserialize
 public class LocalFile {
-    private final String filename;
+    private final InternedPath filename;
 
     private final long size;
 
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
     @ProtoFactory
     public LocalFile(@JsonProperty("filename") String filename, @JsonProperty("size") long size) {
+        this.filename = InternedPath.of(filename);
+        this.size = size;
+    }
+
+    LocalFile(InternedPath filename, long size) {
         this.filename = filename;
         this.size = size;
     }
 
     @ProtoField(value = 1)
     public String getFilename() {
+        return filename != null ? filename.toString() : null;
+    }
+
+    InternedPath getPath() {
         return filename;
     }
 
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A hash map from primitive {@code long} keys to non-null values, using open addressing with linear probing.
+ * <p>
+ * Unlike a {@link java.util.HashMap} with boxed keys, lookups and insertions do not allocate. Entries cannot be
+ * removed, since the maps this is used for only grow.
+ *
+ * @param <V> the type of the values
+ */
+final class LongObjectMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private long[] keys;
+
+    private Object[] values;
+
+    private int mask;
+
+    private int maxSize;
+
+    private int size;
+
+    private int modCount;
+
+    LongObjectMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongObjectMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    @FunctionalInterface
+    interface LongObjectFunction<V, T> {
+        T apply(long key, V value);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(MIN_CAPACITY, capacity);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxSize = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        int i = hash(key) & mask;
+
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        return (V) values[slot(key)];
+    }
+
+    boolean containsKey(long key) {
+        return values[slot(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        Objects.requireNonNull(value);
+
+        int i = slot(key);
+        V oldValue = (V) values[i];
+        values[i] = value;
+
+        if (oldValue == null) {
+            keys[i] = key;
+            modCount++;
+
+            if (++size > maxSize) {
+                rehash();
+            }
+        }
+
+        return oldValue;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(oldKeys.length << 1);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an iterator over the entries of this map, in no particular order, mapped by the given function.
+     *
+     * @param function the function applied to each key and value
+     * @return the iterator
+     * @param <T> the type of the elements returned by the iterator
+     */
+    <T> Iterator<T> iterator(LongObjectFunction<? super V, ? extends T> function) {
+        return new Itr<>(function);
+    }
+
+    Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return LongObjectMap.this.iterator((key, value) -> value);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private final class Itr<T> implements Iterator<T> {
+        private final LongObjectFunction<? super V, ? extends T> function;
+
+        private final int expectedModCount = modCount;
+
+        private int index;
+
+        private int remaining = size;
+
+        private Itr(LongObjectFunction<? super V, ? extends T> function) {
+            this.function = function;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+
+            while (values[index] == null) {
+                index++;
+            }
+
+            remaining--;
+            int i = index++;
+
+            return function.apply(keys[i], (V) values[i]);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+/**
+ * Strategy used to look up checksums when both PNC and Koji are enabled.
+ */
+public enum LookupStrategy {
+    /**
+     * Look up all checksums in PNC first and then look up the checksums not found in PNC in Koji.
+     */
+    sequential,
+    /**
+     * Look up each batch of checksums in PNC and Koji in parallel. The PNC result is kept when both systems find a
+     * build.
+     */
+    parallel,
+    /**
+     * Like {@link #parallel}, but stop querying Koji speculatively while PNC keeps finding nearly all the checksums.
+     */
+    adaptive
+}
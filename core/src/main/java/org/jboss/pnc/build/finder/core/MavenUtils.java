@@ -17,15 +17,18 @@ package org.jboss.pnc.build.finder.core;
 
 import static org.apache.commons.vfs2.FileName.SEPARATOR;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.maven.model.License;
@@ -110,29 +113,63 @@ public final class MavenUtils {
     public static MavenProject getMavenProject(FileObject pomFileObject)
             throws InterpolationException, IOException, XmlPullParserException {
         try (FileContent content = pomFileObject.getContent(); InputStream in = content.getInputStream()) {
-            MavenXpp3Reader reader = new MavenXpp3Reader();
-
-            try {
-                Model model = reader.read(in);
-                String groupId = model.getGroupId();
-                String artifactId = model.getArtifactId();
-                String version = model.getVersion();
-                model.setGroupId(interpolateString(model, groupId));
-                model.setArtifactId(interpolateString(model, artifactId));
-                model.setVersion(interpolateString(model, version));
-                List<License> licenses = model.getLicenses();
-
-                for (License license : licenses) {
-                    license.setName(interpolateString(model, license.getName()));
-                    license.setUrl(interpolateString(model, license.getUrl()));
-                    license.setDistribution(interpolateString(model, license.getDistribution()));
-                    license.setComments(interpolateString(model, license.getComments()));
-                }
-
-                return new MavenProject(model);
-            } catch (IOException e) {
-                throw new XmlPullParserException(e.getMessage());
+            return new MavenProject(readModel(in));
+        }
+    }
+
+    /**
+     * Gets the Maven project from the given POM file object. The interpolated POM model is cached by the SHA-256 digest
+     * of the POM file content, so a POM which occurs more than once is only parsed once.
+     *
+     * @param pomFileObject the POM file object
+     * @param modelCache the POM model cache
+     * @return the Maven project
+     * @throws InterpolationException if an error occurs while interpolating the Maven properties
+     * @throws IOException if an error occurs when reading from the file
+     * @throws XmlPullParserException if an error occurs when parsing the POM file
+     */
+    public static MavenProject getMavenProject(FileObject pomFileObject, ConcurrentMap<String, Model> modelCache)
+            throws InterpolationException, IOException, XmlPullParserException {
+        byte[] bytes;
+
+        try (FileContent content = pomFileObject.getContent(); InputStream in = content.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+
+        String digest = DigestUtils.sha256Hex(bytes);
+        Model model = modelCache.get(digest);
+
+        if (model == null) {
+            model = readModel(new ByteArrayInputStream(bytes));
+            modelCache.put(digest, model);
+        }
+
+        return new MavenProject(model);
+    }
+
+    private static Model readModel(InputStream in) throws InterpolationException, XmlPullParserException {
+        MavenXpp3Reader reader = new MavenXpp3Reader();
+
+        try {
+            Model model = reader.read(in);
+            String groupId = model.getGroupId();
+            String artifactId = model.getArtifactId();
+            String version = model.getVersion();
+            model.setGroupId(interpolateString(model, groupId));
+            model.setArtifactId(interpolateString(model, artifactId));
+            model.setVersion(interpolateString(model, version));
+            List<License> licenses = model.getLicenses();
+
+            for (License license : licenses) {
+                license.setName(interpolateString(model, license.getName()));
+                license.setUrl(interpolateString(model, license.getUrl()));
+                license.setDistribution(interpolateString(model, license.getDistribution()));
+                license.setComments(interpolateString(model, license.getComments()));
             }
+
+            return model;
+        } catch (IOException e) {
+            throw new XmlPullParserException(e.getMessage());
         }
     }
 
@@ -178,4 +215,25 @@ public final class MavenUtils {
         String key = Utils.normalizePath(pomFileObject, root);
         return Collections.singletonMap(key, getLicenses(pomFileObject, project));
     }
+
+    /**
+     * Gets the licenses for the given POM file object (if any) as a map with the GAV as key and the list of licenses as
+     * the value (which may be empty). The POM model is looked up in the given cache first.
+     *
+     * @param pomFileObject the POM file object
+     * @param modelCache the POM model cache
+     * @return a map with the key the GAV of the POM file and the value the list of licenses (which may be empty)
+     * @throws InterpolationException if an error occurs while interpolating the Maven properties
+     * @throws IOException if an error occurs when reading from the file
+     * @throws XmlPullParserException if an error occurs when parsing the POM file
+     */
+    public static Map<String, List<LicenseInfo>> getLicenses(
+            String root,
+            FileObject pomFileObject,
+            ConcurrentMap<String, Model> modelCache)
+            throws IOException, XmlPullParserException, InterpolationException {
+        MavenProject project = getMavenProject(pomFileObject, modelCache);
+        String key = Utils.normalizePath(pomFileObject, root);
+        return Collections.singletonMap(key, getLicenses(pomFileObject, project));
+    }
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+/**
+ * A registry which receives the metrics recorded through {@link BuildFinderMetrics}, for example to bridge them to
+ * Micrometer or Dropwizard Metrics. The tags of a metric are given as alternating keys and values.
+ */
+public interface MetricsRegistry {
+    /**
+     * Adds the given amount to a counter.
+     *
+     * @param name the counter name
+     * @param amount the amount to add
+     * @param tags the tag keys and values
+     */
+    void count(String name, long amount, String... tags);
+
+    /**
+     * Records a duration in a timer.
+     *
+     * @param name the timer name
+     * @param nanos the duration in nanoseconds
+     * @param tags the tag keys and values
+     */
+    void time(String name, long nanos, String... tags);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.nio.file.Path;
+
+/**
+ * Format of the checksums and builds files.
+ */
+public enum OutputFormat {
+    /**
+     * JSON, which is the default.
+     */
+    json(".json"),
+    /**
+     * Smile, the binary form of JSON, which is smaller and faster to parse.
+     */
+    smile(".smile");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the format of the given file from its extension. Any file without the extension of another format is
+     * considered to be JSON.
+     *
+     * @param path the file
+     * @return the format of the file
+     */
+    public static OutputFormat fromPath(Path path) {
+        Path filename = path.getFileName();
+        return filename != null && filename.toString().endsWith(smile.extension) ? smile : json;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
@@ -68,12 +68,26 @@ public class PncBuildFinder {
 
     public FindBuildsResult findBuildsPnc(Map<Checksum, Collection<String>> checksumTable)
             throws RemoteResourceException {
+        return findBuildsPnc(checksumTable, null);
+    }
+
+    /**
+     * Finds the builds of the given files in PNC, looking up each file by its checksum of the given type whenever it
+     * has one.
+     *
+     * @param checksumTable the files by checksum
+     * @param checksumType the preferred checksum type, or null to look up the files by the given checksums
+     * @return the result
+     * @throws RemoteResourceException if an error occurs while looking up the files
+     */
+    public FindBuildsResult findBuildsPnc(Map<Checksum, Collection<String>> checksumTable, ChecksumType checksumType)
+            throws RemoteResourceException {
         if (checksumTable == null || checksumTable.isEmpty()) {
             LOGGER.warn("PNC Checksum table is empty");
             return new FindBuildsResult();
         }
 
-        Set<EnhancedArtifact> artifacts = lookupArtifactsInPnc(new ConcurrentHashMap<>(checksumTable));
+        Set<EnhancedArtifact> artifacts = lookupArtifactsInPnc(new ConcurrentHashMap<>(checksumTable), checksumType);
 
         ConcurrentHashMap<String, PncBuild> pncBuilds = groupArtifactsAsPncBuilds(artifacts);
 
@@ -145,12 +159,17 @@ public class PncBuildFinder {
         }
     }
 
-    private Set<EnhancedArtifact> lookupArtifactsInPnc(ConcurrentHashMap<Checksum, Collection<String>> checksumTable)
-            throws RemoteResourceException {
+    private Set<EnhancedArtifact> lookupArtifactsInPnc(
+            ConcurrentHashMap<Checksum, Collection<String>> checksumTable,
+            ChecksumType checksumType) throws RemoteResourceException {
         Set<EnhancedArtifact> artifacts = ConcurrentHashMap.newKeySet();
         RemoteResourceExceptionWrapper exceptionWrapper = new RemoteResourceExceptionWrapper();
 
-        checksumTable.forEach(concurrentMapParallelismThreshold, (checksum, fileNames) -> {
+        checksumTable.forEach(concurrentMapParallelismThreshold, (fileChecksum, fileNames) -> {
+            Checksum checksum = checksumType != null
+                    ? buildFinderUtils.getPreferredChecksum(fileChecksum, fileNames, checksumType)
+                    : fileChecksum;
+
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug(
                         "Parallel execution of lookupArtifactsInPnc using thread {} of an artifact with checksum {}",
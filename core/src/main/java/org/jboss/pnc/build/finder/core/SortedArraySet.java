@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A mutable set of comparable elements kept sorted in an array.
+ * <p>
+ * Iteration follows the natural ordering of the elements, like a {@link java.util.TreeSet}. The array is only
+ * allocated when the first element is added and then grows with the set, so an empty set takes no storage for
+ * elements and a set with a single element takes an array of length one. Lookups use a binary search, and insertions
+ * and removals shift the array, which is cheap for the small sets this is meant for.
+ *
+ * @param <E> the type of the elements
+ */
+public final class SortedArraySet<E extends Comparable<? super E>> extends AbstractSet<E> {
+    private static final Object[] EMPTY = {};
+
+    private Object[] elements;
+
+    private int size;
+
+    private int modCount;
+
+    public SortedArraySet() {
+        this.elements = EMPTY;
+    }
+
+    public SortedArraySet(Collection<? extends E> c) {
+        this.elements = c.isEmpty() ? EMPTY : new Object[c.size()];
+        addAll(c);
+    }
+
+    private int indexOf(Object o) {
+        return Arrays.binarySearch(elements, 0, size, Objects.requireNonNull(o));
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = indexOf(e);
+
+        if (index >= 0) {
+            return false;
+        }
+
+        index = -(index + 1);
+
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+        }
+
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = e;
+        size++;
+        modCount++;
+
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o == null) {
+            return false;
+        }
+
+        int index = indexOf(o);
+
+        if (index < 0) {
+            return false;
+        }
+
+        removeAt(index);
+
+        return true;
+    }
+
+    private void removeAt(int index) {
+        int numMoved = size - index - 1;
+
+        if (numMoved > 0) {
+            System.arraycopy(elements, index + 1, elements, index, numMoved);
+        }
+
+        elements[--size] = null;
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        elements = EMPTY;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    private final class Itr implements Iterator<E> {
+        private int cursor;
+
+        private int lastReturned = -1;
+
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (cursor >= size) {
+                throw new NoSuchElementException();
+            }
+
+            lastReturned = cursor++;
+
+            return (E) elements[lastReturned];
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0) {
+                throw new IllegalStateException();
+            }
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.spdx.core.InvalidSPDXAnalysisException;
+import org.spdx.library.LicenseInfoFactory;
+import org.spdx.library.model.v3_0_1.expandedlicensing.ListedLicense;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * A precomputed index of the SPDX license list, containing the identifier, name, and normalized seeAlso URLs of each
+ * listed license.
+ * <p>
+ * The index is generated in the Smile format when the core module is built (see {@link #main(String[])}) and is bundled
+ * as the resource <code>build-finder-spdx-index.smile</code>. Loading it avoids fetching every listed license through
+ * the SPDX library on each start.
+ */
+public final class SpdxLicenseIndex {
+    static final String FILENAME = "build-finder-spdx-index.smile";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(
+            SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build());
+
+    private String licenseListVersion;
+
+    private List<LicenseEntry> licenses;
+
+    public SpdxLicenseIndex() {
+        licenses = new ArrayList<>();
+    }
+
+    /**
+     * Generates the index from the SPDX license list of the SPDX library and writes it to the given file. The bundled
+     * license mapping files are then validated against the generated index, so that an invalid mapping fails the
+     * build.
+     *
+     * @param args the output file
+     * @throws IOException if an error occurs while writing the file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: " + SpdxLicenseIndex.class.getName() + " <output file>");
+        }
+
+        Path path = Path.of(args[0]);
+
+        // A stale index left from an earlier build must not be picked up by the validation below
+        Files.deleteIfExists(path);
+
+        SpdxLicenseIndex index = create();
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            index.write(out);
+        }
+
+        SpdxLicenseUtils.validateLicenseMappings();
+    }
+
+    /**
+     * Creates the index from the SPDX license list of the SPDX library.
+     *
+     * @return the index
+     */
+    public static SpdxLicenseIndex create() {
+        SpdxLicenseIndex index = new SpdxLicenseIndex();
+        index.licenseListVersion = LicenseInfoFactory.getLicenseListVersion();
+        List<String> ids = Utils.retry(LicenseInfoFactory::getSpdxListedLicenseIds);
+
+        for (String id : ids) {
+            index.licenses.add(Utils.retry(() -> createEntry(id)));
+        }
+
+        return index;
+    }
+
+    private static LicenseEntry createEntry(String id) {
+        try {
+            ListedLicense listedLicense = LicenseInfoFactory.getListedLicenseById(id);
+            LicenseEntry entry = new LicenseEntry();
+            entry.setId(listedLicense.getId());
+            entry.setName(listedLicense.getName().orElse(null));
+            entry.setSeeAlso(
+                    listedLicense.getSeeAlsos()
+                            .stream()
+                            .filter(LicenseUtils::isUrl)
+                            .map(LicenseUtils::normalizeLicenseUrl)
+                            .toList());
+            return entry;
+        } catch (InvalidSPDXAnalysisException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Loads the bundled index, if present.
+     *
+     * @return the bundled index, or empty if the resource is not present
+     * @throws IOException if an error occurs while reading the index
+     */
+    public static Optional<SpdxLicenseIndex> load() throws IOException {
+        try (InputStream in = SpdxLicenseIndex.class.getClassLoader().getResourceAsStream(FILENAME)) {
+            if (in == null) {
+                return Optional.empty();
+            }
+
+            return Optional.of(read(in));
+        }
+    }
+
+    static SpdxLicenseIndex read(InputStream in) throws IOException {
+        return MAPPER.readValue(in, SpdxLicenseIndex.class);
+    }
+
+    void write(OutputStream out) throws IOException {
+        MAPPER.writeValue(out, this);
+    }
+
+    public String getLicenseListVersion() {
+        return licenseListVersion;
+    }
+
+    public void setLicenseListVersion(String licenseListVersion) {
+        this.licenseListVersion = licenseListVersion;
+    }
+
+    public List<LicenseEntry> getLicenses() {
+        return Collections.unmodifiableList(licenses);
+    }
+
+    public void setLicenses(List<LicenseEntry> licenses) {
+        this.licenses = new ArrayList<>(licenses);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SpdxLicenseIndex that = (SpdxLicenseIndex) o;
+        return Objects.equals(licenseListVersion, that.licenseListVersion) && Objects.equals(licenses, that.licenses);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(licenseListVersion, licenses);
+    }
+
+    @Override
+    public String toString() {
+        return "SpdxLicenseIndex: licenseListVersion: " + licenseListVersion + ", licenses: " + licenses.size();
+    }
+
+    /**
+     * An SPDX listed license in the index.
+     */
+    public static final class LicenseEntry {
+        private String id;
+
+        private String name;
+
+        private List<String> seeAlso;
+
+        public LicenseEntry() {
+            seeAlso = Collections.emptyList();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Gets the license name.
+         *
+         * @return the license name (which may be <code>null</code>)
+         */
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the seeAlso URLs of the license, normalized with {@link LicenseUtils#normalizeLicenseUrl(String)}.
+         *
+         * @return the normalized seeAlso URLs
+         */
+        public List<String> getSeeAlso() {
+            return seeAlso;
+        }
+
+        public void setSeeAlso(List<String> seeAlso) {
+            this.seeAlso = List.copyOf(seeAlso);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            LicenseEntry that = (LicenseEntry) o;
+            return Objects.equals(id, that.id) && Objects.equals(name, that.name)
+                    && Objects.equals(seeAlso, that.seeAlso);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, seeAlso);
+        }
+
+        @Override
+        public String toString() {
+            return "LicenseEntry: id: " + id + ", name: " + name + ", seeAlso: " + seeAlso;
+        }
+    }
+}
@@ -22,19 +22,23 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.spdx.library.LicenseInfoFactory.NOASSERTION_LICENSE_NAME;
 import static org.spdx.library.LicenseInfoFactory.NONE_LICENSE_NAME;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.vfs2.FileContent;
@@ -72,73 +76,166 @@ public final class SpdxLicenseUtils {
 
     private static final int EXPECTED_NUM_SPDX_LICENSES = 1024;
 
+    private static final int MAX_NORMALIZED_LICENSE_URLS = 65536;
+
+    private static final int LICENSE_MAPPING_VERSION_LENGTH = 16;
+
     private static final Map<String, List<String>> LICENSE_MAPPINGS_MAP;
 
-    private static Map<String, ListedLicense> LICENSE_IDS_MAP;
+    private static final String LICENSE_MAPPING_VERSION;
+
+    private static final String LICENSE_LIST_VERSION;
 
-    private static Map<String, ListedLicense> LICENSE_NAMES_MAP;
+    private static final Map<String, SpdxLicenseIndex.LicenseEntry> LICENSE_IDS_MAP;
+
+    private static final Map<String, SpdxLicenseIndex.LicenseEntry> LICENSE_NAMES_MAP;
 
     private static final Map<String, String> LICENSE_IDS_DEPRECATED_MAP;
 
-    private static List<String> LICENSE_IDS_LIST;
+    private static final List<String> LICENSE_IDS_LIST;
 
-    private static List<String> LICENSE_NAMES_LIST;
+    private static final List<String> LICENSE_NAMES_LIST;
 
-    static {
-        LICENSE_IDS_MAP = new LinkedHashMap<>(EXPECTED_NUM_SPDX_LICENSES);
-        List<String> listedLicenseIds = getListedLicenseIds();
-        LICENSE_IDS_LIST = listedLicenseIds.stream()
-                .sorted(comparing(String::length).reversed().thenComparing(naturalOrder()))
-                .toList();
-        LICENSE_NAMES_MAP = new LinkedHashMap<>(EXPECTED_NUM_SPDX_LICENSES);
-        LICENSE_NAMES_LIST = new ArrayList<>(EXPECTED_NUM_SPDX_LICENSES);
+    private static final LicenseNameMatcher LICENSE_IDS_MATCHER;
 
-        for (String id : LICENSE_IDS_LIST) {
-            Utils.retry(() -> addLicenseIdToMaps(id));
-        }
+    private static final LicenseNameMatcher LICENSE_NAMES_MATCHER;
+
+    private static final Map<String, String> LICENSE_SEE_ALSO_MAP;
 
-        LICENSE_IDS_MAP = Collections.unmodifiableMap(LICENSE_IDS_MAP);
-        LICENSE_NAMES_MAP = Collections.unmodifiableMap(LICENSE_NAMES_MAP);
-        LICENSE_IDS_LIST = Collections.unmodifiableList(LICENSE_IDS_LIST);
-        LICENSE_NAMES_LIST.sort(comparing(String::length).reversed().thenComparing(naturalOrder()));
-        LICENSE_NAMES_LIST = Collections.unmodifiableList(LICENSE_NAMES_LIST);
+    private static final Map<String, String> NORMALIZED_LICENSE_URLS = new ConcurrentHashMap<>();
 
+    static {
         try {
+            Optional<SpdxLicenseIndex> optionalIndex = SpdxLicenseIndex.load();
+            // The bundled index is generated by the build, which also validates the mappings against it
+            boolean validate = optionalIndex.isEmpty();
+            SpdxLicenseIndex index = optionalIndex.orElseGet(SpdxLicenseIndex::create);
+            Map<String, SpdxLicenseIndex.LicenseEntry> entries = new HashMap<>(EXPECTED_NUM_SPDX_LICENSES);
+
+            for (SpdxLicenseIndex.LicenseEntry entry : index.getLicenses()) {
+                entries.put(entry.getId(), entry);
+            }
+
+            LICENSE_IDS_LIST = entries.keySet()
+                    .stream()
+                    .sorted(comparing(String::length).reversed().thenComparing(naturalOrder()))
+                    .toList();
+            Map<String, SpdxLicenseIndex.LicenseEntry> idsMap = new LinkedHashMap<>(EXPECTED_NUM_SPDX_LICENSES);
+            Map<String, SpdxLicenseIndex.LicenseEntry> namesMap = new LinkedHashMap<>(EXPECTED_NUM_SPDX_LICENSES);
+
+            // The maps are filled in the order of the identifiers list, which decides which license comes first
+            for (String id : LICENSE_IDS_LIST) {
+                SpdxLicenseIndex.LicenseEntry entry = entries.get(id);
+                idsMap.put(id, entry);
+
+                if (entry.getName() != null) {
+                    namesMap.put(entry.getName(), entry);
+                }
+            }
+
+            Map<String, String> seeAlsoMap = new HashMap<>(EXPECTED_NUM_SPDX_LICENSES * 4);
+
+            /*
+             * If several licenses share a seeAlso URL, the first license in the identifiers list wins, which is the
+             * license a linear search of the identifiers map in that order finds first
+             */
+            for (String id : LICENSE_IDS_LIST) {
+                for (String seeAlso : idsMap.get(id).getSeeAlso()) {
+                    seeAlsoMap.putIfAbsent(seeAlso, id);
+                }
+            }
+
+            LICENSE_LIST_VERSION = index.getLicenseListVersion();
+            LICENSE_IDS_MAP = Collections.unmodifiableMap(idsMap);
+            LICENSE_NAMES_MAP = Collections.unmodifiableMap(namesMap);
+            LICENSE_SEE_ALSO_MAP = Collections.unmodifiableMap(seeAlsoMap);
+            LICENSE_NAMES_LIST = index.getLicenses()
+                    .stream()
+                    .map(SpdxLicenseIndex.LicenseEntry::getName)
+                    .filter(Objects::nonNull)
+                    .sorted(comparing(String::length).reversed().thenComparing(naturalOrder()))
+                    .toList();
+            LICENSE_IDS_MATCHER = new LicenseNameMatcher(
+                    LICENSE_IDS_LIST,
+                    licenseId -> StringUtils.replace(licenseId, "-only", ""),
+                    false);
+            LICENSE_NAMES_MATCHER = new LicenseNameMatcher(
+                    LICENSE_NAMES_LIST,
+                    spdxLicenseName -> StringUtils.replace(spdxLicenseName, " only", ""),
+                    true);
+
             // XXX: Should be moved to an external file
             LICENSE_IDS_DEPRECATED_MAP = loadLicenseDeprecated();
 
+            byte[] mappingBytes;
+
             try (InputStream in = LicenseUtils.class.getClassLoader()
                     .getResourceAsStream(LICENSE_MAPPING_FILENAME)) {
-                LICENSE_MAPPINGS_MAP = Collections.unmodifiableMap(JSONUtils.loadLicenseMapping(in));
-                validateLicenseMapping();
+                mappingBytes = in.readAllBytes();
+            }
+
+            LICENSE_MAPPINGS_MAP = Collections
+                    .unmodifiableMap(JSONUtils.loadLicenseMapping(new ByteArrayInputStream(mappingBytes)));
+            LICENSE_MAPPING_VERSION = DigestUtils.sha256Hex(mappingBytes).substring(0, LICENSE_MAPPING_VERSION_LENGTH);
+
+            if (validate) {
+                validateLicenseMappings();
             }
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
     }
 
+    /*
+     * The license texts are only needed to match license files, so they are fetched on first use.
+     */
+    private static final class LicenseTextsHolder {
+        private static final List<ListedLicense> LICENSES = LICENSE_IDS_TEXT_LIST.stream()
+                .map(id -> Utils.retry(() -> getListedLicense(id)))
+                .toList();
+
+        private static final List<LicenseTextFingerprint> FINGERPRINTS = LICENSES.stream()
+                .map(SpdxLicenseUtils::getLicenseTextFingerprint)
+                .toList();
+
+        private LicenseTextsHolder() {
+
+        }
+    }
+
     private SpdxLicenseUtils() {
         throw new IllegalArgumentException("This is a utility class and cannot be instantiated");
     }
 
-    private static List<String> getListedLicenseIds() {
-        return Utils.retry(LicenseInfoFactory::getSpdxListedLicenseIds);
+    private static ListedLicense getListedLicense(String id) {
+        try {
+            return LicenseInfoFactory.getListedLicenseById(id);
+        } catch (InvalidSPDXAnalysisException e) {
+            throw new IllegalArgumentException(e);
+        }
     }
 
-    private static ListedLicense addLicenseIdToMaps(String id) {
+    static LicenseTextFingerprint getLicenseTextFingerprint(ListedLicense listedLicense) {
         try {
-            ListedLicense listedLicense = LicenseInfoFactory.getListedLicenseById(id);
-            LICENSE_IDS_MAP.put(listedLicense.getId(), listedLicense);
-            listedLicense.getName().ifPresent(licenseName -> {
-                LICENSE_NAMES_MAP.put(licenseName, listedLicense);
-                LICENSE_NAMES_LIST.add(licenseName);
-            });
-            return listedLicense;
+            Optional<String> template = listedLicense.getStandardLicenseTemplate();
+            String text = template.isPresent() ? template.get() : listedLicense.getLicenseText();
+            return LicenseTextFingerprint.of(Objects.requireNonNullElse(text, EMPTY));
         } catch (InvalidSPDXAnalysisException e) {
-            throw new IllegalArgumentException(e);
+            // An empty fingerprint does not filter out any text
+            return LicenseTextFingerprint.of(EMPTY);
         }
     }
 
+    /**
+     * Validates the bundled license mapping and deprecated license files against the SPDX license list.
+     *
+     * @throws IllegalArgumentException if a license identifier in one of the files is not valid
+     */
+    static void validateLicenseMappings() {
+        validateLicenseDeprecated(LICENSE_IDS_DEPRECATED_MAP);
+        validateLicenseMapping();
+    }
+
     private static void validateLicenseMapping() {
         Set<String> licenseStrings = LICENSE_MAPPINGS_MAP.keySet();
 
@@ -157,7 +254,6 @@ public final class SpdxLicenseUtils {
             Map<String, String> map = new BuildFinderObjectMapper()
                     .readValue(in, new TypeReference<LinkedHashMap<String, String>>() {
                     });
-            validateLicenseDeprecated(map);
             return Collections.unmodifiableMap(map);
         }
     }
@@ -186,17 +282,13 @@ public final class SpdxLicenseUtils {
         }
 
         String currentLicenseId = getCurrentLicenseId(licenseId);
-        ListedLicense spdxListedLicense = LICENSE_IDS_MAP.get(currentLicenseId);
+        SpdxLicenseIndex.LicenseEntry entry = LICENSE_IDS_MAP.get(currentLicenseId);
 
-        if (spdxListedLicense == null) {
+        if (entry == null) {
             return EMPTY;
         }
 
-        try {
-            return spdxListedLicense.getName().orElse(EMPTY);
-        } catch (InvalidSPDXAnalysisException e) {
-            return EMPTY;
-        }
+        return Objects.requireNonNullElse(entry.getName(), EMPTY);
     }
 
     /**
@@ -212,28 +304,25 @@ public final class SpdxLicenseUtils {
      * </ol>
      * Words are searched for in order ignoring case and punctuation. Words are tokenized according to whitespace (for
      * the name) and slashes (for the URL). Additionally, numeric versions are currently treated as separate tokens,
-     * e.g., 1.0 is treated as the word "1" and the word "0".
+     * e.g., 1.0 is treated as the word "1" and the word "0". The SPDX lists are tokenized once, when this class is
+     * initialized.
      *
      * @param licenseName the license name
      * @return the license URL (which may be <code>null</code>)
      */
     public static Optional<String> findMatchingLicenseName(String licenseName, String licenseUrl) {
-        for (String licenseId : LICENSE_IDS_LIST) {
-            if (LicenseUtils.containsWordsInSameOrder(licenseName, StringUtils.replace(licenseId, "-only", ""))
-                    || LicenseUtils.containsWordsInSameOrder(licenseUrl, licenseId)) {
-                return Optional.of(getCurrentLicenseId(licenseId));
-            }
+        int index = LICENSE_IDS_MATCHER.indexOf(licenseName, licenseUrl);
+
+        if (index != -1) {
+            return Optional.of(getCurrentLicenseId(LICENSE_IDS_LIST.get(index)));
         }
 
-        for (String spdxLicenseName : LICENSE_NAMES_LIST) {
-            if (spdxLicenseName.equalsIgnoreCase(licenseName)
-                    || LicenseUtils
-                            .containsWordsInSameOrder(licenseName, StringUtils.replace(spdxLicenseName, " only", ""))
-                    || LicenseUtils.containsWordsInSameOrder(licenseUrl, spdxLicenseName)) {
-                ListedLicense listedLicense = LICENSE_NAMES_MAP.get(spdxLicenseName);
-                String licenseId = getCurrentLicenseId(listedLicense.getId());
-                return Optional.of(licenseId);
-            }
+        index = LICENSE_NAMES_MATCHER.indexOf(licenseName, licenseUrl);
+
+        if (index != -1) {
+            SpdxLicenseIndex.LicenseEntry entry = LICENSE_NAMES_MAP.get(LICENSE_NAMES_LIST.get(index));
+            String licenseId = getCurrentLicenseId(entry.getId());
+            return Optional.of(licenseId);
         }
 
         return Optional.empty();
@@ -254,24 +343,39 @@ public final class SpdxLicenseUtils {
 
         try (FileContent fc = licenseFileObject.getContent(); InputStream in = fc.getInputStream()) {
             String licenseText = new String(in.readAllBytes(), UTF_8);
-            return LICENSE_IDS_TEXT_LIST.stream()
-                    .map(id -> LICENSE_IDS_MAP.get(id))
-                    .map(license -> findMatchingSPDXLicenseIdentifier(license, licenseText))
-                    .flatMap(Optional::stream)
-                    .findAny()
-                    .or(() -> findMatchingSPDXLicenseIdentifierOrLicense(licenseText));
+            return findMatchingLicenseText(licenseText);
         } catch (IOException e) {
             return Optional.empty();
         }
     }
 
+    /**
+     * Finds a matching SPDX license identifier for the given license text, if any. Unlike
+     * {@link #findMatchingLicense(FileObject)}, the name of the license file is not considered, so the result only
+     * depends on the text. The SPDX template comparison is skipped for licenses whose fingerprint rules out a match.
+     *
+     * @param licenseText the license text
+     * @return the matching license identifier, if any
+     */
+    public static Optional<String> findMatchingLicenseText(String licenseText) {
+        List<ListedLicense> licenses = LicenseTextsHolder.LICENSES;
+        List<LicenseTextFingerprint> fingerprints = LicenseTextsHolder.FINGERPRINTS;
+        Set<String> words = LicenseTextFingerprint.words(licenseText);
+        return IntStream.range(0, licenses.size())
+                .filter(i -> fingerprints.get(i).mayMatch(words))
+                .mapToObj(i -> findMatchingSPDXLicenseIdentifier(licenses.get(i), licenseText))
+                .flatMap(Optional::stream)
+                .findAny()
+                .or(() -> findMatchingSPDXLicenseIdentifierOrLicense(licenseText));
+    }
+
     /**
      * Returns whether this SPDX license identifier is known.
      *
      * @param licenseId the SPDX license identifier
      */
     public static boolean isKnownLicenseId(String licenseId) {
-        return LICENSE_IDS_LIST.contains(licenseId);
+        return LICENSE_IDS_MAP.containsKey(licenseId);
     }
 
     /**
@@ -296,8 +400,8 @@ public final class SpdxLicenseUtils {
             return Optional.empty();
         }
 
-        ListedLicense listedLicense = LICENSE_IDS_MAP.get(licenseId);
-        return Optional.ofNullable(listedLicense != null ? getCurrentLicenseId(listedLicense.getId()) : null);
+        SpdxLicenseIndex.LicenseEntry entry = LICENSE_IDS_MAP.get(licenseId);
+        return Optional.ofNullable(entry != null ? getCurrentLicenseId(entry.getId()) : null);
     }
 
     static String getCurrentLicenseId(String licenseId) {
@@ -309,26 +413,33 @@ public final class SpdxLicenseUtils {
         return LICENSE_IDS_MAP.size();
     }
 
+    /*
+     * License URLs repeat across POM files, so their normalized form is memoized, up to a fixed number of URLs.
+     */
+    private static String getNormalizedLicenseUrl(String licenseUrl) {
+        String normalizedLicenseUrl = NORMALIZED_LICENSE_URLS.get(licenseUrl);
+
+        if (normalizedLicenseUrl == null) {
+            normalizedLicenseUrl = LicenseUtils.normalizeLicenseUrl(licenseUrl);
+
+            if (NORMALIZED_LICENSE_URLS.size() < MAX_NORMALIZED_LICENSE_URLS) {
+                NORMALIZED_LICENSE_URLS.put(licenseUrl, normalizedLicenseUrl);
+            }
+        }
+
+        return normalizedLicenseUrl;
+    }
+
     static Optional<String> findMatchingLicenseSeeAlso(String licenseUrl) {
         if (!LicenseUtils.isUrl(licenseUrl)) {
             return Optional.empty();
         }
 
-        Collection<ListedLicense> values = LICENSE_IDS_MAP.values();
-
-        for (ListedLicense listedLicense : values) {
-            List<String> seeAlso = listedLicense.getSeeAlsos()
-                    .stream()
-                    .filter(LicenseUtils::isUrl)
-                    .map(LicenseUtils::normalizeLicenseUrl)
-                    .toList();
-
-            if (seeAlso.contains(LicenseUtils.normalizeLicenseUrl(licenseUrl))) {
-                return Optional.of(getCurrentLicenseId(listedLicense.getId()));
-            }
-        }
+        return findSeeAlsoLicenseId(getNormalizedLicenseUrl(licenseUrl)).map(SpdxLicenseUtils::getCurrentLicenseId);
+    }
 
-        return Optional.empty();
+    static Optional<String> findSeeAlsoLicenseId(String normalizedLicenseUrl) {
+        return Optional.ofNullable(LICENSE_SEE_ALSO_MAP.get(normalizedLicenseUrl));
     }
 
     /**
@@ -538,8 +649,8 @@ public final class SpdxLicenseUtils {
 
             for (String licenseNameOrUrl : licenseNamesOrUrls) {
                 if (LicenseUtils.isUrl(licenseString, licenseNameOrUrl)) {
-                    String normalizedLicenseString = LicenseUtils.normalizeLicenseUrl(licenseString);
-                    String normalizedNameOrUrl = LicenseUtils.normalizeLicenseUrl(licenseNameOrUrl);
+                    String normalizedLicenseString = getNormalizedLicenseUrl(licenseString);
+                    String normalizedNameOrUrl = getNormalizedLicenseUrl(licenseNameOrUrl);
 
                     if (normalizedLicenseString.equals(normalizedNameOrUrl)) {
                         return Optional.of(getCurrentLicenseId(licenseId));
@@ -583,6 +694,16 @@ public final class SpdxLicenseUtils {
      * @return the version of the license list
      */
     public static String getSPDXLicenseListVersion() {
-        return LicenseInfoFactory.getLicenseListVersion();
+        return LICENSE_LIST_VERSION;
+    }
+
+    /**
+     * Gets the version of the license mapping file, which is a digest of its content, so that results depending on the
+     * mapping can be invalidated when it changes.
+     *
+     * @return the version of the license mapping
+     */
+    public static String getSpdxLicenseMappingVersion() {
+        return LICENSE_MAPPING_VERSION;
     }
 }
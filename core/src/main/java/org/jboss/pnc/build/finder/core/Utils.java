@@ -30,6 +30,7 @@ import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.text.FieldPosition;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
@@ -228,6 +229,26 @@ public final class Utils {
         return sb.toString();
     }
 
+    /**
+     * Sorts the given values and removes the duplicates.
+     *
+     * @param values the values, which are sorted in place
+     * @return the distinct values in ascending order, which may be the given array itself
+     */
+    public static int[] sortDistinct(int[] values) {
+        Arrays.sort(values);
+
+        int size = 0;
+
+        for (int value : values) {
+            if (size == 0 || value != values[size - 1]) {
+                values[size++] = value;
+            }
+        }
+
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+
     public static <T> T retry(Supplier<T> supplier) {
         int numRetries = 0;
         Exception exception = null;
@@ -17,10 +17,13 @@ package org.jboss.pnc.build.finder.koji;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.jboss.pnc.build.finder.core.BuildFinderObjectMapper;
 import org.jboss.pnc.build.finder.core.BuildSystemInteger;
+import org.jboss.pnc.build.finder.core.JSONUtils;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -33,8 +36,8 @@ public final class KojiJSONUtils {
 
     }
 
-    private static class MapTypeReference extends TypeReference<Map<BuildSystemInteger, KojiBuild>> {
-        MapTypeReference() {
+    private static class KojiBuildTypeReference extends TypeReference<KojiBuild> {
+        KojiBuildTypeReference() {
 
         }
     }
@@ -48,9 +51,25 @@ public final class KojiJSONUtils {
     }
 
     public static Map<BuildSystemInteger, KojiBuild> loadBuildsFile(Path path) throws IOException {
-        TypeReference<Map<BuildSystemInteger, KojiBuild>> typeReference = new MapTypeReference();
+        Map<BuildSystemInteger, KojiBuild> builds = new LinkedHashMap<>();
+        loadBuildsFile(path, builds::put);
+        return builds;
+    }
 
-        return MAPPER.readValue(path.toFile(), typeReference);
+    /**
+     * Loads the given builds file one build at a time, passing each build to the given consumer, so that the builds
+     * can go straight into their target structure.
+     *
+     * @param path the builds file
+     * @param consumer the consumer of the builds
+     * @throws IOException if an error occurs reading the file
+     */
+    public static void loadBuildsFile(Path path, BiConsumer<BuildSystemInteger, KojiBuild> consumer)
+            throws IOException {
+        JSONUtils.readMapEntries(
+                path,
+                new KojiBuildTypeReference(),
+                (key, build) -> consumer.accept(BuildSystemInteger.Deserializer.parse(key), build));
     }
 
 }
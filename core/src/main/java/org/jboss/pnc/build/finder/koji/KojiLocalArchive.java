@@ -16,10 +16,10 @@
 package org.jboss.pnc.build.finder.koji;
 
 import java.util.Collection;
-import java.util.TreeSet;
 
 import org.jboss.pnc.build.finder.core.Checksum;
 import org.jboss.pnc.build.finder.core.LicenseInfo;
+import org.jboss.pnc.build.finder.core.SortedArraySet;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -43,26 +43,26 @@ public class KojiLocalArchive {
     private Collection<LicenseInfo> licenses;
 
     public KojiLocalArchive() {
-        this.filenames = new TreeSet<>();
-        this.checksums = new TreeSet<>();
-        this.unmatchedFilenames = new TreeSet<>();
-        this.licenses = new TreeSet<>();
+        this.filenames = new SortedArraySet<>();
+        this.checksums = new SortedArraySet<>();
+        this.unmatchedFilenames = new SortedArraySet<>();
+        this.licenses = new SortedArraySet<>();
     }
 
     public KojiLocalArchive(KojiArchiveInfo archive, Collection<String> filenames, Collection<Checksum> checksums) {
         this.archive = archive;
-        this.filenames = new TreeSet<>(filenames);
-        this.checksums = new TreeSet<>(checksums);
-        this.unmatchedFilenames = new TreeSet<>();
-        this.licenses = new TreeSet<>();
+        this.filenames = new SortedArraySet<>(filenames);
+        this.checksums = new SortedArraySet<>(checksums);
+        this.unmatchedFilenames = new SortedArraySet<>();
+        this.licenses = new SortedArraySet<>();
     }
 
     public KojiLocalArchive(KojiRpmInfo rpm, Collection<String> filenames, Collection<Checksum> checksums) {
         this.rpm = rpm;
-        this.filenames = new TreeSet<>(filenames);
-        this.checksums = new TreeSet<>(checksums);
-        this.unmatchedFilenames = new TreeSet<>();
-        this.licenses = new TreeSet<>();
+        this.filenames = new SortedArraySet<>(filenames);
+        this.checksums = new SortedArraySet<>(checksums);
+        this.unmatchedFilenames = new SortedArraySet<>();
+        this.licenses = new SortedArraySet<>();
     }
 
     public static boolean isMissingBuildTypeInfo(KojiArchiveInfo archive) {
@@ -105,7 +105,7 @@ public class KojiLocalArchive {
     }
 
     public void setFilenames(Collection<String> filenames) {
-        this.filenames = new TreeSet<>(filenames);
+        this.filenames = new SortedArraySet<>(filenames);
     }
 
     public Collection<Checksum> getChecksums() {
@@ -113,7 +113,7 @@ public class KojiLocalArchive {
     }
 
     public void setChecksums(Collection<Checksum> checksums) {
-        this.checksums = new TreeSet<>(checksums);
+        this.checksums = new SortedArraySet<>(checksums);
     }
 
     @JsonIgnore
@@ -126,7 +126,7 @@ public class KojiLocalArchive {
     }
 
     public void setUnmatchedFilenames(Collection<String> unmatchedFilenames) {
-        this.unmatchedFilenames = new TreeSet<>(unmatchedFilenames);
+        this.unmatchedFilenames = new SortedArraySet<>(unmatchedFilenames);
     }
 
     public Collection<LicenseInfo> getLicenses() {
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.koji;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
+
+import com.redhat.red.build.koji.KojiClientException;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveQuery;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveType;
+import com.redhat.red.build.koji.model.xmlrpc.KojiBuildInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiIdOrName;
+import com.redhat.red.build.koji.model.xmlrpc.KojiRpmInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiTagInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiTaskInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiTaskRequest;
+
+/**
+ * A client session which records the latency of each Koji call by method and by the number of calls in a multicall,
+ * so that the multicall size can be tuned. The number of calls is recorded as a range, which keeps the number of
+ * timers small.
+ */
+public final class MeteredClientSession implements ClientSession {
+    private static final String METHOD_TAG = "method";
+
+    private static final String SIZE_TAG = "size";
+
+    private final ClientSession session;
+
+    private final BuildFinderMetrics metrics;
+
+    public MeteredClientSession(ClientSession session, BuildFinderMetrics metrics) {
+        this.session = session;
+        this.metrics = metrics;
+    }
+
+    private <T> T time(String method, int size, KojiCall<T> call) throws KojiClientException {
+        long startNanos = BuildFinderMetrics.start();
+
+        try {
+            return call.call();
+        } finally {
+            metrics.stop(BuildFinderMetrics.KOJI_CALLS, startNanos, METHOD_TAG, method, SIZE_TAG, getSizeRange(size));
+        }
+    }
+
+    /**
+     * Gets the range of multicall sizes that the given size is recorded in: 1, 2-10, 11-100, 101-1000, or 1001+.
+     *
+     * @param size the number of calls
+     * @return the range
+     */
+    static String getSizeRange(int size) {
+        if (size <= 1) {
+            return "1";
+        }
+
+        if (size <= 10) {
+            return "2-10";
+        }
+
+        if (size <= 100) {
+            return "11-100";
+        }
+
+        return size <= 1000 ? "101-1000" : "1001+";
+    }
+
+    @Override
+    public List<KojiArchiveInfo> listArchives(KojiArchiveQuery query) throws KojiClientException {
+        return time("listArchives", 1, () -> session.listArchives(query));
+    }
+
+    @Override
+    public Map<String, KojiArchiveType> getArchiveTypeMap() throws KojiClientException {
+        return time("getArchiveTypeMap", 1, session::getArchiveTypeMap);
+    }
+
+    @Override
+    public KojiBuildInfo getBuild(int buildId) throws KojiClientException {
+        return time("getBuild", 1, () -> session.getBuild(buildId));
+    }
+
+    @Override
+    public KojiTaskInfo getTaskInfo(int taskId, boolean request) throws KojiClientException {
+        return time("getTaskInfo", 1, () -> session.getTaskInfo(taskId, request));
+    }
+
+    @Override
+    public KojiTaskRequest getTaskRequest(int taskId) throws KojiClientException {
+        return time("getTaskRequest", 1, () -> session.getTaskRequest(taskId));
+    }
+
+    @Override
+    public List<KojiTagInfo> listTags(int id) throws KojiClientException {
+        return time("listTags", 1, () -> session.listTags(id));
+    }
+
+    @Override
+    public void enrichArchiveTypeInfo(List<KojiArchiveInfo> archiveInfos) throws KojiClientException {
+        time("enrichArchiveTypeInfo", archiveInfos.size(), () -> {
+            session.enrichArchiveTypeInfo(archiveInfos);
+            return null;
+        });
+    }
+
+    @Override
+    public List<List<KojiArchiveInfo>> listArchives(List<KojiArchiveQuery> queries) throws KojiClientException {
+        return time("listArchives", queries.size(), () -> session.listArchives(queries));
+    }
+
+    @Override
+    public List<KojiBuildInfo> getBuild(List<KojiIdOrName> idsOrNames) throws KojiClientException {
+        return time("getBuild", idsOrNames.size(), () -> session.getBuild(idsOrNames));
+    }
+
+    @Override
+    public List<KojiRpmInfo> getRPM(List<KojiIdOrName> idsOrNames) throws KojiClientException {
+        return time("getRPM", idsOrNames.size(), () -> session.getRPM(idsOrNames));
+    }
+
+    @Override
+    public List<KojiTaskInfo> getTaskInfo(List<Integer> taskIds, List<Boolean> requests) throws KojiClientException {
+        return time("getTaskInfo", taskIds.size(), () -> session.getTaskInfo(taskIds, requests));
+    }
+
+    @Override
+    public List<List<KojiRpmInfo>> listBuildRPMs(List<KojiIdOrName> idsOrNames) throws KojiClientException {
+        return time("listBuildRPMs", idsOrNames.size(), () -> session.listBuildRPMs(idsOrNames));
+    }
+
+    @Override
+    public List<List<KojiTagInfo>> listTags(List<KojiIdOrName> idsOrNames) throws KojiClientException {
+        return time("listTags", idsOrNames.size(), () -> session.listTags(idsOrNames));
+    }
+
+    @FunctionalInterface
+    private interface KojiCall<T> {
+        T call() throws KojiClientException;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.pnc.client;
+
+import org.jboss.pnc.build.finder.core.BuildFinderMetrics;
+import org.jboss.pnc.client.RemoteCollection;
+import org.jboss.pnc.client.RemoteResourceException;
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.BuildPushResult;
+import org.jboss.pnc.dto.ProductVersion;
+
+/**
+ * Adapter which records the latency of each PNC request by method. It is meant to be wrapped by the
+ * {@link CachingPncClient}, so that only the requests actually sent to PNC are recorded. Note that only the first
+ * page of a {@link RemoteCollection} is fetched within the recorded time.
+ */
+public class MeteredPncClient implements PncClient {
+    private static final String METHOD_TAG = "method";
+
+    private final PncClient pncClient;
+
+    private final BuildFinderMetrics metrics;
+
+    public MeteredPncClient(PncClient pncClient, BuildFinderMetrics metrics) {
+        this.pncClient = pncClient;
+        this.metrics = metrics;
+    }
+
+    private <T> T time(String method, PncCall<T> call) throws RemoteResourceException {
+        long startNanos = BuildFinderMetrics.start();
+
+        try {
+            return call.call();
+        } finally {
+            metrics.stop(BuildFinderMetrics.PNC_REQUESTS, startNanos, METHOD_TAG, method);
+        }
+    }
+
+    @Override
+    public RemoteCollection<Artifact> getArtifactsByMd5(String md5) throws RemoteResourceException {
+        return time("getArtifactsByMd5", () -> pncClient.getArtifactsByMd5(md5));
+    }
+
+    @Override
+    public RemoteCollection<Artifact> getArtifactsBySha1(String sha1) throws RemoteResourceException {
+        return time("getArtifactsBySha1", () -> pncClient.getArtifactsBySha1(sha1));
+    }
+
+    @Override
+    public RemoteCollection<Artifact> getArtifactsBySha256(String sha256) throws RemoteResourceException {
+        return time("getArtifactsBySha256", () -> pncClient.getArtifactsBySha256(sha256));
+    }
+
+    @Override
+    public BuildPushResult getBuildPushResult(String buildId) throws RemoteResourceException {
+        return time("getBuildPushResult", () -> pncClient.getBuildPushResult(buildId));
+    }
+
+    @Override
+    public ProductVersion getProductVersion(String productMilestoneId) throws RemoteResourceException {
+        return time("getProductVersion", () -> pncClient.getProductVersion(productMilestoneId));
+    }
+
+    @Override
+    public void close() {
+        pncClient.close();
+    }
+
+    @FunctionalInterface
+    private interface PncCall<T> {
+        T call() throws RemoteResourceException;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.protobuf;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.infinispan.protostream.annotations.ProtoAdapter;
+import org.infinispan.protostream.annotations.ProtoFactory;
+import org.infinispan.protostream.annotations.ProtoField;
+
+/**
+ * Marshalls a Maven POM model as its XML representation. The model is stored after interpolation, so reading it back
+ * does not need to interpolate it again.
+ */
+@ProtoAdapter(Model.class)
+public class MavenModelAdapter {
+    @ProtoFactory
+    Model create(String xmlData) {
+        try {
+            return new MavenXpp3Reader().read(new StringReader(xmlData));
+        } catch (IOException | XmlPullParserException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @ProtoField(number = 1)
+    String getXmlData(Model model) {
+        StringWriter writer = new StringWriter();
+
+        try {
+            new MavenXpp3Writer().write(writer, model);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        return writer.toString();
+    }
+}
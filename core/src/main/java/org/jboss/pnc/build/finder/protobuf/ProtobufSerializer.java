@@ -27,7 +27,8 @@ import org.jboss.pnc.build.finder.core.LocalFile;
                 KojiBuildAdapter.class,
                 PncArtifactAdapter.class,
                 ArtifactStaticRemoteCollection.class,
-                ListKojiArchiveInfoProtobufWrapper.class },
+                ListKojiArchiveInfoProtobufWrapper.class,
+                MavenModelAdapter.class },
         schemaFileName = "build-finder.proto",
         schemaFilePath = "proto/",
         schemaPackageName = "org.jboss.pnc.build.finder")
@@ -88,17 +88,26 @@ class BuildConfigTest {
         assertThat(bc.getCacheLifespan()).isEqualTo(ConfigDefaults.CACHE_LIFESPAN);
         assertThat(bc.getChecksumOnly()).isEqualTo(ConfigDefaults.CHECKSUM_ONLY);
         assertThat(bc.getChecksumTypes()).isEqualTo(ConfigDefaults.CHECKSUM_TYPES);
+        assertThat(bc.getCompactOutput()).isEqualTo(ConfigDefaults.COMPACT_OUTPUT);
         assertThat(bc.getDisableCache()).isEqualTo(ConfigDefaults.DISABLE_CACHE);
+        assertThat(bc.getDisableLicenses()).isEqualTo(ConfigDefaults.DISABLE_LICENSES);
         assertThat(bc.getDisableRecursion()).isEqualTo(ConfigDefaults.DISABLE_RECURSION);
         assertThat(bc.getExcludes()).isEqualTo(ConfigDefaults.EXCLUDES);
         assertThat(bc.getKojiHubURL()).isEqualTo(ConfigDefaults.KOJI_HUB_URL);
         assertThat(bc.getKojiMulticallSize()).isEqualTo(ConfigDefaults.KOJI_MULTICALL_SIZE);
         assertThat(bc.getKojiNumThreads()).isEqualTo(ConfigDefaults.KOJI_NUM_THREADS);
+        assertThat(bc.getKojiRetries()).isEqualTo(ConfigDefaults.KOJI_RETRIES);
+        assertThat(bc.getKojiRetryDelay()).isEqualTo(ConfigDefaults.KOJI_RETRY_DELAY);
         assertThat(bc.getKojiWebURL()).isEqualTo(ConfigDefaults.KOJI_WEB_URL);
+        assertThat(bc.getLicensesOnly()).isEqualTo(ConfigDefaults.LICENSES_ONLY);
+        assertThat(bc.getLookupStrategy()).isEqualTo(ConfigDefaults.LOOKUP_STRATEGY);
         assertThat(bc.getOutputDirectory()).isEqualTo(ConfigDefaults.OUTPUT_DIR);
+        assertThat(bc.getOutputFormat()).isEqualTo(ConfigDefaults.OUTPUT_FORMAT);
         assertThat(bc.getPncNumThreads()).isEqualTo(ConfigDefaults.PNC_NUM_THREADS);
         assertThat(bc.getPncPartitionSize()).isEqualTo(ConfigDefaults.PNC_PARTITION_SIZE);
         assertThat(bc.getPncURL()).isEqualTo(ConfigDefaults.PNC_URL);
+        assertThat(bc.getResume()).isEqualTo(ConfigDefaults.RESUME);
+        assertThat(bc.getSpillThreshold()).isEqualTo(ConfigDefaults.SPILL_THRESHOLD);
         assertThat(bc.getUseBuildsFile()).isEqualTo(ConfigDefaults.USE_BUILDS_FILE);
         assertThat(bc.getUseChecksumsFile()).isEqualTo(ConfigDefaults.USE_CHECKSUMS_FILE);
     }
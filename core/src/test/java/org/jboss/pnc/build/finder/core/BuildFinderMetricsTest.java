@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+class BuildFinderMetricsTest {
+    @Test
+    void testCount() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+
+        metrics.count(BuildFinderMetrics.CACHE_HITS, 2L, "cache", "a");
+        metrics.count(BuildFinderMetrics.CACHE_HITS, 3L, "cache", "a");
+        metrics.count(BuildFinderMetrics.CACHE_HITS, 1L, "cache", "b");
+
+        assertThat(metrics.getCount(BuildFinderMetrics.CACHE_HITS, "cache", "a")).isEqualTo(5L);
+        assertThat(metrics.getCount(BuildFinderMetrics.CACHE_HITS, "cache", "b")).isEqualTo(1L);
+        assertThat(metrics.getCount(BuildFinderMetrics.CACHE_HITS)).isZero();
+        assertThat(metrics.getCount(BuildFinderMetrics.CACHE_MISSES, "cache", "a")).isZero();
+    }
+
+    @Test
+    void testTime() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+
+        metrics.time(BuildFinderMetrics.KOJI_CALLS, TimeUnit.MILLISECONDS.toNanos(10L), "method", "getBuild");
+        metrics.time(BuildFinderMetrics.KOJI_CALLS, TimeUnit.MILLISECONDS.toNanos(30L), "method", "getBuild");
+
+        assertThat(metrics.getCount(BuildFinderMetrics.KOJI_CALLS, "method", "getBuild")).isEqualTo(2L);
+
+        @SuppressWarnings("unchecked")
+        Map<String, List<Map<String, Object>>> timers = (Map<String, List<Map<String, Object>>>) metrics.getSummary()
+                .get("timers");
+
+        assertThat(timers).containsOnlyKeys(BuildFinderMetrics.KOJI_CALLS);
+        assertThat(timers.get(BuildFinderMetrics.KOJI_CALLS)).singleElement().satisfies(timer -> {
+            assertThat(timer).containsEntry("tags", Map.of("method", "getBuild"));
+            assertThat(timer).containsEntry("count", 2L);
+            assertThat(timer).containsEntry("total-ms", 40.0D);
+            assertThat(timer).containsEntry("mean-ms", 20.0D);
+            assertThat(timer).containsEntry("max-ms", 30.0D);
+            assertThat(timer).containsEntry("per-second", 50.0D);
+        });
+    }
+
+    @Test
+    void testRegistry() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        List<String> recorded = new ArrayList<>();
+        metrics.addRegistry(new MetricsRegistry() {
+            @Override
+            public void count(String name, long amount, String... tags) {
+                recorded.add(name + '=' + amount);
+            }
+
+            @Override
+            public void time(String name, long nanos, String... tags) {
+                recorded.add(name + ':' + nanos);
+            }
+        });
+
+        metrics.count(BuildFinderMetrics.FINDER_BUILDS, 4L);
+        metrics.time(BuildFinderMetrics.FINDER_TIME, 7L);
+
+        assertThat(recorded).containsExactly(
+                BuildFinderMetrics.FINDER_BUILDS + "=4",
+                BuildFinderMetrics.FINDER_TIME + ":7");
+    }
+
+    @Test
+    void testHandles() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        List<String> recorded = new ArrayList<>();
+        metrics.addRegistry(new MetricsRegistry() {
+            @Override
+            public void count(String name, long amount, String... tags) {
+                recorded.add(name + '=' + amount + List.of(tags));
+            }
+
+            @Override
+            public void time(String name, long nanos, String... tags) {
+                recorded.add(name + ':' + nanos + List.of(tags));
+            }
+        });
+
+        BuildFinderMetrics.Counter counter = metrics.counter(BuildFinderMetrics.ANALYZER_BYTES, "depth", "1");
+        BuildFinderMetrics.Timer timer = metrics.timer(BuildFinderMetrics.ANALYZER_FILES, "depth", "1");
+        counter.add(2L);
+        metrics.count(BuildFinderMetrics.ANALYZER_BYTES, 3L, "depth", "1");
+        timer.record(5L);
+        metrics.time(BuildFinderMetrics.ANALYZER_FILES, 7L, "depth", "1");
+
+        assertThat(metrics.getCount(BuildFinderMetrics.ANALYZER_BYTES, "depth", "1")).isEqualTo(5L);
+        assertThat(metrics.getCount(BuildFinderMetrics.ANALYZER_FILES, "depth", "1")).isEqualTo(2L);
+        assertThat(recorded).containsExactly(
+                BuildFinderMetrics.ANALYZER_BYTES + "=2[depth, 1]",
+                BuildFinderMetrics.ANALYZER_BYTES + "=3[depth, 1]",
+                BuildFinderMetrics.ANALYZER_FILES + ":5[depth, 1]",
+                BuildFinderMetrics.ANALYZER_FILES + ":7[depth, 1]");
+    }
+
+    @Test
+    void testInvalidTags() {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+
+        assertThatThrownBy(() -> metrics.count(BuildFinderMetrics.CACHE_HITS, 1L, "cache"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testWriteSummary(@TempDir Path folder) throws IOException {
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        metrics.count(BuildFinderMetrics.ANALYZER_BYTES, 3L, "depth", "0");
+        metrics.writeSummary(folder);
+
+        JsonNode summary = new BuildFinderObjectMapper()
+                .readTree(folder.resolve(BuildFinderMetrics.getMetricsFilename()).toFile());
+
+        assertThat(summary.at("/counters/" + BuildFinderMetrics.ANALYZER_BYTES + "/0/count").asLong()).isEqualTo(3L);
+        assertThat(summary.at("/counters/" + BuildFinderMetrics.ANALYZER_BYTES + "/0/tags/depth").asText())
+                .isEqualTo("0");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.junit.jupiter.api.Test;
+
+import com.redhat.red.build.koji.model.xmlrpc.KojiBuildInfo;
+
+class BuildMapTest {
+    private static KojiBuild createBuild(int id) {
+        KojiBuildInfo buildInfo = new KojiBuildInfo();
+        buildInfo.setId(id);
+        return new KojiBuild(buildInfo);
+    }
+
+    @Test
+    void testGetAndPut() {
+        BuildMap builds = new BuildMap(1);
+        KojiBuild buildZero = createBuild(0);
+        KojiBuild build = createBuild(1);
+
+        builds.put(BuildSystem.none, 0, buildZero);
+        builds.put(BuildSystem.koji, 1, build);
+
+        assertThat(builds).hasSize(2);
+        assertThat(builds.get(BuildSystem.none, 0)).isSameAs(buildZero);
+        assertThat(builds.get(BuildSystem.koji, 1)).isSameAs(build);
+        assertThat(builds.get(BuildSystem.koji, 0)).isNull();
+        assertThat(builds.get(BuildSystem.pnc, 1)).isNull();
+        assertThat(builds.get(new BuildSystemInteger(0))).isSameAs(buildZero);
+        assertThat(builds.get(new BuildSystemInteger(1, BuildSystem.koji))).isSameAs(build);
+        assertThat(builds.get(new BuildSystemInteger("A1", BuildSystem.pnc))).isNull();
+        assertThat(builds).containsEntry(new BuildSystemInteger(1, BuildSystem.koji), build)
+                .isEqualTo(
+                        Map.of(
+                                new BuildSystemInteger(0, BuildSystem.none),
+                                buildZero,
+                                new BuildSystemInteger(1, BuildSystem.koji),
+                                build));
+        assertThat(builds.values()).containsExactlyInAnyOrder(buildZero, build);
+        assertThatThrownBy(() -> builds.put(new BuildSystemInteger("A1", BuildSystem.pnc), build))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testGrow() {
+        BuildMap builds = new BuildMap(1);
+        int numBuilds = 10_000;
+
+        for (int i = 0; i < numBuilds; i++) {
+            assertThat(builds.put(BuildSystem.koji, i, createBuild(i))).isNull();
+        }
+
+        KojiBuild build = createBuild(-1);
+
+        assertThat(builds.put(BuildSystem.koji, 0, build)).isNotNull();
+        assertThat(builds.put(BuildSystem.koji, -1, build)).isNull();
+        assertThat(builds).hasSize(numBuilds + 1);
+
+        for (int i = 1; i < numBuilds; i++) {
+            assertThat(builds.get(BuildSystem.koji, i).getBuildInfo().getId()).isEqualTo(i);
+        }
+
+        assertThat(builds.get(BuildSystem.koji, 0)).isSameAs(build);
+        assertThat(builds.get(BuildSystem.koji, -1)).isSameAs(build);
+        assertThat(builds.keySet()).contains(new BuildSystemInteger(-1, BuildSystem.koji));
+    }
+}
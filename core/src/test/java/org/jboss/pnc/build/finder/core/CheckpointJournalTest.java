@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiBuildInfo;
+
+class CheckpointJournalTest {
+    private static final String CHECKSUM = "ac8b5a5b7e1e1a1b36a1b1c1d4a4e4b4";
+
+    private static final String MISSING_CHECKSUM = "00000000000000000000000000000000";
+
+    @Test
+    void testResume(@TempDir Path folder) throws IOException {
+        Path path = folder.resolve(BuildFinder.getCheckpointFilename());
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, false)) {
+            journal.addArchives(CHECKSUM, Collections.singletonList(createArchive()));
+            journal.addArchives(MISSING_CHECKSUM, Collections.emptyList());
+            journal.addBuild(new KojiBuild(createBuildInfo()));
+            journal.addBatch(2);
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            assertThat(journal.getCompletedBatches()).isEqualTo(1);
+            assertThat(journal.getArchives(CHECKSUM)).singleElement()
+                    .extracting(KojiArchiveInfo::getBuildId)
+                    .isEqualTo(1);
+            assertThat(journal.getArchives(MISSING_CHECKSUM)).isEmpty();
+            assertThat(journal.getArchives("unknown")).isNull();
+            assertThat(journal.getBuild(1).getBuildInfo().getNvr()).isEqualTo("a-1.0-1");
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, false)) {
+            assertThat(journal.getCompletedBatches()).isZero();
+            assertThat(journal.getArchives(CHECKSUM)).isNull();
+        }
+    }
+
+    @Test
+    void testDiscardIncompleteEntry(@TempDir Path folder) throws IOException {
+        Path path = folder.resolve(BuildFinder.getCheckpointFilename());
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, false)) {
+            journal.addArchives(CHECKSUM, Collections.singletonList(createArchive()));
+        }
+
+        Files.writeString(path, "{\"checksum\":\"" + MISSING_CHECKSUM + "\",\"arch", UTF_8, StandardOpenOption.APPEND);
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            assertThat(journal.getArchives(CHECKSUM)).hasSize(1);
+            assertThat(journal.getArchives(MISSING_CHECKSUM)).isNull();
+            journal.addBatch(1);
+        }
+
+        List<String> lines = Files.readAllLines(path, UTF_8);
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).isEqualTo("{\"batch\":1}");
+    }
+
+    @Test
+    void testSkipInvalidEntries(@TempDir Path folder) throws IOException {
+        Path path = folder.resolve(BuildFinder.getCheckpointFilename());
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, false)) {
+            journal.addArchives(CHECKSUM, Collections.singletonList(createArchive()));
+        }
+
+        Files.writeString(path, "{\"unknown\":1}\nnot json\n{\"build\":{}}\n", UTF_8, StandardOpenOption.APPEND);
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            journal.addArchives(MISSING_CHECKSUM, Collections.emptyList());
+            journal.addBuild(new KojiBuild(createBuildInfo()));
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            assertThat(journal.getArchives(CHECKSUM)).hasSize(1);
+            assertThat(journal.getArchives(MISSING_CHECKSUM)).isEmpty();
+            assertThat(journal.getBuild(1)).isNotNull();
+        }
+
+        assertThat(Files.readAllLines(path, UTF_8)).hasSize(6);
+    }
+
+    @Test
+    void testPendingChecksums(@TempDir Path folder) throws IOException {
+        Path path = folder.resolve(BuildFinder.getCheckpointFilename());
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, false)) {
+            journal.startBatch(List.of(CHECKSUM, MISSING_CHECKSUM));
+            journal.addArchives(CHECKSUM, Collections.singletonList(createArchive()));
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            assertThat(journal.getCompletedBatches()).isZero();
+            assertThat(journal.getPendingChecksums()).containsExactly(MISSING_CHECKSUM);
+            journal.startBatch(List.of(MISSING_CHECKSUM));
+            journal.addArchives(MISSING_CHECKSUM, Collections.emptyList());
+            journal.addBatch(1);
+        }
+
+        try (CheckpointJournal journal = new CheckpointJournal(path, true)) {
+            assertThat(journal.getCompletedBatches()).isEqualTo(1);
+            assertThat(journal.getPendingChecksums()).isEmpty();
+        }
+    }
+
+    private static KojiArchiveInfo createArchive() {
+        KojiArchiveInfo archive = new KojiArchiveInfo();
+        archive.setArchiveId(1);
+        archive.setBuildId(1);
+        archive.setChecksum(CHECKSUM);
+        archive.setFilename("a-1.0.jar");
+        return archive;
+    }
+
+    private static KojiBuildInfo createBuildInfo() {
+        KojiBuildInfo buildInfo = new KojiBuildInfo();
+        buildInfo.setId(1);
+        buildInfo.setName("a");
+        buildInfo.setVersion("1.0");
+        buildInfo.setRelease("1");
+        buildInfo.setNvr("a-1.0-1");
+        return buildInfo;
+    }
+}
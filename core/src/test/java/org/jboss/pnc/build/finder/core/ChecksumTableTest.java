@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.jboss.pnc.build.finder.core.ChecksumType.md5;
+import static org.jboss.pnc.build.finder.core.ChecksumType.sha1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections4.MultiValuedMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChecksumTableTest {
+    private static final int NUM_FILES = 100_000;
+
+    private static String filename(int i) {
+        return "distribution.zip!/lib/archive-" + i + ".jar";
+    }
+
+    private static String value(ChecksumType type, int i) {
+        return String.format(type == md5 ? "%032x" : "%040x", i / 2);
+    }
+
+    @Test
+    void testAddAndGet(@TempDir Path folder) throws IOException {
+        try (ChecksumTable table = new ChecksumTable(folder)) {
+            for (int i = 0; i < NUM_FILES; i++) {
+                for (ChecksumType type : EnumSet.of(md5, sha1)) {
+                    assertThat(table.add(new Checksum(type, value(type, i), filename(i), i))).isTrue();
+                }
+            }
+
+            assertThat(table.add(new Checksum(md5, value(md5, 0), filename(0), 0L))).isFalse();
+            assertThat(table.size()).isEqualTo(2L * NUM_FILES);
+            assertThat(table.get(md5, value(md5, 42)))
+                    .extracting(LocalFile::getFilename)
+                    .containsExactlyInAnyOrder(filename(42), filename(43));
+            assertThat(table.get(sha1, value(md5, 42))).isEmpty();
+            assertThat(table.get(filename(4242))).containsExactlyInAnyOrder(
+                    new Checksum(md5, value(md5, 4242), filename(4242), 4242L),
+                    new Checksum(sha1, value(sha1, 4242), filename(4242), 4242L));
+            assertThat(table.get("missing.jar")).isEmpty();
+        }
+    }
+
+    @Test
+    void testViews(@TempDir Path folder) throws IOException {
+        try (ChecksumTable table = new ChecksumTable(folder)) {
+            for (int i = 0; i < 10; i++) {
+                table.add(new Checksum(md5, value(md5, i), filename(i), i));
+            }
+
+            Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = table.asChecksumsMap(EnumSet.of(md5));
+            Map<String, Collection<Checksum>> files = table.asFilesMap();
+
+            assertThat(checksums).containsOnlyKeys(md5);
+            assertThat(checksums.get(md5).size()).isEqualTo(10);
+            assertThat(checksums.get(md5).asMap()).hasSize(5).containsKey(value(md5, 9));
+            assertThat(checksums.get(md5).get(value(md5, 9))).hasSize(2);
+            assertThat(files).hasSize(10).containsKey(filename(9)).doesNotContainKey(filename(10));
+            assertThat(files.get(filename(3))).containsExactly(new Checksum(md5, value(md5, 3), filename(3), 3L));
+        }
+    }
+
+    @Test
+    void testReadOnlyViews(@TempDir Path folder) throws IOException {
+        try (ChecksumTable table = new ChecksumTable(folder)) {
+            table.add(new Checksum(md5, value(md5, 0), filename(0), 0L));
+
+            MultiValuedMap<String, LocalFile> checksums = table.asChecksumsMap(EnumSet.of(md5)).get(md5);
+            LocalFile localFile = new LocalFile(filename(1), 1L);
+
+            assertThat(checksums.get(value(md5, 2))).isEmpty();
+            assertThat(checksums.get(value(md5, 0))).extracting(LocalFile::getFilename).containsExactly(filename(0));
+            assertThatThrownBy(() -> checksums.put(value(md5, 0), localFile))
+                    .isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> checksums.put(value(md5, 2), localFile))
+                    .isInstanceOf(UnsupportedOperationException.class);
+            assertThatThrownBy(() -> checksums.putAll(value(md5, 2), List.of(localFile)))
+                    .isInstanceOf(UnsupportedOperationException.class);
+            assertThat(checksums.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void testClose(@TempDir Path folder) throws IOException {
+        ChecksumTable table = new ChecksumTable(folder);
+
+        for (int i = 0; i < 10; i++) {
+            table.add(new Checksum(md5, value(md5, i), filename(i), i));
+        }
+
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = table.asChecksumsMap(EnumSet.of(md5));
+        Map<String, Collection<Checksum>> files = table.asFilesMap();
+
+        table.close();
+        table.close();
+
+        assertThat(table.size()).isZero();
+        assertThat(table.get(md5, value(md5, 0))).isEmpty();
+        assertThat(checksums.get(md5).isEmpty()).isTrue();
+        assertThat(checksums.get(md5).asMap()).isEmpty();
+        assertThat(files).isEmpty();
+        assertThatThrownBy(() -> table.add(new Checksum(md5, value(md5, 10), filename(10), 10L)))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.jboss.pnc.build.finder.core.ChecksumType.md5;
 import static org.jboss.pnc.build.finder.core.ChecksumType.sha1;
+import static org.jboss.pnc.build.finder.core.ChecksumType.sha256;
 
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -43,6 +44,23 @@ class ChecksumTest {
         }).isExactlyInstanceOf(FileSystemException.class).hasMessageMatching(".*Does file.*exist.*");
     }
 
+    @Test
+    void testFileChecksums() {
+        Checksum c1 = new Checksum(md5, "7215ee9c7d9dc229d2921a40e899ec5f", "a.txt", 1L);
+        Checksum c2 = new Checksum(sha1, "b858cb282617fb0956d960215c8e84d1ccf909c6", "a.txt", 1L);
+        FileChecksums fileChecksums = new FileChecksums(List.of(c1, c2));
+
+        assertThat(fileChecksums.isEmpty()).isFalse();
+        assertThat(fileChecksums.get(md5)).isSameAs(c1);
+        assertThat(fileChecksums.get(sha1)).isSameAs(c2);
+        assertThat(fileChecksums.get(sha256)).isNull();
+        assertThat(c1.getFileChecksums()).isSameAs(fileChecksums);
+        assertThat(c2.getFileChecksums().get(md5)).isSameAs(c1);
+        assertThat(new FileChecksums(Collections.emptyList()).isEmpty()).isTrue();
+        assertThat(Checksum.findByType(List.of(c1, c2), sha1)).containsSame(c2);
+        assertThat(Checksum.findByType(List.of(c1, c2), sha256)).isEmpty();
+    }
+
     @Test
     void testSort() {
         Checksum c1 = new Checksum(md5, "7215ee9c7d9dc229d2921a40e899ec5f", "c.txt", 2L);
@@ -53,4 +71,33 @@ class ChecksumTest {
         Collections.sort(l);
         assertThat(l).containsExactly(c1, c3, c4, c2);
     }
+
+    @Test
+    void testValue() {
+        String value = "b858cb282617fb0956d960215c8e84d1ccf909c6";
+        Checksum c1 = new Checksum(sha1, value, "a.txt", 0L);
+        Checksum c2 = new Checksum(sha1, new String(value.toCharArray()), "a.txt", 0L);
+        Checksum c3 = new Checksum(md5, "NOT-A-HEX-VALUE", "a.txt", 0L);
+
+        assertThat(c1.getValue()).isEqualTo(value).isSameAs(c1.getValue());
+        assertThat(c1).isEqualTo(c2).hasSameHashCodeAs(c2);
+        assertThat(c3.getValue()).isEqualTo("NOT-A-HEX-VALUE");
+        assertThat(new Checksum(md5, "ABCD", "a.txt", 0L).getValue()).isEqualTo("ABCD");
+        assertThat(new Checksum().getValue()).isNull();
+
+        c2.setValue("0858cb282617fb0956d960215c8e84d1ccf909c6");
+
+        assertThat(c2.getValue()).isEqualTo("0858cb282617fb0956d960215c8e84d1ccf909c6");
+        assertThat(c1).isNotEqualTo(c2);
+    }
+
+    @Test
+    void testSortByValue() {
+        Checksum c1 = new Checksum(md5, "f215ee9c7d9dc229d2921a40e899ec5f", "a.txt", 0L);
+        Checksum c2 = new Checksum(md5, "7215ee9c7d9dc229d2921a40e899ec5f", "a.txt", 0L);
+        Checksum c3 = new Checksum(md5, "a215ee9c7d9dc229d2921a40e899ec5f", "a.txt", 0L);
+        List<Checksum> l = Arrays.asList(c1, c2, c3);
+        Collections.sort(l);
+        assertThat(l).containsExactly(c2, c3, c1);
+    }
 }
@@ -15,13 +15,16 @@
  */
 package org.jboss.pnc.build.finder.core;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jboss.pnc.build.finder.core.ChecksumType.md5;
 import static org.jboss.pnc.build.finder.core.ChecksumType.sha1;
 import static org.jboss.pnc.build.finder.core.ChecksumType.sha256;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -34,9 +37,19 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.collections4.MultiValuedMap;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledOnOs;
@@ -96,6 +109,8 @@ class DistributionAnalyzerTest {
         DistributionAnalyzer da = new DistributionAnalyzer(af, config);
         Map<ChecksumType, MultiValuedMap<String, LocalFile>> map = da.checksumFiles();
         map.forEach((key, value) -> assertThat(value.asMap()).hasSize(1));
+        assertThat(da.getMetrics().getSummary().get("timers")).asInstanceOf(InstanceOfAssertFactories.MAP)
+                .containsKeys(BuildFinderMetrics.ANALYZER_TIME, BuildFinderMetrics.ANALYZER_FILES);
     }
 
     // XXX: Skip on Windows due to <https://issues.apache.org/jira/browse/VFS-634>
@@ -141,6 +156,93 @@ class DistributionAnalyzerTest {
         assertThat(checksums.get(md5).size()).isEqualTo(7);
     }
 
+    @Test
+    void testLoadMultipleInputs() throws IOException {
+        List<String> target = List.of(
+                TestUtils.loadFile("nested.zip").toAbsolutePath().toString(),
+                TestUtils.loadFile("nested.war").toAbsolutePath().toString());
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = da.checksumFiles();
+
+        assertThat(checksums.get(md5).size()).isEqualTo(25 + 7);
+        assertThat(da.getFiles()).hasSize(25 + 7);
+    }
+
+    @Test
+    void testLoadConcurrentCopies(@TempDir Path folder) throws IOException {
+        Path nestedZip = TestUtils.loadFile("nested.zip");
+        List<String> target = new ArrayList<>(4);
+
+        for (int i = 0; i < 4; i++) {
+            Path copy = folder.resolve("nested-" + i + ".zip");
+            Files.copy(nestedZip, copy);
+            target.add(copy.toAbsolutePath().toString());
+        }
+
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        DistributionAnalyzer singleDa = new DistributionAnalyzer(
+                Collections.singletonList(nestedZip.toAbsolutePath().toString()),
+                config);
+        singleDa.checksumFiles();
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = da.checksumFiles();
+
+        // The copies have the same nested archives, which each input replicates with its own file system manager
+        assertThat(checksums.get(md5).size()).isEqualTo(4 * 25);
+        assertThat(da.getChecksums(md5)).containsOnlyKeys(singleDa.getChecksums(md5).keySet());
+
+        for (Entry<String, Collection<LocalFile>> entry : singleDa.getChecksums(md5).entrySet()) {
+            assertThat(da.getChecksums(md5).get(entry.getKey())).hasSize(4 * entry.getValue().size());
+        }
+    }
+
+    @Test
+    void testLoadMultipleInputsSpilled() throws IOException {
+        List<String> target = List.of(
+                TestUtils.loadFile("nested.zip").toAbsolutePath().toString(),
+                TestUtils.loadFile("nested.war").toAbsolutePath().toString());
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        da.checksumFiles();
+        config.setSpillThreshold(5);
+        DistributionAnalyzer spilledDa = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = spilledDa.checksumFiles();
+
+        assertThat(checksums.get(md5).size()).isEqualTo(25 + 7);
+        assertThat(spilledDa.getChecksums(md5)).containsOnlyKeys(da.getChecksums(md5).keySet());
+        assertThat(spilledDa.getFiles()).hasSize(25 + 7);
+
+        for (Entry<String, Collection<Checksum>> entry : da.getFiles().entrySet()) {
+            assertThat(spilledDa.getFiles().get(entry.getKey())).containsExactlyInAnyOrderElementsOf(entry.getValue());
+        }
+
+        spilledDa.close();
+
+        assertThat(checksums.get(md5).isEmpty()).isTrue();
+        assertThat(spilledDa.getFiles()).isEmpty();
+    }
+
+    @Test
+    void testLoadMultipleInputsNoRecursion() throws IOException {
+        List<String> target = new ArrayList<>(4);
+
+        for (String filename : List.of("nested.zip", "nested2.zip", "nested.war", "nested.tar.gz")) {
+            target.add(TestUtils.loadFile(filename).toAbsolutePath().toString());
+        }
+
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setDisableRecursion(true);
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = da.checksumFiles();
+
+        assertThat(checksums.get(md5).size()).isEqualTo(3 + 2 + 1 + 4);
+    }
+
     @StdIo
     @Test
     void testLoadManPageZip(StdOut out) throws IOException {
@@ -247,4 +349,176 @@ class DistributionAnalyzerTest {
         assertThat(licenseInfo).extracting("spdxLicenseId").isEqualTo("NCL");
         assertThat(licenseInfo).extracting("sourceUrl").isEqualTo(filename);
     }
+
+    @Test
+    void testDisableLicenses() throws IOException {
+        String issueId = "NCL-9035";
+        String filename = issueId + ".pom";
+        List<String> target = Collections
+                .singletonList(TestUtils.loadFile(String.join("/", issueId, filename)).toAbsolutePath().toString());
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setChecksumTypes(Collections.singleton(md5));
+        config.setDisableLicenses(true);
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = da.call();
+        assertThat(checksums.get(md5).size()).isEqualTo(1);
+        assertThat(da.getLicensesMap()).isEmpty();
+    }
+
+    @Test
+    void testLicensesOnly() throws IOException {
+        String issueId = "NCL-9035";
+        String filename = issueId + ".pom";
+        List<String> target = Collections
+                .singletonList(TestUtils.loadFile(String.join("/", issueId, filename)).toAbsolutePath().toString());
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setChecksumTypes(Collections.singleton(md5));
+        config.setLicensesOnly(true);
+        DistributionAnalyzer da = new DistributionAnalyzer(target, config);
+        Map<ChecksumType, MultiValuedMap<String, LocalFile>> checksums = da.call();
+        assertThat(checksums.get(md5).isEmpty()).isTrue();
+        assertThat(da.getLicensesMap()).hasSize(1).containsKey(filename);
+    }
+
+    @Test
+    void testLicenseCacheVersion() throws IOException {
+        String name = "Apache License";
+        String url = "https://www.apache.org/licenses/LICENSE-2.0";
+        BuildConfig config = new BuildConfig();
+        config.setChecksumTypes(Collections.singleton(md5));
+        Configuration configuration = new ConfigurationBuilder().build();
+
+        try (DefaultCacheManager cacheManager = new DefaultCacheManager()) {
+            for (String cacheName : List.of("files-md5", "license-files", "license-names", "pom-models")) {
+                cacheManager.defineConfiguration(cacheName, configuration);
+            }
+
+            Cache<String, String> cache = cacheManager.getCache("license-names");
+            DistributionAnalyzer da = new DistributionAnalyzer(Collections.emptyList(), config, cacheManager);
+
+            assertThat(da.getCachedSPDXLicenseId(name, url)).isEqualTo("Apache-2.0");
+            assertThat(cache).hasSize(1);
+
+            String key = cache.keySet().iterator().next();
+            cache.put(key, "cached");
+
+            assertThat(da.getCachedSPDXLicenseId(name, url)).isEqualTo("cached");
+            assertThat(key).startsWith(
+                    SpdxLicenseUtils.getSPDXLicenseListVersion() + '-'
+                            + SpdxLicenseUtils.getSpdxLicenseMappingVersion() + ':');
+
+            DistributionAnalyzer newDa = new DistributionAnalyzer(
+                    Collections.emptyList(),
+                    config,
+                    cacheManager,
+                    "new-version");
+
+            assertThat(newDa.getCachedSPDXLicenseId(name, url)).isEqualTo("Apache-2.0");
+            assertThat(cache).hasSize(2).containsEntry(key, "cached");
+        }
+    }
+
+    private static void putEntry(ZipOutputStream out, String name, byte[] content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.closeEntry();
+    }
+
+    private static byte[] zip(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            putEntry(out, name, content);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testLicenseTaskFailureIsFileError(@TempDir Path folder) throws IOException {
+        byte[] pom = Files.readAllBytes(TestUtils.loadFile("NCL-9035/NCL-9035.pom"));
+        Path input = folder.resolve("licenses.zip");
+        Files.write(input, zip("first.pom", pom));
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setChecksumTypes(Collections.singleton(md5));
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        // The license task of first.pom fails with a runtime exception once it is done
+        metrics.addRegistry(new MetricsRegistry() {
+            @Override
+            public void count(String name, long amount, String... tags) {
+                // Not needed
+            }
+
+            @Override
+            public void time(String name, long nanos, String... tags) {
+                if (BuildFinderMetrics.ANALYZER_LICENSES.equals(name)) {
+                    throw new IllegalStateException("License failure");
+                }
+            }
+        });
+        DistributionAnalyzer da = new DistributionAnalyzer(List.of(input.toString()), config);
+        da.setMetrics(metrics);
+
+        assertThat(da.call().get(md5).size()).isEqualTo(2);
+        assertThat(da.getFileErrors()).singleElement()
+                .extracting(FileError::getMessage, InstanceOfAssertFactories.STRING)
+                .contains("License failure");
+    }
+
+    @Test
+    void testChecksumsDoNotWaitForLicenses(@TempDir Path folder) throws Exception {
+        byte[] pom = Files.readAllBytes(TestUtils.loadFile("NCL-9035/NCL-9035.pom"));
+        Path outer = folder.resolve("outer.zip");
+
+        try (OutputStream os = Files.newOutputStream(outer); ZipOutputStream out = new ZipOutputStream(os)) {
+            putEntry(out, "first.zip", zip("first.pom", pom));
+            putEntry(out, "second.zip", zip("second.txt", "second".getBytes(UTF_8)));
+        }
+
+        BuildConfig config = new BuildConfig();
+        config.setArchiveExtensions(Collections.emptyList());
+        config.setChecksumTypes(Collections.singleton(md5));
+        CountDownLatch nestedChecksums = new CountDownLatch(2);
+        CountDownLatch licenses = new CountDownLatch(1);
+        BuildFinderMetrics metrics = new BuildFinderMetrics();
+        // The license task of first.pom blocks until it is released, while the files of both nested archives are
+        // checksummed at depth 2
+        metrics.addRegistry(new MetricsRegistry() {
+            @Override
+            public void count(String name, long amount, String... tags) {
+                // Not needed
+            }
+
+            @Override
+            public void time(String name, long nanos, String... tags) {
+                if (BuildFinderMetrics.ANALYZER_FILES.equals(name) && "2".equals(tags[1])) {
+                    nestedChecksums.countDown();
+                } else if (BuildFinderMetrics.ANALYZER_LICENSES.equals(name)) {
+                    try {
+                        licenses.await(30L, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        DistributionAnalyzer da = new DistributionAnalyzer(List.of(outer.toString()), config);
+        da.setMetrics(metrics);
+        CompletableFuture<Map<ChecksumType, MultiValuedMap<String, LocalFile>>> future = CompletableFuture
+                .supplyAsync(da);
+
+        try {
+            assertThat(nestedChecksums.await(30L, TimeUnit.SECONDS)).isTrue();
+            assertThat(future).isNotDone();
+        } finally {
+            licenses.countDown();
+        }
+
+        assertThat(future.get(30L, TimeUnit.SECONDS).get(md5).size()).isEqualTo(5);
+        assertThat(da.getLicensesMap().keySet()).singleElement(InstanceOfAssertFactories.STRING)
+                .endsWith("first.pom");
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class InternedPathTest {
+    private static final String PATH = "product.zip!/product/lib/foo.war!/WEB-INF/lib/bar.jar";
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "/", "a", "a/", "/a/b", PATH, "product.zip!/product/lib//baz.jar" })
+    void testToString(String path) {
+        InternedPath internedPath = InternedPath.of(path);
+
+        assertThat(internedPath).hasToString(path);
+        assertThat(internedPath.length()).isEqualTo(path.length());
+    }
+
+    @Test
+    void testNull() {
+        assertThat(InternedPath.of(null)).isNull();
+    }
+
+    @Test
+    void testIntern() {
+        InternedPath path1 = InternedPath.of(PATH);
+        InternedPath path2 = InternedPath.of(new String(PATH.toCharArray()));
+
+        assertThat(path1).isSameAs(path2);
+        assertThat(InternedPath.of(PATH.replace("bar.jar", "baz.jar"))).isNotEqualTo(path1);
+    }
+
+    @Test
+    void testCompare() {
+        InternedPath path1 = InternedPath.of("a/b/c.jar");
+        InternedPath path2 = InternedPath.of("a/b.jar");
+
+        assertThat(path1).isGreaterThan(path2);
+        assertThat(path1.compareTo(InternedPath.of("a/b/c.jar"))).isZero();
+    }
+
+    @Test
+    void testCompareLikeStrings() {
+        List<String> paths = List.of(
+                "",
+                "/",
+                "a",
+                "a/",
+                "a/b",
+                "a/b/",
+                "a/b.jar",
+                "a/b/c.jar",
+                "a/bc/d.jar",
+                "a!/b",
+                "ab",
+                "ab/c",
+                "b/a",
+                "//a",
+                PATH,
+                PATH.replace("foo.war", "foo.ear"),
+                "product.zip!/product/lib//baz.jar");
+
+        for (String path1 : paths) {
+            for (String path2 : paths) {
+                assertThat(Integer.signum(InternedPath.of(path1).compareTo(InternedPath.of(path2))))
+                        .as("%s <=> %s", path1, path2)
+                        .isEqualTo(Integer.signum(path1.compareTo(path2)));
+            }
+        }
+    }
+
+    @Test
+    void testGetFileName() {
+        InternedPath path = InternedPath.of(PATH);
+
+        assertThat(path.getFileName()).isEqualTo("bar.jar")
+                .isSameAs(InternedPath.of("other.zip!/bar.jar").getFileName());
+        assertThat(InternedPath.of("a/b/").getFileName()).isEqualTo("b/");
+    }
+
+    @Test
+    void testSerialization() throws IOException, ClassNotFoundException {
+        InternedPath path = InternedPath.of(PATH);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(path);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            assertThat(in.readObject()).isSameAs(path);
+        }
+    }
+}
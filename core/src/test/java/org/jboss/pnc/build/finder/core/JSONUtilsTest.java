@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+class JSONUtilsTest {
+    private static Map<String, Collection<LocalFile>> createChecksums() {
+        Map<String, Collection<LocalFile>> checksums = new LinkedHashMap<>();
+        checksums.put(
+                "7215ee9c7d9dc229d2921a40e899ec5f",
+                List.of(new LocalFile("a.zip!/a.txt", 1L), new LocalFile("b.txt", 1L)));
+        checksums.put("d41d8cd98f00b204e9800998ecf8427e", List.of(new LocalFile("empty.txt", 0L)));
+        return checksums;
+    }
+
+    @Test
+    void testDumpMapToFile(@TempDir Path folder) throws IOException {
+        Map<String, Collection<LocalFile>> checksums = createChecksums();
+        Path expected = folder.resolve("expected.json");
+        Path actual = folder.resolve("actual.json");
+
+        JSONUtils.dumpObjectToFile(checksums, expected);
+        JSONUtils.dumpMapToFile(checksums, actual, false);
+
+        assertThat(actual).hasSameTextualContentAs(expected);
+    }
+
+    @Test
+    void testDumpMapToFileCompact(@TempDir Path folder) throws IOException {
+        Map<String, Collection<LocalFile>> checksums = createChecksums();
+        Path path = folder.resolve("compact.json");
+
+        JSONUtils.dumpMapToFile(checksums, path, true);
+
+        assertThat(Files.readAllLines(path)).hasSize(1);
+        assertThat(JSONUtils.loadChecksumsFile(path)).usingRecursiveComparison().isEqualTo(checksums);
+    }
+
+    @Test
+    void testDumpEmptyMapToFile(@TempDir Path folder) throws IOException {
+        Path path = folder.resolve("empty.json");
+
+        JSONUtils.dumpMapToFile(Map.of(), path, true);
+
+        assertThat(JSONUtils.loadChecksumsFile(path)).isEmpty();
+    }
+
+    @Test
+    void testLoadChecksumsFileEntries(@TempDir Path folder) throws IOException {
+        Map<String, Collection<LocalFile>> checksums = createChecksums();
+        Path path = folder.resolve("checksums.json");
+        List<String> keys = new ArrayList<>();
+        List<String> filenames = new ArrayList<>();
+
+        JSONUtils.dumpMapToFile(checksums, path, false);
+        JSONUtils.loadChecksumsFile(path, (key, localFiles) -> {
+            keys.add(key);
+            localFiles.forEach(localFile -> filenames.add(localFile.getFilename()));
+        });
+
+        assertThat(keys).containsExactlyElementsOf(checksums.keySet());
+        assertThat(filenames).containsExactly("a.zip!/a.txt", "b.txt", "empty.txt");
+    }
+
+    @Test
+    void testLoadChecksumsFileNotAnObject(@TempDir Path folder) throws IOException {
+        Path path = Files.writeString(folder.resolve("array.json"), "[ ]");
+
+        assertThatThrownBy(() -> JSONUtils.loadChecksumsFile(path)).isInstanceOf(JsonParseException.class)
+                .hasMessageContaining("Expected a JSON object");
+    }
+
+    @Test
+    void testDumpMapToFileSmile(@TempDir Path folder) throws IOException {
+        Map<String, Collection<LocalFile>> checksums = createChecksums();
+        Path json = folder.resolve("checksums.json");
+        Path smile = folder.resolve("checksums" + OutputFormat.smile.getExtension());
+
+        JSONUtils.dumpMapToFile(checksums, json, true);
+        JSONUtils.dumpMapToFile(checksums, smile, OutputFormat.smile, true);
+
+        assertThat(OutputFormat.fromPath(json)).isEqualTo(OutputFormat.json);
+        assertThat(OutputFormat.fromPath(smile)).isEqualTo(OutputFormat.smile);
+        assertThat(Files.size(smile)).isLessThan(Files.size(json));
+        assertThat(JSONUtils.loadChecksumsFile(smile)).usingRecursiveComparison().isEqualTo(checksums);
+    }
+}
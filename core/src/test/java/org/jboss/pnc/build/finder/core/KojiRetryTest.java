@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.pnc.build.finder.koji.ClientSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.redhat.red.build.koji.KojiClientException;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveQuery;
+
+@ExtendWith(MockitoExtension.class)
+class KojiRetryTest {
+    private static final String POISONED_CHECKSUM = "00000000000000000000000000000002";
+
+    private static final String OTHER_POISONED_CHECKSUM = "00000000000000000000000000000003";
+
+    @Mock
+    private ClientSession session;
+
+    private BuildConfig config;
+
+    @BeforeEach
+    void setup() throws KojiClientException {
+        config = new BuildConfig();
+        config.setKojiRetries(2);
+        config.setKojiRetryDelay(0L);
+        when(session.getArchiveTypeMap()).thenThrow(new KojiClientException("Archive types unavailable"));
+    }
+
+    @Test
+    void testRetryAfterTransientError() throws KojiClientException {
+        AtomicInteger numCalls = new AtomicInteger();
+
+        when(session.listArchives(anyList())).thenAnswer(invocation -> {
+            List<KojiArchiveQuery> queries = invocation.getArgument(0);
+
+            if (numCalls.getAndIncrement() == 0) {
+                throw new KojiClientException("Transient error");
+            }
+
+            return emptyResults(queries);
+        });
+
+        BuildFinder finder = new BuildFinder(session, config);
+        finder.findBuilds(getChecksumTable(4));
+
+        assertThat(numCalls).hasValue(2);
+        assertThat(finder.getNotFoundChecksums()).hasSize(4);
+    }
+
+    @Test
+    void testSkipPoisonedChecksum(@TempDir Path folder) throws IOException, KojiClientException {
+        AtomicInteger numCalls = new AtomicInteger();
+
+        when(session.listArchives(anyList())).thenAnswer(invocation -> {
+            List<KojiArchiveQuery> queries = invocation.getArgument(0);
+            numCalls.incrementAndGet();
+
+            if (queries.stream().anyMatch(query -> POISONED_CHECKSUM.equals(query.getChecksum()))) {
+                throw new KojiClientException("Poisoned query");
+            }
+
+            return emptyResults(queries);
+        });
+
+        BuildFinder finder = new BuildFinder(session, config);
+        finder.findBuilds(getChecksumTable(4));
+
+        // The whole chunk is tried three times, then each split is tried only once: [0, 1], [2, 3], [2], and [3]
+        Checksum poisoned = new Checksum(ChecksumType.md5, POISONED_CHECKSUM, "file2.jar", 2L);
+
+        assertThat(numCalls).hasValue(7);
+        assertThat(finder.getNotFoundChecksums()).hasSize(3).doesNotContainKey(poisoned);
+        assertThat(finder.getLookupFailedChecksums()).containsOnlyKeys(poisoned);
+        assertThat(getBuildChecksumValues(finder)).isNotEmpty().doesNotContain(POISONED_CHECKSUM);
+
+        finder.setOutputDirectory(folder);
+        finder.outputLookupFailedToFile();
+
+        JsonNode lookupFailed = new BuildFinderObjectMapper()
+                .readTree(folder.resolve(BuildFinder.getLookupFailedFilename()).toFile());
+
+        assertThat(lookupFailed.get(POISONED_CHECKSUM)).singleElement()
+                .extracting(JsonNode::asText)
+                .isEqualTo("file2.jar");
+    }
+
+    @Test
+    void testSkipAdjacentPoisonedChecksums() throws KojiClientException {
+        when(session.listArchives(anyList())).thenAnswer(invocation -> {
+            List<KojiArchiveQuery> queries = invocation.getArgument(0);
+
+            if (queries.stream()
+                    .anyMatch(
+                            query -> POISONED_CHECKSUM.equals(query.getChecksum())
+                                    || OTHER_POISONED_CHECKSUM.equals(query.getChecksum()))) {
+                throw new KojiClientException("Poisoned query");
+            }
+
+            return emptyResults(queries);
+        });
+
+        BuildFinder finder = new BuildFinder(session, config);
+        finder.findBuilds(getChecksumTable(4));
+
+        assertThat(finder.getNotFoundChecksums()).hasSize(2);
+        assertThat(finder.getLookupFailedChecksums()).containsOnlyKeys(
+                new Checksum(ChecksumType.md5, POISONED_CHECKSUM, "file2.jar", 2L),
+                new Checksum(ChecksumType.md5, OTHER_POISONED_CHECKSUM, "file3.jar", 3L));
+    }
+
+    @Test
+    void testFailWhenErrorIsNotIsolated() throws KojiClientException {
+        when(session.listArchives(anyList())).thenThrow(new KojiClientException("Hub unavailable"));
+
+        BuildFinder finder = new BuildFinder(session, config);
+        Map<Checksum, Collection<String>> checksumTable = getChecksumTable(4);
+
+        assertThatThrownBy(() -> finder.findBuilds(checksumTable)).isInstanceOf(KojiClientException.class);
+    }
+
+    private static List<String> getBuildChecksumValues(BuildFinder finder) {
+        return finder.getBuildsMap()
+                .values()
+                .stream()
+                .flatMap(build -> build.getArchives().stream())
+                .flatMap(localArchive -> localArchive.getChecksums().stream())
+                .map(Checksum::getValue)
+                .toList();
+    }
+
+    private static List<List<KojiArchiveInfo>> emptyResults(List<KojiArchiveQuery> queries) {
+        return Collections.nCopies(queries.size(), Collections.emptyList());
+    }
+
+    private static Map<Checksum, Collection<String>> getChecksumTable(int size) {
+        Map<Checksum, Collection<String>> checksumTable = new LinkedHashMap<>(size, 1.0f);
+
+        for (int i = 0; i < size; i++) {
+            String filename = "file" + i + ".jar";
+            checksumTable.put(
+                    new Checksum(ChecksumType.md5, String.format("%032d", i), filename, i),
+                    Collections.singletonList(filename));
+        }
+
+        return checksumTable;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+
+class LicenseNameMatcherTest {
+    private static final List<String> LICENSE_STRINGS = List.of(
+            "GNU Lesser General Public License v2.1 or later",
+            "GNU Lesser General Public License v3.0 only",
+            "GNU Lesser General Public License v2.1 only",
+            "Eclipse Public License 2.0",
+            "Eclipse Public License 1.0",
+            "Apache License 2.0",
+            "LGPL-3.0-or-later",
+            "LGPL-2.1-only",
+            "Apache-2.0",
+            "EPL-2.0",
+            "EPL-1.0",
+            "MIT License",
+            "MIT",
+            "v");
+
+    private static final List<String> CANDIDATES = Arrays.asList(
+            null,
+            "",
+            "Apache License, Version 2.0",
+            "The Apache Software License, Version 2.0",
+            "apache license 2.0",
+            "APACHE LICENSE 2.0",
+            "# Eclipse Public License - v 2.0",
+            "Eclipse Public License v1.0",
+            "GNU Lesser General Public License v3.0 or later",
+            "GNU Lesser General Public License v2.1 only",
+            "LGPL 2.1",
+            "The MIT License",
+            "https://www.apache.org/licenses/LICENSE-2.0.txt",
+            "https://www.eclipse.org/legal/epl-v20.html",
+            "https://opensource.org/licenses/MIT",
+            "Unknown license");
+
+    private static int bruteForceIndexOf(
+            String licenseName,
+            String licenseUrl,
+            UnaryOperator<String> nameTransformer,
+            boolean matchExactNames) {
+        for (int i = 0; i < LICENSE_STRINGS.size(); i++) {
+            String licenseString = LICENSE_STRINGS.get(i);
+
+            if ((matchExactNames && licenseString.equalsIgnoreCase(licenseName))
+                    || LicenseUtils.containsWordsInSameOrder(licenseName, nameTransformer.apply(licenseString))
+                    || LicenseUtils.containsWordsInSameOrder(licenseUrl, licenseString)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static void assertSameAsBruteForce(UnaryOperator<String> nameTransformer, boolean matchExactNames) {
+        LicenseNameMatcher matcher = new LicenseNameMatcher(LICENSE_STRINGS, nameTransformer, matchExactNames);
+
+        for (String licenseName : CANDIDATES) {
+            for (String licenseUrl : CANDIDATES) {
+                assertThat(matcher.indexOf(licenseName, licenseUrl)).as("%s, %s", licenseName, licenseUrl)
+                        .isEqualTo(bruteForceIndexOf(licenseName, licenseUrl, nameTransformer, matchExactNames));
+            }
+        }
+    }
+
+    @Test
+    void testIndexOfLicenseIds() {
+        assertSameAsBruteForce(licenseId -> StringUtils.replace(licenseId, "-only", ""), false);
+    }
+
+    @Test
+    void testIndexOfLicenseNames() {
+        assertSameAsBruteForce(licenseName -> StringUtils.replace(licenseName, " only", ""), true);
+    }
+
+    @Test
+    void testIndexOfNoMatch() {
+        LicenseNameMatcher matcher = new LicenseNameMatcher(
+                List.of("Apache-2.0", "MIT"),
+                UnaryOperator.identity(),
+                false);
+        assertThat(matcher.indexOf(null, null)).isEqualTo(-1);
+        assertThat(matcher.indexOf("Unknown license", "https://example.com/license")).isEqualTo(-1);
+        assertThat(matcher.indexOf("Apache License, Version 2.0", null)).isZero();
+        assertThat(matcher.indexOf(null, "https://opensource.org/licenses/MIT")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.spdx.core.InvalidSPDXAnalysisException;
+import org.spdx.library.LicenseInfoFactory;
+import org.spdx.library.model.v3_0_1.expandedlicensing.ListedLicense;
+
+class LicenseTextFingerprintTest {
+    private static final List<String> TEXT_LICENSE_IDS = List
+            .of("Apache-2.0", "BSD-3-Clause", "EPL-1.0", "BSD-2-Clause", "MIT", "xpp", "Plexus");
+
+    private static final List<String> CORPUS_LICENSE_IDS = List.of(
+            "Apache-1.1",
+            "Apache-2.0",
+            "BSD-2-Clause",
+            "BSD-3-Clause",
+            "BSD-4-Clause",
+            "CDDL-1.0",
+            "CDDL-1.1",
+            "EPL-1.0",
+            "EPL-2.0",
+            "GPL-2.0-only",
+            "ISC",
+            "LGPL-2.1-only",
+            "MIT",
+            "MIT-0",
+            "MPL-2.0",
+            "Plexus",
+            "X11",
+            "Zlib",
+            "xpp");
+
+    @Test
+    void testRequiredWords() {
+        String template = "<<beginOptional>>Apache License<<endOptional>> Permission is "
+                + "<<var;name=\"copyright\";original=\"Copyright (c) <year>\";match=\".{0,1000}\">> granted, "
+                + "<<beginOptional>> outer <<beginOptional>> inner <<endOptional>> outer <<endOptional>>"
+                + "FREE of charge.";
+        LicenseTextFingerprint fingerprint = LicenseTextFingerprint.of(template);
+
+        assertThat(fingerprint.getRequiredWords())
+                .containsExactlyInAnyOrder("permission", "is", "granted", "free", "of", "charge");
+    }
+
+    @Test
+    void testMayMatch() {
+        LicenseTextFingerprint fingerprint = LicenseTextFingerprint.of("one two three four");
+
+        assertThat(fingerprint.mayMatch(LicenseTextFingerprint.words("One, two! Three four five."))).isTrue();
+        assertThat(fingerprint.mayMatch(LicenseTextFingerprint.words("one two"))).isTrue();
+        assertThat(fingerprint.mayMatch(LicenseTextFingerprint.words("one five six"))).isFalse();
+        assertThat(LicenseTextFingerprint.of("").mayMatch(Set.of())).isTrue();
+    }
+
+    /*
+     * The prefilter must never reject a text which the SPDX template comparison matches, so that the results of license
+     * text matching are the same as without it.
+     */
+    @Test
+    void testPrefilterDoesNotRejectMatches() throws InvalidSPDXAnalysisException {
+        int rejected = 0;
+
+        for (String candidateId : TEXT_LICENSE_IDS) {
+            ListedLicense candidate = LicenseInfoFactory.getListedLicenseById(candidateId);
+            LicenseTextFingerprint fingerprint = SpdxLicenseUtils.getLicenseTextFingerprint(candidate);
+
+            for (String corpusId : CORPUS_LICENSE_IDS) {
+                String text = LicenseInfoFactory.getListedLicenseById(corpusId).getLicenseText();
+                boolean mayMatch = fingerprint.mayMatch(LicenseTextFingerprint.words(text));
+                boolean matches = SpdxLicenseUtils.findMatchingSPDXLicenseIdentifier(candidate, text).isPresent();
+
+                assertThat(mayMatch || !matches).as("%s text rejected for %s", corpusId, candidateId).isTrue();
+
+                if (!mayMatch) {
+                    rejected++;
+                }
+            }
+
+            String text = candidate.getLicenseText();
+            assertThat(fingerprint.mayMatch(LicenseTextFingerprint.words(text))).as(candidateId).isTrue();
+        }
+
+        assertThat(rejected).isPositive();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.build.finder.core.it.StandInDataset;
+import org.jboss.pnc.build.finder.core.it.StandInKojiHub;
+import org.jboss.pnc.build.finder.core.it.StandInPncServer;
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.jboss.pnc.build.finder.koji.KojiClientSession;
+import org.jboss.pnc.build.finder.pnc.client.PncClientImpl;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Drives the lookup strategies against the stand-in Koji hub and PNC server. Every archive of the dataset is served by
+ * PNC, so the only Koji requests are the speculative lookups made while PNC is queried.
+ */
+class LookupStrategyTest {
+    private static final int NUM_ARCHIVES = 300;
+
+    private static final int ARCHIVES_PER_BUILD = 10;
+
+    private static final int PNC_PERCENT = 100;
+
+    @Test
+    void testAdaptive() throws Exception {
+        long sequentialRequests = countKojiRequests(LookupStrategy.sequential);
+        long parallelRequests = countKojiRequests(LookupStrategy.parallel);
+        long adaptiveRequests = countKojiRequests(LookupStrategy.adaptive);
+
+        // The first batch is large enough for PNC to reach the hit ratio, so Koji is only queried for that batch
+        assertThat(adaptiveRequests).isGreaterThan(sequentialRequests).isLessThan(parallelRequests);
+    }
+
+    /*
+     * Looks up the dataset in two batches of half the archives each, and returns the number of requests made to Koji
+     */
+    private static long countKojiRequests(LookupStrategy lookupStrategy) throws Exception {
+        StandInDataset dataset = new StandInDataset(NUM_ARCHIVES, ARCHIVES_PER_BUILD, PNC_PERCENT);
+
+        try (StandInKojiHub kojiHub = new StandInKojiHub(dataset);
+                StandInPncServer pncServer = new StandInPncServer(dataset)) {
+            BuildConfig config = new BuildConfig();
+            config.setKojiHubURL(kojiHub.getURL());
+            config.setPncURL(pncServer.getURL());
+            config.setLookupStrategy(lookupStrategy);
+            config.setDisableLicenses(Boolean.TRUE);
+
+            DistributionAnalyzer analyzer = new DistributionAnalyzer(Collections.emptyList(), config);
+            analyzer.call();
+
+            BlockingQueue<FileChecksums> queue = analyzer.getQueue();
+            queue.clear();
+
+            List<FileChecksums> files = getFiles(dataset);
+            int batchSize = files.size() / 2;
+            queue.addAll(files.subList(0, batchSize));
+
+            CountDownLatch firstBatchTaken = new CountDownLatch(1);
+            ExecutorService pool = Executors.newSingleThreadExecutor();
+
+            try (KojiClientSession session = new KojiClientSession(config.getKojiHubURL());
+                    PncClientImpl pncClient = new PncClientImpl(config)) {
+                BuildFinder finder = new BuildFinder(session, config, analyzer, null, pncClient);
+                finder.setListener(event -> firstBatchTaken.countDown());
+                Future<Map<BuildSystemInteger, KojiBuild>> future = pool.submit(finder);
+
+                // The second batch is only queued once the first one has been taken, so they are looked up separately
+                assertThat(firstBatchTaken.await(1L, TimeUnit.MINUTES)).isTrue();
+                queue.addAll(files.subList(batchSize, files.size()));
+                queue.add(new FileChecksums(Collections.emptyList()));
+
+                assertThat(future.get(1L, TimeUnit.MINUTES)).isNotEmpty();
+            } finally {
+                Utils.shutdownAndAwaitTermination(pool);
+            }
+
+            return kojiHub.getTimer().getCount();
+        }
+    }
+
+    private static List<FileChecksums> getFiles(StandInDataset dataset) {
+        List<FileChecksums> files = new ArrayList<>(dataset.getNumArchives());
+
+        for (int i = 0; i < dataset.getNumArchives(); i++) {
+            List<Checksum> checksums = new ArrayList<>(ChecksumType.values().length);
+
+            for (ChecksumType type : ChecksumType.values()) {
+                checksums.add(
+                        new Checksum(
+                                type,
+                                StandInDataset.getChecksumValue(type, i),
+                                dataset.getFilename(i),
+                                StandInDataset.getSize(i)));
+            }
+
+            files.add(new FileChecksums(checksums));
+        }
+
+        return files;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SortedArraySetTest {
+    @Test
+    void testAdd() {
+        Set<String> set = new SortedArraySet<>();
+
+        assertThat(set).isEmpty();
+        assertThat(set.add("c")).isTrue();
+        assertThat(set.add("a")).isTrue();
+        assertThat(set.add("b")).isTrue();
+        assertThat(set.add("a")).isFalse();
+        assertThat(set).containsExactly("a", "b", "c");
+        assertThat(set).contains("b").doesNotContain("d");
+    }
+
+    @Test
+    void testCollection() {
+        Set<String> set = new SortedArraySet<>(List.of("z", "x", "y", "x"));
+
+        assertThat(set).containsExactly("x", "y", "z");
+        assertThat(set).isEqualTo(Set.of("x", "y", "z"));
+        assertThat(new SortedArraySet<>(List.of())).isEmpty();
+    }
+
+    @Test
+    void testRemove() {
+        Set<Integer> set = new SortedArraySet<>(List.of(5, 1, 3, 2, 4));
+
+        assertThat(set.remove(3)).isTrue();
+        assertThat(set.remove(3)).isFalse();
+        assertThat(set).containsExactly(1, 2, 4, 5);
+
+        Iterator<Integer> it = set.iterator();
+
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+
+        assertThat(set).containsExactly(1, 5);
+
+        set.clear();
+
+        assertThat(set).isEmpty();
+    }
+
+    @Test
+    void testConcurrentModification() {
+        Set<String> set = new SortedArraySet<>(List.of("a", "b"));
+        Iterator<String> it = set.iterator();
+
+        it.next();
+        set.add("c");
+
+        assertThatThrownBy(it::next).isInstanceOf(ConcurrentModificationException.class);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class SpdxLicenseIndexTest {
+    @Test
+    void testWriteRead() throws IOException {
+        SpdxLicenseIndex.LicenseEntry entry = new SpdxLicenseIndex.LicenseEntry();
+        entry.setId("Apache-2.0");
+        entry.setName("Apache License 2.0");
+        entry.setSeeAlso(List.of("apache-org/licenses/LICENSE-2.0", "opensource-org/licenses/Apache-2.0"));
+        SpdxLicenseIndex.LicenseEntry entryWithoutName = new SpdxLicenseIndex.LicenseEntry();
+        entryWithoutName.setId("NOASSERTION");
+        SpdxLicenseIndex index = new SpdxLicenseIndex();
+        index.setLicenseListVersion("3.26");
+        index.setLicenses(List.of(entry, entryWithoutName));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.write(out);
+
+        SpdxLicenseIndex read = SpdxLicenseIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read).isEqualTo(index);
+        assertThat(read.getLicenses().get(1).getName()).isNull();
+        assertThat(read.getLicenses().get(1).getSeeAlso()).isEmpty();
+    }
+
+    @Test
+    void testLoadBundledIndex() throws IOException {
+        Optional<SpdxLicenseIndex> optionalIndex = SpdxLicenseIndex.load();
+
+        assertThat(optionalIndex).hasValueSatisfying(index -> {
+            assertThat(index.getLicenseListVersion()).isEqualTo(SpdxLicenseUtils.getSPDXLicenseListVersion());
+            assertThat(index.getLicenses()).hasSize(SpdxLicenseUtils.getNumberOfSPDXLicenses());
+            assertThat(index.getLicenses()).filteredOn(entry -> "Apache-2.0".equals(entry.getId()))
+                    .singleElement()
+                    .satisfies(entry -> assertThat(entry.getSeeAlso()).contains("apache-org/licenses/LICENSE-2.0"));
+        });
+    }
+}
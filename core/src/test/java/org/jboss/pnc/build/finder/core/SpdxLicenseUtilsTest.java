@@ -16,6 +16,7 @@
 package org.jboss.pnc.build.finder.core;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.jboss.pnc.build.finder.core.SpdxLicenseUtils.NONE;
 
@@ -27,6 +28,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
@@ -110,6 +114,38 @@ class SpdxLicenseUtilsTest {
                 .isEmpty();
     }
 
+    @Test
+    void testFindMatchingLicenseSeeAlsoSharedUrl() {
+        // GPL-2.0, GPL-2.0+, GPL-2.0-only, and GPL-2.0-or-later share this URL, and the longest identifier comes first
+        String url = "https://www.gnu.org/licenses/old-licenses/gpl-2.0-standalone.html";
+        assertThat(SpdxLicenseUtils.findMatchingLicenseSeeAlso(url)).hasValue("GPL-2.0-or-later");
+    }
+
+    @Test
+    void testFindSeeAlsoLicenseIdMatchesLinearSearch() throws IOException {
+        SpdxLicenseIndex index = SpdxLicenseIndex.load().orElseGet(SpdxLicenseIndex::create);
+        // The linear search went through the licenses with the longest identifiers first, then in natural order
+        List<SpdxLicenseIndex.LicenseEntry> licenses = index.getLicenses()
+                .stream()
+                .sorted(
+                        comparing((SpdxLicenseIndex.LicenseEntry entry) -> entry.getId().length()).reversed()
+                                .thenComparing(SpdxLicenseIndex.LicenseEntry::getId))
+                .toList();
+        Set<String> urls = licenses.stream()
+                .flatMap(entry -> entry.getSeeAlso().stream())
+                .collect(Collectors.toSet());
+
+        assertThat(urls).isNotEmpty();
+
+        for (String url : urls) {
+            Optional<String> licenseId = licenses.stream()
+                    .filter(entry -> entry.getSeeAlso().contains(url))
+                    .map(SpdxLicenseIndex.LicenseEntry::getId)
+                    .findFirst();
+            assertThat(SpdxLicenseUtils.findSeeAlsoLicenseId(url)).as(url).isEqualTo(licenseId);
+        }
+    }
+
     @Test
     void testGetNumberOfSPDXLicenses() {
         assertThat(SpdxLicenseUtils.getNumberOfSPDXLicenses()).isPositive();
@@ -198,6 +234,9 @@ class SpdxLicenseUtilsTest {
         assertThat(SpdxLicenseUtils.findMatchingSPDXLicenseIdentifierOrLicense(s1)).hasValue("Apache-2.0");
         assertThat(SpdxLicenseUtils.findMatchingSPDXLicenseIdentifierOrLicense(s2)).hasValue("Apache-2.0");
 
+        assertThat(SpdxLicenseUtils.findMatchingLicenseText(s1)).hasValue("Apache-2.0");
+        assertThat(SpdxLicenseUtils.findMatchingLicenseText(s2)).hasValue("Apache-2.0");
+
         try (FileObject fo = VFS.getManager().resolveFile(path.toUri())) {
             try (FileContent fc = fo.getContent(); InputStream in = fc.getInputStream()) {
                 String s = new String(in.readAllBytes(), UTF_8);
@@ -22,6 +22,7 @@ import static org.jboss.pnc.build.finder.core.Utils.getBuildFinderScmRevision;
 import static org.jboss.pnc.build.finder.core.Utils.getBuildFinderVersion;
 import static org.jboss.pnc.build.finder.core.Utils.getUserHome;
 import static org.jboss.pnc.build.finder.core.Utils.retry;
+import static org.jboss.pnc.build.finder.core.Utils.sortDistinct;
 
 import java.nio.file.Path;
 
@@ -113,4 +114,11 @@ class UtilsTest {
             throw new IllegalArgumentException();
         })).isInstanceOf(RuntimeException.class).hasCauseInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    void testSortDistinct() {
+        assertThat(sortDistinct(new int[0])).isEmpty();
+        assertThat(sortDistinct(new int[] { 3, 1, 2 })).containsExactly(1, 2, 3);
+        assertThat(sortDistinct(new int[] { 5, 1, 5, 3, 1, 1, -2 })).containsExactly(-2, 1, 3, 5);
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.build.finder.core.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Timer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Base class of the local stand-in servers. The servers listen on a random port on the loopback address and can be
+ * configured to add latency to every request and to fail a fraction of the requests with an HTTP server error.
+ */
+public abstract class AbstractStandInServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractStandInServer.class);
+
+    private static final int BACKLOG = 256;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final Timer timer = new Timer();
+
+    private volatile Duration latency = Duration.ZERO;
+
+    private volatile Duration latencyJitter = Duration.ZERO;
+
+    private volatile double errorRate;
+
+    protected AbstractStandInServer(String context) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), BACKLOG);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(context, this::handleExchange);
+        server.start();
+    }
+
+    private void handleExchange(HttpExchange exchange) throws IOException {
+        try (Timer.Context ignored = timer.time()) {
+            injectLatency();
+
+            if (errorRate > 0.0D && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendResponse(exchange, 503, "text/plain", "Injected error");
+                return;
+            }
+
+            handle(exchange);
+        } catch (RuntimeException e) {
+            LOGGER.error("Error handling {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            sendResponse(exchange, 500, "text/plain", String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void injectLatency() {
+        long nanos = latency.toNanos();
+        long jitterNanos = latencyJitter.toNanos();
+
+        if (jitterNanos > 0L) {
+            nanos += ThreadLocalRandom.current().nextLong(jitterNanos + 1L);
+        }
+
+        if (nanos > 0L) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    protected abstract void handle(HttpExchange exchange) throws IOException;
+
+    protected static String readRequestBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    protected static void sendResponse(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Sets the latency added to every request. A random delay between zero and the given jitter is added on top.
+     *
+     * @param latency the fixed latency
+     * @param latencyJitter the maximum random latency
+     */
+    public void setLatency(Duration latency, Duration latencyJitter) {
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+    }
+
+    /**
+     * Sets the fraction of requests which fail with HTTP status 503.
+     *
+     * @param errorRate the error rate between 0 and 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Gets the timer of all requests handled by this server, including the injected latency.
+     *
+     * @return the request timer
+     */
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public URL getURL() throws MalformedURLException {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/").toURL();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        Utils.shutdownAndAwaitTermination(executor);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.green;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jboss.pnc.build.finder.core.Checksum;
+import org.jboss.pnc.build.finder.core.ChecksumType;
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.jboss.pnc.build.finder.koji.KojiLocalArchive;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+import com.redhat.red.build.koji.model.xmlrpc.KojiBuildInfo;
+
+/**
+ * Heap footprint benchmark for the build model. It measures the heap used by builds holding local archives with a
+ * single file each, which is the common case. The number of builds and archives can be set with the {@code heap.*}
+ * system properties.
+ */
+class HeapFootprintIT {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HeapFootprintIT.class);
+
+    private static final int NUM_BUILDS = Integer.getInteger("heap.builds", 10_000);
+
+    private static final int ARCHIVES_PER_BUILD = Integer.getInteger("heap.archives-per-build", 5);
+
+    private static final int NUM_GCS = 5;
+
+    private static long getUsedHeap() throws InterruptedException {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+
+        for (int i = 0; i < NUM_GCS; i++) {
+            System.gc();
+            Thread.sleep(100L);
+        }
+
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+    private static KojiBuild createBuild(int id) {
+        KojiBuildInfo buildInfo = new KojiBuildInfo();
+        buildInfo.setId(id);
+        buildInfo.setNvr("build-" + id + "-1.0-1");
+
+        KojiBuild build = new KojiBuild(buildInfo);
+
+        for (int i = 0; i < ARCHIVES_PER_BUILD; i++) {
+            int archiveId = id * ARCHIVES_PER_BUILD + i;
+            String filename = "distribution.zip!/lib/archive-" + archiveId + ".jar";
+            KojiArchiveInfo archive = new KojiArchiveInfo();
+            archive.setArchiveId(archiveId);
+            archive.setBuildId(id);
+            archive.setFilename(filename);
+
+            Checksum checksum = new Checksum(ChecksumType.md5, String.format("%032x", archiveId), filename, 1024L);
+            build.getArchives()
+                    .add(
+                            new KojiLocalArchive(
+                                    archive,
+                                    Collections.singletonList(filename),
+                                    Collections.singletonList(checksum)));
+        }
+
+        return build;
+    }
+
+    @Test
+    void testHeapFootprint() throws InterruptedException {
+        long before = getUsedHeap();
+        List<KojiBuild> builds = new ArrayList<>(NUM_BUILDS);
+
+        for (int i = 1; i <= NUM_BUILDS; i++) {
+            builds.add(createBuild(i));
+        }
+
+        long after = getUsedHeap();
+        long used = Math.max(0L, after - before);
+        int numArchives = builds.stream().mapToInt(build -> build.getArchives().size()).sum();
+
+        LOGGER.info(
+                "Heap used by {} builds with {} local archives: {} bytes ({} bytes per build, {} bytes per archive)",
+                green(builds.size()),
+                green(numArchives),
+                green(used),
+                green(used / NUM_BUILDS),
+                green(numArchives > 0 ? used / numArchives : 0L));
+
+        assertThat(builds).hasSize(NUM_BUILDS);
+        assertThat(numArchives).isEqualTo(NUM_BUILDS * ARCHIVES_PER_BUILD);
+    }
+}
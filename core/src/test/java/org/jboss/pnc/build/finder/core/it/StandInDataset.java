@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jboss.pnc.build.finder.core.Checksum;
+import org.jboss.pnc.build.finder.core.ChecksumType;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Synthetic dataset served by the stand-in Koji hub and PNC server. Archive {@code i} belongs to build
+ * {@code i / archivesPerBuild} and all of its fields and checksums are derived from {@code i}, so only the checksum
+ * indexes are kept in memory. A configurable percentage of the builds is served by PNC and the rest by Koji.
+ */
+public class StandInDataset {
+    static final int FIRST_BUILD_ID = 1_000_000;
+
+    static final int FIRST_ARCHIVE_ID = 10_000_000;
+
+    static final int FIRST_TASK_ID = 50_000_000;
+
+    static final String VERSION = "1.0.0.redhat-00001";
+
+    private static final int PERCENT = 100;
+
+    private static final int MAX_EXTRA_SIZE = 65536;
+
+    private final int numArchives;
+
+    private final int archivesPerBuild;
+
+    private final int pncPercent;
+
+    private final Map<ChecksumType, Map<String, Integer>> indexes;
+
+    /**
+     * Creates a new dataset.
+     *
+     * @param numArchives the number of archives
+     * @param archivesPerBuild the number of archives of each build
+     * @param pncPercent the percentage of builds served by PNC instead of Koji
+     */
+    public StandInDataset(int numArchives, int archivesPerBuild, int pncPercent) {
+        if (numArchives < 0 || archivesPerBuild <= 0 || pncPercent < 0 || pncPercent > PERCENT) {
+            throw new IllegalArgumentException("Invalid dataset parameters");
+        }
+
+        this.numArchives = numArchives;
+        this.archivesPerBuild = archivesPerBuild;
+        this.pncPercent = pncPercent;
+        this.indexes = new EnumMap<>(ChecksumType.class);
+
+        for (ChecksumType type : ChecksumType.values()) {
+            Map<String, Integer> index = Maps.newHashMapWithExpectedSize(numArchives);
+
+            for (int i = 0; i < numArchives; i++) {
+                index.put(getChecksumValue(type, i), i);
+            }
+
+            indexes.put(type, index);
+        }
+    }
+
+    public int getNumArchives() {
+        return numArchives;
+    }
+
+    public int getNumBuilds() {
+        return (numArchives + archivesPerBuild - 1) / archivesPerBuild;
+    }
+
+    /**
+     * Finds the archive with the given checksum.
+     *
+     * @param type the checksum type
+     * @param value the checksum value
+     * @return the archive index, or -1 if there is no such archive
+     */
+    public int findArchive(ChecksumType type, String value) {
+        return indexes.get(type).getOrDefault(value, -1);
+    }
+
+    public boolean isPncBuild(int buildIndex) {
+        return buildIndex % PERCENT < pncPercent;
+    }
+
+    public boolean isKojiBuild(int buildIndex) {
+        return buildIndex >= 0 && buildIndex < getNumBuilds() && !isPncBuild(buildIndex);
+    }
+
+    public int getBuildIndex(int archive) {
+        return archive / archivesPerBuild;
+    }
+
+    public int getFirstArchive(int buildIndex) {
+        return buildIndex * archivesPerBuild;
+    }
+
+    public int getLastArchive(int buildIndex) {
+        return Math.min(numArchives, getFirstArchive(buildIndex) + archivesPerBuild);
+    }
+
+    public static int getBuildId(int buildIndex) {
+        return FIRST_BUILD_ID + buildIndex;
+    }
+
+    public static int getBuildIndexForId(int buildId) {
+        return buildId - FIRST_BUILD_ID;
+    }
+
+    public static int getArchiveId(int archive) {
+        return FIRST_ARCHIVE_ID + archive;
+    }
+
+    public static int getTaskId(int buildIndex) {
+        return FIRST_TASK_ID + buildIndex;
+    }
+
+    public static int getBuildIndexForTaskId(int taskId) {
+        return taskId - FIRST_TASK_ID;
+    }
+
+    public static String getGroupId(int buildIndex) {
+        return "org.standin.group" + buildIndex % PERCENT;
+    }
+
+    public static String getArtifactId(int buildIndex) {
+        return "artifact" + buildIndex;
+    }
+
+    public String getFilename(int archive) {
+        int buildIndex = getBuildIndex(archive);
+        int n = archive - getFirstArchive(buildIndex);
+        String basename = getArtifactId(buildIndex) + "-" + VERSION;
+        return n == 0 ? basename + ".pom" : basename + "-part" + n + ".jar";
+    }
+
+    public static long getSize(int archive) {
+        return 1024L + archive % MAX_EXTRA_SIZE;
+    }
+
+    public static String getChecksumValue(ChecksumType type, int archive) {
+        String data = "standin-archive-" + archive;
+
+        return switch (type) {
+            case md5 -> DigestUtils.md5Hex(data);
+            case sha1 -> DigestUtils.sha1Hex(data);
+            case sha256 -> DigestUtils.sha256Hex(data);
+        };
+    }
+
+    /**
+     * Gets a checksum table for all archives of the dataset, followed by the given number of checksums which do not
+     * match any archive.
+     *
+     * @param type the checksum type
+     * @param numMissing the number of checksums which do not match any archive
+     * @return the checksum table
+     */
+    public Map<Checksum, Collection<String>> getChecksumTable(ChecksumType type, int numMissing) {
+        Map<Checksum, Collection<String>> checksumTable = new LinkedHashMap<>(numArchives + numMissing, 1.0f);
+
+        for (int i = 0; i < numArchives + numMissing; i++) {
+            String filename = getFilename(i);
+            checksumTable.put(
+                    new Checksum(type, getChecksumValue(type, i), filename, getSize(i)),
+                    Collections.singletonList(filename));
+        }
+
+        return checksumTable;
+    }
+
+    /**
+     * Converts the given checksum table to the given checksum type.
+     *
+     * @param checksumTable the checksum table
+     * @param type the checksum type
+     * @return the converted checksum table
+     */
+    public Map<Checksum, Collection<String>> convertChecksumTable(
+            Map<Checksum, Collection<String>> checksumTable,
+            ChecksumType type) {
+        Map<Checksum, Collection<String>> convertedTable = new LinkedHashMap<>(checksumTable.size(), 1.0f);
+
+        for (Map.Entry<Checksum, Collection<String>> entry : checksumTable.entrySet()) {
+            Checksum checksum = entry.getKey();
+            int archive = findArchive(checksum.getType(), checksum.getValue());
+
+            if (archive == -1) {
+                convertedTable.put(checksum, entry.getValue());
+            } else {
+                convertedTable.put(
+                        new Checksum(type, getChecksumValue(type, archive), checksum.getFilename(), getSize(archive)),
+                        entry.getValue());
+            }
+        }
+
+        return convertedTable;
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import static org.jboss.pnc.build.finder.core.it.StandInDataset.VERSION;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.jboss.pnc.build.finder.core.ChecksumType;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Local stand-in for the Koji XML-RPC hub serving a {@link StandInDataset}. It supports {@code multiCall} and the
+ * methods used by the build finder: {@code listArchives}, {@code getBuild}, {@code getBuildType}, {@code listTags},
+ * {@code getTaskInfo}, {@code getRPM}, {@code listBuildRPMs}, {@code getArchiveTypes} and {@code getAPIVersion}. The
+ * dataset does not contain any RPMs.
+ */
+public class StandInKojiHub extends AbstractStandInServer {
+    private static final String CONTENT_TYPE = "text/xml";
+
+    private static final String DATE = "2020-01-01 00:00:00.000000";
+
+    private static final double TS = 1577836800.0D;
+
+    private static final int OWNER_ID = 1;
+
+    private static final int TAG_ID = 1;
+
+    private static final int VOLUME_ID = 0;
+
+    private static final int FAULT_CODE = 1000;
+
+    private static final List<Map<String, Object>> ARCHIVE_TYPES = List.of(
+            archiveType(1, "jar", "Jar file", "jar war rar ear sar kar jdocbook jdocbook-style plugin"),
+            archiveType(2, "zip", "Zip file", "zip"),
+            archiveType(3, "pom", "Maven Project Object Management file", "pom"),
+            archiveType(4, "tar", "Tar file", "tar tar.gz tar.bz2 tar.xz tgz"),
+            archiveType(5, "xml", "XML file", "xml"),
+            archiveType(6, "so", "Shared library", "so"),
+            archiveType(7, "dll", "Windows dynamic link library", "dll"),
+            archiveType(8, "dylib", "OS X dynamic library", "dylib"));
+
+    private final StandInDataset dataset;
+
+    private final DocumentBuilderFactory documentBuilderFactory;
+
+    public StandInKojiHub(StandInDataset dataset) throws IOException {
+        super("/");
+        this.dataset = dataset;
+        this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "text/plain", "Method not allowed");
+            return;
+        }
+
+        Element methodCall = parse(readRequestBody(exchange));
+        String methodName = getChildElement(methodCall, "methodName").getTextContent().trim();
+        List<Object> params = new ArrayList<>();
+        Element paramsElement = getChildElement(methodCall, "params");
+
+        if (paramsElement != null) {
+            for (Element param : getChildElements(paramsElement)) {
+                params.add(parseValue(getChildElement(param, "value")));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder("<?xml version='1.0'?><methodResponse>");
+
+        try {
+            sb.append("<params><param>");
+            writeValue(sb, call(methodName, params));
+            sb.append("</param></params>");
+        } catch (IllegalArgumentException e) {
+            sb.setLength(0);
+            sb.append("<?xml version='1.0'?><methodResponse><fault>");
+            writeValue(sb, fault(e.getMessage()));
+            sb.append("</fault>");
+        }
+
+        sb.append("</methodResponse>");
+
+        sendResponse(exchange, 200, CONTENT_TYPE, sb.toString());
+    }
+
+    private Object call(String methodName, List<Object> params) {
+        return switch (methodName) {
+            case "getAPIVersion" -> 1;
+            case "getArchiveTypes" -> ARCHIVE_TYPES;
+            case "multiCall" -> multiCall(params);
+            case "listArchives" -> listArchives(getStruct(params));
+            case "getBuild" -> getBuild(getBuildIndex(params));
+            case "getBuildType" -> getBuildType(getBuildIndex(params));
+            case "listTags" -> listTags(getBuildIndex(params));
+            case "getTaskInfo" -> getTaskInfo(params);
+            case "getRPM" -> null;
+            case "listBuildRPMs" -> Collections.emptyList();
+            default -> throw new IllegalArgumentException("Unsupported method: " + methodName);
+        };
+    }
+
+    private List<Object> multiCall(List<Object> params) {
+        List<?> calls = (List<?>) params.get(0);
+        List<Object> results = new ArrayList<>(calls.size());
+
+        for (Object o : calls) {
+            Map<?, ?> call = (Map<?, ?>) o;
+            String methodName = (String) call.get("methodName");
+            List<Object> callParams = new ArrayList<>((List<?>) call.get("params"));
+
+            try {
+                results.add(Collections.singletonList(call(methodName, callParams)));
+            } catch (IllegalArgumentException e) {
+                results.add(fault(e.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    private List<Map<String, Object>> listArchives(Map<?, ?> query) {
+        Object checksum = query.get("checksum");
+
+        if (checksum != null) {
+            int archive = dataset.findArchive(ChecksumType.md5, (String) checksum);
+
+            if (archive != -1 && dataset.isKojiBuild(dataset.getBuildIndex(archive))) {
+                return Collections.singletonList(archiveInfo(archive));
+            }
+
+            return Collections.emptyList();
+        }
+
+        Object buildId = query.get("buildID");
+
+        if (buildId != null) {
+            int buildIndex = StandInDataset.getBuildIndexForId((Integer) buildId);
+
+            if (!dataset.isKojiBuild(buildIndex)) {
+                return Collections.emptyList();
+            }
+
+            int lastArchive = dataset.getLastArchive(buildIndex);
+            List<Map<String, Object>> archives = new ArrayList<>(lastArchive - dataset.getFirstArchive(buildIndex));
+
+            for (int i = dataset.getFirstArchive(buildIndex); i < lastArchive; i++) {
+                archives.add(archiveInfo(i));
+            }
+
+            return archives;
+        }
+
+        throw new IllegalArgumentException("Unsupported archive query: " + query);
+    }
+
+    private Map<String, Object> archiveInfo(int archive) {
+        String filename = dataset.getFilename(archive);
+        boolean pom = filename.endsWith(".pom");
+        Map<String, Object> archiveType = ARCHIVE_TYPES.get(pom ? 2 : 0);
+        Map<String, Object> info = new LinkedHashMap<>();
+
+        info.put("build_id", StandInDataset.getBuildId(dataset.getBuildIndex(archive)));
+        info.put("type_description", archiveType.get("description"));
+        info.put("extra", null);
+        info.put("checksum", StandInDataset.getChecksumValue(ChecksumType.md5, archive));
+        info.put("type_id", archiveType.get("id"));
+        info.put("filename", filename);
+        info.put("type_name", archiveType.get("name"));
+        info.put("metadata_only", Boolean.FALSE);
+        info.put("type_extensions", archiveType.get("extensions"));
+        info.put("btype", "maven");
+        info.put("checksum_type", 0);
+        info.put("btype_id", 2);
+        info.put("buildroot_id", null);
+        info.put("id", StandInDataset.getArchiveId(archive));
+        info.put("size", (int) StandInDataset.getSize(archive));
+
+        return info;
+    }
+
+    private Map<String, Object> getBuild(int buildIndex) {
+        if (!dataset.isKojiBuild(buildIndex)) {
+            return null;
+        }
+
+        String name = StandInDataset.getGroupId(buildIndex) + "-" + StandInDataset.getArtifactId(buildIndex);
+        String version = VERSION.replace('-', '_');
+        int buildId = StandInDataset.getBuildId(buildIndex);
+        Map<String, Object> info = new LinkedHashMap<>();
+
+        info.put("cg_id", null);
+        info.put("package_name", name);
+        info.put("extra", null);
+        info.put("creation_time", DATE);
+        info.put("completion_time", DATE);
+        info.put("package_id", buildId);
+        info.put("cg_name", null);
+        info.put("id", buildId);
+        info.put("build_id", buildId);
+        info.put("epoch", null);
+        info.put("source", null);
+        info.put("state", 1);
+        info.put("version", version);
+        info.put("completion_ts", TS);
+        info.put("owner_id", OWNER_ID);
+        info.put("owner_name", "standin");
+        info.put("nvr", name + "-" + version + "-1");
+        info.put("start_time", DATE);
+        info.put("creation_event_id", buildId);
+        info.put("start_ts", TS);
+        info.put("volume_id", VOLUME_ID);
+        info.put("creation_ts", TS);
+        info.put("name", name);
+        info.put("task_id", StandInDataset.getTaskId(buildIndex));
+        info.put("volume_name", "DEFAULT");
+        info.put("release", "1");
+
+        return info;
+    }
+
+    private Map<String, Object> getBuildType(int buildIndex) {
+        if (!dataset.isKojiBuild(buildIndex)) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, Object> maven = new LinkedHashMap<>();
+
+        maven.put("build_id", StandInDataset.getBuildId(buildIndex));
+        maven.put("group_id", StandInDataset.getGroupId(buildIndex));
+        maven.put("artifact_id", StandInDataset.getArtifactId(buildIndex));
+        maven.put("version", VERSION);
+
+        return Collections.<String, Object> singletonMap("maven", maven);
+    }
+
+    private List<Map<String, Object>> listTags(int buildIndex) {
+        if (!dataset.isKojiBuild(buildIndex)) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Object> tag = new LinkedHashMap<>();
+
+        tag.put("maven_support", Boolean.TRUE);
+        tag.put("locked", Boolean.FALSE);
+        tag.put("name", "standin-candidate");
+        tag.put("perm", null);
+        tag.put("perm_id", null);
+        tag.put("arches", null);
+        tag.put("maven_include_all", Boolean.TRUE);
+        tag.put("id", TAG_ID);
+
+        return Collections.singletonList(tag);
+    }
+
+    private Map<String, Object> getTaskInfo(List<Object> params) {
+        int taskId = (Integer) params.get(0);
+        boolean request = params.size() > 1 && Boolean.TRUE.equals(params.get(1));
+        int buildIndex = StandInDataset.getBuildIndexForTaskId(taskId);
+
+        if (!dataset.isKojiBuild(buildIndex)) {
+            return null;
+        }
+
+        Map<String, Object> info = new LinkedHashMap<>();
+
+        info.put("weight", 0.2D);
+        info.put("parent", null);
+        info.put("completion_time", DATE);
+
+        if (request) {
+            Map<String, Object> opts = new LinkedHashMap<>();
+            opts.put("goals", List.of("install", "deploy"));
+            opts.put("properties", Collections.emptyMap());
+            info.put(
+                    "request",
+                    List.of(
+                            "git+https://git.example.com/" + StandInDataset.getArtifactId(buildIndex) + ".git#"
+                                    + StandInDataset.getChecksumValue(ChecksumType.sha1, buildIndex),
+                            "standin-candidate",
+                            opts));
+        }
+
+        info.put("start_time", DATE);
+        info.put("start_ts", TS);
+        info.put("waiting", Boolean.FALSE);
+        info.put("awaited", null);
+        info.put("label", null);
+        info.put("priority", 20);
+        info.put("channel_id", 1);
+        info.put("state", 2);
+        info.put("create_time", DATE);
+        info.put("create_ts", TS);
+        info.put("owner", OWNER_ID);
+        info.put("host_id", 1);
+        info.put("method", "maven");
+        info.put("completion_ts", TS);
+        info.put("arch", "noarch");
+        info.put("id", taskId);
+
+        return info;
+    }
+
+    private static Map<?, ?> getStruct(List<Object> params) {
+        if (params.isEmpty() || !(params.get(0) instanceof Map<?, ?> struct)) {
+            throw new IllegalArgumentException("Expected struct parameter");
+        }
+
+        return struct;
+    }
+
+    private static int getBuildIndex(List<Object> params) {
+        if (params.isEmpty() || !(params.get(0) instanceof Integer buildId)) {
+            throw new IllegalArgumentException("Expected build id parameter");
+        }
+
+        return StandInDataset.getBuildIndexForId(buildId);
+    }
+
+    private static Map<String, Object> archiveType(int id, String name, String description, String extensions) {
+        Map<String, Object> archiveType = new LinkedHashMap<>();
+
+        archiveType.put("description", description);
+        archiveType.put("extensions", extensions);
+        archiveType.put("id", id);
+        archiveType.put("name", name);
+
+        return Collections.unmodifiableMap(archiveType);
+    }
+
+    private static Map<String, Object> fault(String message) {
+        Map<String, Object> fault = new LinkedHashMap<>();
+
+        fault.put("faultCode", FAULT_CODE);
+        fault.put("faultString", message);
+
+        return fault;
+    }
+
+    private Element parse(String xml) throws IOException {
+        try {
+            DocumentBuilder builder = documentBuilderFactory.newDocumentBuilder();
+            Document document = builder.parse(new InputSource(new StringReader(xml)));
+            return document.getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid XML-RPC request", e);
+        }
+    }
+
+    private static List<Element> getChildElements(Element element) {
+        List<Element> children = new ArrayList<>();
+
+        for (Node node = element.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element child) {
+                children.add(child);
+            }
+        }
+
+        return children;
+    }
+
+    private static Element getChildElement(Element element, String name) {
+        for (Element child : getChildElements(element)) {
+            if (child.getTagName().equals(name)) {
+                return child;
+            }
+        }
+
+        return null;
+    }
+
+    private static Object parseValue(Element value) {
+        List<Element> children = getChildElements(value);
+
+        if (children.isEmpty()) {
+            return value.getTextContent();
+        }
+
+        Element element = children.get(0);
+        String text = element.getTextContent().trim();
+
+        return switch (element.getTagName()) {
+            case "int", "i4" -> Integer.valueOf(text);
+            case "i8" -> Long.valueOf(text);
+            case "boolean" -> "1".equals(text);
+            case "double" -> Double.valueOf(text);
+            case "nil" -> null;
+            case "array" -> {
+                List<Object> list = new ArrayList<>();
+
+                for (Element child : getChildElements(getChildElement(element, "data"))) {
+                    list.add(parseValue(child));
+                }
+
+                yield list;
+            }
+            case "struct" -> {
+                Map<String, Object> struct = new LinkedHashMap<>();
+
+                for (Element member : getChildElements(element)) {
+                    struct.put(
+                            getChildElement(member, "name").getTextContent().trim(),
+                            parseValue(getChildElement(member, "value")));
+                }
+
+                yield struct;
+            }
+            default -> element.getTextContent();
+        };
+    }
+
+    private static void writeValue(StringBuilder sb, Object value) {
+        sb.append("<value>");
+
+        if (value == null) {
+            sb.append("<nil/>");
+        } else if (value instanceof Boolean b) {
+            sb.append("<boolean>").append(b ? 1 : 0).append("</boolean>");
+        } else if (value instanceof Integer i) {
+            sb.append("<int>").append(i).append("</int>");
+        } else if (value instanceof Long l) {
+            sb.append("<i8>").append(l).append("</i8>");
+        } else if (value instanceof Double d) {
+            sb.append("<double>").append(d).append("</double>");
+        } else if (value instanceof List<?> list) {
+            sb.append("<array><data>");
+
+            for (Object o : list) {
+                writeValue(sb, o);
+            }
+
+            sb.append("</data></array>");
+        } else if (value instanceof Map<?, ?> map) {
+            sb.append("<struct>");
+
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                sb.append("<member><name>").append(entry.getKey()).append("</name>");
+                writeValue(sb, entry.getValue());
+                sb.append("</member>");
+            }
+
+            sb.append("</struct>");
+        } else {
+            sb.append("<string>").append(escape(value.toString())).append("</string>");
+        }
+
+        sb.append("</value>");
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import static org.jboss.pnc.api.constants.Attributes.BUILD_BREW_NAME;
+import static org.jboss.pnc.api.constants.Attributes.BUILD_BREW_VERSION;
+import static org.jboss.pnc.build.finder.core.it.StandInDataset.VERSION;
+import static org.jboss.pnc.enums.BuildType.MVN;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.pnc.build.finder.core.ChecksumType;
+import org.jboss.pnc.dto.Artifact;
+import org.jboss.pnc.dto.Build;
+import org.jboss.pnc.dto.BuildConfigurationRevisionRef;
+import org.jboss.pnc.dto.ProjectRef;
+import org.jboss.pnc.dto.SCMRepository;
+import org.jboss.pnc.dto.User;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Local stand-in for the PNC REST endpoints used by {@code PncClientImpl} serving a {@link StandInDataset}. Artifacts
+ * can be looked up by {@code md5}, {@code sha1} or {@code sha256}. Builds have no push results and no product
+ * milestones.
+ */
+public class StandInPncServer extends AbstractStandInServer {
+    private static final String CONTEXT = "/pnc-rest/v2/";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final Instant TIME = Instant.parse("2020-01-01T00:00:00Z");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final StandInDataset dataset;
+
+    public StandInPncServer(StandInDataset dataset) throws IOException {
+        super(CONTEXT);
+        this.dataset = dataset;
+    }
+
+    @Override
+    protected void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+
+        if (!"GET".equals(exchange.getRequestMethod()) || !"artifacts".equals(path)) {
+            sendResponse(exchange, 404, CONTENT_TYPE, "{\"errorMessage\":\"Not found\"}");
+            return;
+        }
+
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        int archive = -1;
+
+        for (ChecksumType type : ChecksumType.values()) {
+            String value = query.get(type.name());
+
+            if (value != null) {
+                archive = dataset.findArchive(type, value);
+                break;
+            }
+        }
+
+        List<Artifact> content = archive != -1 && dataset.isPncBuild(dataset.getBuildIndex(archive))
+                ? Collections.singletonList(getArtifact(archive))
+                : Collections.emptyList();
+        Map<String, Object> page = new LinkedHashMap<>();
+
+        page.put("pageIndex", 0);
+        page.put("pageSize", Integer.parseInt(query.getOrDefault("pageSize", "1")));
+        page.put("totalPages", content.isEmpty() ? 0 : 1);
+        page.put("totalHits", content.size());
+        page.put("content", content);
+
+        sendResponse(exchange, 200, CONTENT_TYPE, MAPPER.writeValueAsString(page));
+    }
+
+    private Artifact getArtifact(int archive) {
+        int buildIndex = dataset.getBuildIndex(archive);
+        String groupId = StandInDataset.getGroupId(buildIndex);
+        String artifactId = StandInDataset.getArtifactId(buildIndex);
+        String filename = dataset.getFilename(archive);
+        String identifier = groupId + ":" + artifactId + (filename.endsWith(".pom") ? ":pom:" + VERSION
+                : ":jar:" + VERSION + ":part" + (archive - dataset.getFirstArchive(buildIndex)));
+        Map<String, String> attributes = new HashMap<>(2, 1.0f);
+
+        attributes.put(BUILD_BREW_NAME, groupId + "-" + artifactId);
+        attributes.put(BUILD_BREW_VERSION, VERSION);
+
+        String buildId = String.valueOf(StandInDataset.getBuildId(buildIndex));
+        Build build = Build.builder()
+                .id(buildId)
+                .startTime(TIME)
+                .submitTime(TIME)
+                .endTime(TIME)
+                .attributes(attributes)
+                .user(User.builder().username("standin").build())
+                .scmRepository(
+                        SCMRepository.builder().internalUrl("http://git.example.com/" + artifactId + ".git").build())
+                .scmRevision("main")
+                .project(ProjectRef.refBuilder().id(buildId).build())
+                .buildConfigRevision(BuildConfigurationRevisionRef.refBuilder().id(buildId).buildType(MVN).build())
+                .build();
+
+        return Artifact.builder()
+                .id(String.valueOf(StandInDataset.getArchiveId(archive)))
+                .identifier(identifier)
+                .md5(StandInDataset.getChecksumValue(ChecksumType.md5, archive))
+                .sha1(StandInDataset.getChecksumValue(ChecksumType.sha1, archive))
+                .sha256(StandInDataset.getChecksumValue(ChecksumType.sha256, archive))
+                .size(StandInDataset.getSize(archive))
+                .filename(filename)
+                .build(build)
+                .build();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> query = new HashMap<>();
+
+        for (String param : rawQuery.split("&")) {
+            int index = param.indexOf('=');
+
+            if (index > 0) {
+                query.put(
+                        URLDecoder.decode(param.substring(0, index), StandardCharsets.UTF_8),
+                        URLDecoder.decode(param.substring(index + 1), StandardCharsets.UTF_8));
+            }
+        }
+
+        return query;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.core.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.jboss.pnc.build.finder.core.AnsiUtils.green;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.pnc.build.finder.core.BuildConfig;
+import org.jboss.pnc.build.finder.core.BuildFinder;
+import org.jboss.pnc.build.finder.core.BuildFinderUtils;
+import org.jboss.pnc.build.finder.core.BuildSystem;
+import org.jboss.pnc.build.finder.core.BuildSystemInteger;
+import org.jboss.pnc.build.finder.core.Checksum;
+import org.jboss.pnc.build.finder.core.ChecksumType;
+import org.jboss.pnc.build.finder.core.FindBuildsResult;
+import org.jboss.pnc.build.finder.core.PncBuildFinder;
+import org.jboss.pnc.build.finder.koji.KojiBuild;
+import org.jboss.pnc.build.finder.koji.KojiClientSession;
+import org.jboss.pnc.build.finder.pnc.client.PncClientImpl;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Snapshot;
+
+/**
+ * Offline throughput benchmark which drives the build finder end to end against the stand-in Koji hub and PNC server.
+ * The dataset and the injected latency and errors can be set with the {@code standin.*} system properties.
+ */
+class StandInThroughputIT {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StandInThroughputIT.class);
+
+    private static final int NUM_ARCHIVES = Integer.getInteger("standin.archives", 100_000);
+
+    private static final int ARCHIVES_PER_BUILD = Integer.getInteger("standin.archives-per-build", 10);
+
+    private static final int PNC_PERCENT = Integer.getInteger("standin.pnc-percent", 50);
+
+    private static final int NUM_MISSING = Integer.getInteger("standin.missing", 1_000);
+
+    private static final long LATENCY = Long.getLong("standin.latency-ms", 0L);
+
+    private static final long LATENCY_JITTER = Long.getLong("standin.latency-jitter-ms", 0L);
+
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("standin.error-rate", "0"));
+
+    @Test
+    void testThroughput() throws Exception {
+        StandInDataset dataset = new StandInDataset(NUM_ARCHIVES, ARCHIVES_PER_BUILD, PNC_PERCENT);
+
+        try (StandInKojiHub kojiHub = new StandInKojiHub(dataset);
+                StandInPncServer pncServer = new StandInPncServer(dataset)) {
+            for (AbstractStandInServer server : new AbstractStandInServer[] { kojiHub, pncServer }) {
+                server.setLatency(Duration.ofMillis(LATENCY), Duration.ofMillis(LATENCY_JITTER));
+                server.setErrorRate(ERROR_RATE);
+            }
+
+            BuildConfig config = new BuildConfig();
+            config.setKojiHubURL(kojiHub.getURL());
+            config.setPncURL(pncServer.getURL());
+
+            Map<Checksum, Collection<String>> md5Table = dataset.getChecksumTable(ChecksumType.md5, NUM_MISSING);
+            Map<Checksum, Collection<String>> sha256Table = dataset.convertChecksumTable(md5Table, ChecksumType.sha256);
+
+            try (KojiClientSession session = new KojiClientSession(config.getKojiHubURL());
+                    PncClientImpl pncClient = new PncClientImpl(config)) {
+                BuildFinderUtils buildFinderUtils = new BuildFinderUtils(config, null, session);
+                PncBuildFinder pncBuildFinder = new PncBuildFinder(pncClient, buildFinderUtils, config);
+                BuildFinder finder = new BuildFinder(session, config);
+
+                Instant pncStartTime = Instant.now();
+                FindBuildsResult pncResult = pncBuildFinder.findBuildsPnc(sha256Table);
+                Duration pncDuration = Duration.between(pncStartTime, Instant.now());
+
+                Map<Checksum, Collection<String>> kojiTable = dataset
+                        .convertChecksumTable(pncResult.getNotFoundChecksums(), ChecksumType.md5);
+
+                Instant kojiStartTime = Instant.now();
+                Map<BuildSystemInteger, KojiBuild> kojiBuilds = finder.findBuilds(kojiTable);
+                Duration kojiDuration = Duration.between(kojiStartTime, Instant.now());
+
+                report("PNC", sha256Table.size(), pncDuration, pncServer);
+                report("Koji", kojiTable.size(), kojiDuration, kojiHub);
+                report("Total", sha256Table.size(), pncDuration.plus(kojiDuration), null);
+
+                int numPncBuilds = 0;
+                int numKojiBuilds = 0;
+
+                for (int i = 0; i < dataset.getNumBuilds(); i++) {
+                    if (dataset.isPncBuild(i)) {
+                        numPncBuilds++;
+                    } else {
+                        numKojiBuilds++;
+                    }
+                }
+
+                assertThat(pncResult.getFoundBuilds().keySet())
+                        .filteredOn(id -> id.getBuildSystem() == BuildSystem.pnc)
+                        .hasSize(numPncBuilds);
+                assertThat(kojiBuilds.keySet()).filteredOn(id -> id.getBuildSystem() == BuildSystem.koji)
+                        .hasSize(numKojiBuilds);
+                assertThat(finder.getNotFoundChecksums()).hasSize(NUM_MISSING);
+            }
+        }
+    }
+
+    private static void report(String name, int numLookups, Duration duration, AbstractStandInServer server) {
+        double seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1L);
+
+        LOGGER.info(
+                "{}: {} lookups in {} ({} lookups/sec)",
+                name,
+                green(numLookups),
+                green(duration),
+                green(String.format("%.1f", seconds > 0.0D ? numLookups / seconds : 0.0D)));
+
+        if (server != null) {
+            Snapshot snapshot = server.getTimer().getSnapshot();
+
+            LOGGER.info(
+                    "{}: {} requests, latency p50 {} ms, p95 {} ms, p99 {} ms, max {} ms",
+                    name,
+                    green(server.getTimer().getCount()),
+                    green(toMillis(snapshot.getMedian())),
+                    green(toMillis(snapshot.get95thPercentile())),
+                    green(toMillis(snapshot.get99thPercentile())),
+                    green(toMillis(snapshot.getMax())));
+        }
+    }
+
+    private static String toMillis(double nanos) {
+        return String.format("%.2f", nanos / TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.koji;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.jboss.pnc.build.finder.core.ChecksumType.md5;
+import static org.jboss.pnc.build.finder.core.ChecksumType.sha1;
+
+import java.util.List;
+
+import org.jboss.pnc.build.finder.core.BuildFinderObjectMapper;
+import org.jboss.pnc.build.finder.core.Checksum;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redhat.red.build.koji.model.xmlrpc.KojiArchiveInfo;
+
+class KojiLocalArchiveTest {
+    private static final ObjectMapper MAPPER = new BuildFinderObjectMapper();
+
+    @Test
+    void testChecksumsRoundTrip() throws JsonProcessingException {
+        KojiArchiveInfo archiveInfo = new KojiArchiveInfo();
+        archiveInfo.setArchiveId(1);
+        List<Checksum> checksums = List.of(
+                new Checksum(md5, "7215ee9c7d9dc229d2921a40e899ec5f", "a.txt", 1L),
+                new Checksum(sha1, "NOT-A-HEX-VALUE", "a.txt", 1L));
+        KojiLocalArchive localArchive = new KojiLocalArchive(archiveInfo, List.of("a.txt"), checksums);
+
+        String json = MAPPER.writeValueAsString(localArchive);
+        JsonNode node = MAPPER.readTree(json);
+
+        assertThat(node.get("checksums")).hasSize(2)
+                .allSatisfy(checksum -> assertThat(checksum.has("value")).isTrue());
+
+        KojiLocalArchive read = MAPPER.readValue(json, KojiLocalArchive.class);
+
+        assertThat(read.getChecksums()).extracting(Checksum::getType, Checksum::getValue)
+                .containsExactlyInAnyOrder(
+                        tuple(md5, "7215ee9c7d9dc229d2921a40e899ec5f"),
+                        tuple(sha1, "NOT-A-HEX-VALUE"));
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.koji;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class MeteredClientSessionTest {
+    @Test
+    void testGetSizeRange() {
+        assertThat(MeteredClientSession.getSizeRange(1)).isEqualTo("1");
+        assertThat(MeteredClientSession.getSizeRange(2)).isEqualTo("2-10");
+        assertThat(MeteredClientSession.getSizeRange(10)).isEqualTo("2-10");
+        assertThat(MeteredClientSession.getSizeRange(11)).isEqualTo("11-100");
+        assertThat(MeteredClientSession.getSizeRange(100)).isEqualTo("11-100");
+        assertThat(MeteredClientSession.getSizeRange(101)).isEqualTo("101-1000");
+        assertThat(MeteredClientSession.getSizeRange(1000)).isEqualTo("101-1000");
+        assertThat(MeteredClientSession.getSizeRange(1001)).isEqualTo("1001+");
+    }
+}
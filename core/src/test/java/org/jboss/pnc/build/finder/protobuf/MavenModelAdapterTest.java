@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2017 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.pnc.build.finder.protobuf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.maven.model.License;
+import org.apache.maven.model.Model;
+import org.junit.jupiter.api.Test;
+
+class MavenModelAdapterTest {
+    @Test
+    void testSerializeDeserializeMavenModel() {
+        Model model = new Model();
+        model.setModelVersion("4.0.0");
+        model.setGroupId("org.jboss.pnc.build.finder");
+        model.setArtifactId("core");
+        model.setVersion("1.0.0");
+        License license = new License();
+        license.setName("Apache License, Version 2.0");
+        license.setUrl("https://www.apache.org/licenses/LICENSE-2.0.txt");
+        model.addLicense(license);
+        MavenModelAdapter adapter = new MavenModelAdapter();
+        String xml = adapter.getXmlData(model);
+        Model deserialized = adapter.create(xml);
+
+        assertThat(deserialized.getId()).isEqualTo(model.getId());
+        assertThat(deserialized.getLicenses()).singleElement().satisfies(l -> {
+            assertThat(l.getName()).isEqualTo(license.getName());
+            assertThat(l.getUrl()).isEqualTo(license.getUrl());
+        });
+    }
+}
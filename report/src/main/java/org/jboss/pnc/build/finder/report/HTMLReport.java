@@ -50,7 +50,12 @@ import static org.jboss.pnc.build.finder.pnc.client.PncUtils.EXTERNAL_PRODUCT_ID
 import static org.jboss.pnc.build.finder.pnc.client.PncUtils.EXTERNAL_PROJECT_ID;
 import static org.jboss.pnc.build.finder.pnc.client.PncUtils.EXTERNAL_VERSION_ID;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -72,11 +77,13 @@ import com.redhat.red.build.koji.model.xmlrpc.KojiTagInfo;
 
 import j2html.attributes.Attr;
 import j2html.tags.ContainerTag;
+import j2html.tags.DomContent;
 import j2html.tags.Tag;
 import j2html.tags.specialized.ATag;
 import j2html.tags.specialized.HtmlTag;
 import j2html.tags.specialized.LiTag;
 import j2html.tags.specialized.SpanTag;
+import j2html.utils.EscapeUtil;
 
 public final class HTMLReport extends Report {
     private static final String NAME = "Build Report for ";
@@ -256,204 +263,196 @@ public final class HTMLReport extends Report {
                 .toList();
     }
 
+    private DomContent buildRow(KojiBuild build, int index) {
+        boolean found = build.getId() != null && isNotBuildIdZero(build.getId());
+
+        return tr(
+                td(text(Integer.toString(index))),
+                td(found ? linkBuild(build) : errorText(String.valueOf(build.getId()))),
+                td(found ? linkPkg(build) : text("")),
+                td(found ? text(build.getBuildInfo().getVersion().replace('_', '-')) : text("")),
+                td(
+                        build.getArchives() != null ? ol(
+                                each(
+                                        build.getArchives(),
+                                        a -> li(
+                                                linkLocalArchive(build, a),
+                                                text(": "),
+                                                text(join(", ", a.getFilenames())))))
+                                : text("")),
+                td(hl(build) ? ul(each(gln(build), n -> li(text(n)))) : text("")),
+                td(build.getTags() != null ? ul(each(build.getTags(), tag -> linkTag(build, tag))) : text("")),
+                td(
+                        build.getMethod().isPresent() ? text(build.getMethod().get())
+                                : found ? errorText("imported build") : text("")),
+                td(
+                        build.getScmSourcesZip().isPresent() ? linkArchive(build, build.getScmSourcesZip().get())
+                                : text("")),
+                td(build.getPatchesZip().isPresent() ? linkArchive(build, build.getPatchesZip().get()) : text("")),
+                td(
+                        build.getSource().isPresent() ? linkSource(build)
+                                : (build.getId() == null || isBuildIdZero(build.getId())) ? text("")
+                                        : errorText("missing URL")),
+                td(
+                        build.getTaskInfo() != null && build.getTaskInfo().getMethod() != null
+                                && "maven".equals(build.getTaskInfo().getMethod()) && build.getTaskRequest() != null
+                                && build.getTaskRequest().asMavenBuildRequest().getProperties() != null
+                                && build.getTaskRequest().asMavenBuildRequest() != null
+                                        ? each(
+                                                build.getTaskRequest().asMavenBuildRequest().getProperties().entrySet(),
+                                                entry -> text(
+                                                        entry.getKey() + (entry.getValue() != null
+                                                                ? "=" + entry.getValue() + "; "
+                                                                : "; ")))
+                                        : text("")),
+                td(
+                        build.getBuildInfo().getExtra() != null ? each(
+                                build.getBuildInfo().getExtra().entrySet(),
+                                entry -> text(
+                                        entry.getKey()
+                                                + (entry.getValue() != null ? "=" + entry.getValue() + "; " : "; ")))
+                                : text("")));
+    }
+
+    private DomContent htmlHead() {
+        return head(style().withText(HTML_STYLE)).with(title().withText(getName()));
+    }
+
+    private DomContent reportsDiv() {
+        return div(
+                attrs("#div-reports"),
+                table(
+                        caption(text("Reports")),
+                        thead(tr(th(text("Name")), th(text("Description")))),
+                        tbody(
+                                tr(
+                                        td(a().withHref(HASH_DIV + getBaseFilename()).with(text("Builds"))),
+                                        td(text(getDescription()))),
+                                each(
+                                        reports,
+                                        report -> tr(
+                                                td(
+                                                        a().withHref(HASH_DIV + report.getBaseFilename())
+                                                                .with(text(report.getName()))),
+                                                td(text(report.getDescription())))))));
+    }
+
+    private static DomContent buildsCaption() {
+        return caption(text("Builds"));
+    }
+
+    private static DomContent buildsTableHead() {
+        return thead(
+                tr(
+                        th(text("#")),
+                        th(text("ID")),
+                        th(text("Name")),
+                        th(text("Version")),
+                        th(text("Artifacts")),
+                        th(text("Licenses")),
+                        th(text("Tags")),
+                        th(text("Type")),
+                        th(text("Sources")),
+                        th(text("Patches")),
+                        th(text("SCM URL")),
+                        th(text("Options")),
+                        th(text("Extra"))));
+    }
+
+    private static DomContent reportDiv(Report report) {
+        return div(attrs(HASH_DIV + report.getBaseFilename()), report.toHTML());
+    }
+
+    private static DomContent footerDiv() {
+        return div(
+                attrs("#div-footer"),
+                footer().attr(Attr.CLASS, "footer")
+                        .attr(Attr.ID, "footer")
+                        .with(
+                                text("Created: " + LocalDateTime.now() + " by "),
+                                a().withHref(GITHUB_URL).with(text(REPORT_NAME)),
+                                text(" " + Utils.getBuildFinderVersion() + " (SHA: "),
+                                a().withHref(GITHUB_URL + "/commit/" + Utils.getBuildFinderScmRevision())
+                                        .with(text(Utils.getBuildFinderScmRevision() + ")"))));
+    }
+
     @Override
     public ContainerTag<HtmlTag> toHTML() {
+        int size = builds.size();
+        DomContent[] rows = new DomContent[size];
+
+        for (int i = 0; i < size; i++) {
+            rows[i] = buildRow(builds.get(i), i);
+        }
+
         return html(
-                head(style().withText(HTML_STYLE)).with(title().withText(getName())),
+                htmlHead(),
                 body().with(
                         header(h1(getName())),
                         main(
-                                div(
-                                        attrs("#div-reports"),
-                                        table(
-                                                caption(text("Reports")),
-                                                thead(tr(th(text("Name")), th(text("Description")))),
-                                                tbody(
-                                                        tr(
-                                                                td(
-                                                                        a().withHref(HASH_DIV + getBaseFilename())
-                                                                                .with(text("Builds"))),
-                                                                td(text(getDescription()))),
-                                                        each(
-                                                                reports,
-                                                                report -> tr(
-                                                                        td(
-                                                                                a().withHref(
-                                                                                        HASH_DIV + report
-                                                                                                .getBaseFilename())
-                                                                                        .with(text(report.getName()))),
-                                                                        td(text(report.getDescription()))))))),
+                                reportsDiv(),
                                 div(
                                         attrs(HASH_DIV + getBaseFilename()),
-                                        table(
-                                                caption(text("Builds")),
-                                                thead(
-                                                        tr(
-                                                                th(text("#")),
-                                                                th(text("ID")),
-                                                                th(text("Name")),
-                                                                th(text("Version")),
-                                                                th(text("Artifacts")),
-                                                                th(text("Licenses")),
-                                                                th(text("Tags")),
-                                                                th(text("Type")),
-                                                                th(text("Sources")),
-                                                                th(text("Patches")),
-                                                                th(text("SCM URL")),
-                                                                th(text("Options")),
-                                                                th(text("Extra")))),
-                                                tbody(
-                                                        each(
-                                                                builds,
-                                                                build -> tr(
-                                                                        td(
-                                                                                text(
-                                                                                        Integer.toString(
-                                                                                                builds.indexOf(
-                                                                                                        build)))),
-                                                                        td(
-                                                                                (build.getId() != null
-                                                                                        && isNotBuildIdZero(
-                                                                                                build.getId()))
-                                                                                                        ? linkBuild(
-                                                                                                                build)
-                                                                                                        : errorText(
-                                                                                                                String.valueOf(
-                                                                                                                        build.getId()))),
-                                                                        td(
-                                                                                (build.getId() != null
-                                                                                        && isNotBuildIdZero(
-                                                                                                build.getId()))
-                                                                                                        ? linkPkg(build)
-                                                                                                        : text("")),
-                                                                        td(
-                                                                                (build.getId() != null
-                                                                                        && isNotBuildIdZero(
-                                                                                                build.getId())) ? text(
-                                                                                                        build.getBuildInfo()
-                                                                                                                .getVersion()
-                                                                                                                .replace(
-                                                                                                                        '_',
-                                                                                                                        '-'))
-                                                                                                        : text("")),
-                                                                        td(
-                                                                                build.getArchives() != null ? ol(
-                                                                                        each(
-                                                                                                build.getArchives(),
-                                                                                                a -> li(
-                                                                                                        linkLocalArchive(
-                                                                                                                build,
-                                                                                                                a),
-                                                                                                        text(": "),
-                                                                                                        text(
-                                                                                                                join(
-                                                                                                                        ", ",
-                                                                                                                        a.getFilenames())))))
-                                                                                        : text("")),
-                                                                        td(
-                                                                                hl(
-                                                                                        build) ? ul(each(gln(build), n -> li(text(n)))) : text("")),
-                                                                        td(
-                                                                                build.getTags() != null
-                                                                                        ? ul(
-                                                                                                each(
-                                                                                                        build.getTags(),
-                                                                                                        tag -> linkTag(
-                                                                                                                build,
-                                                                                                                tag)))
-                                                                                        : text("")),
-                                                                        td(
-                                                                                build.getMethod().isPresent()
-                                                                                        ? text(build.getMethod().get())
-                                                                                        : (build.getId() != null
-                                                                                                && isNotBuildIdZero(
-                                                                                                        build.getId()))
-                                                                                                                ? errorText(
-                                                                                                                        "imported build")
-                                                                                                                : text(
-                                                                                                                        "")),
-                                                                        td(
-                                                                                build.getScmSourcesZip().isPresent()
-                                                                                        ? linkArchive(
-                                                                                                build,
-                                                                                                build.getScmSourcesZip()
-                                                                                                        .get())
-                                                                                        : text("")),
-                                                                        td(
-                                                                                build.getPatchesZip().isPresent()
-                                                                                        ? linkArchive(
-                                                                                                build,
-                                                                                                build.getPatchesZip()
-                                                                                                        .get())
-                                                                                        : text("")),
-                                                                        td(
-                                                                                build.getSource().isPresent()
-                                                                                        ? linkSource(build)
-                                                                                        : (build.getId() == null
-                                                                                                || isBuildIdZero(
-                                                                                                        build.getId()))
-                                                                                                                ? text(
-                                                                                                                        "")
-                                                                                                                : errorText(
-                                                                                                                        "missing URL")),
-                                                                        td(
-                                                                                build.getTaskInfo() != null
-                                                                                        && build.getTaskInfo()
-                                                                                                .getMethod() != null
-                                                                                        && "maven".equals(
-                                                                                                build.getTaskInfo()
-                                                                                                        .getMethod())
-                                                                                        && build.getTaskRequest() != null
-                                                                                        && build.getTaskRequest()
-                                                                                                .asMavenBuildRequest()
-                                                                                                .getProperties() != null
-                                                                                        && build.getTaskRequest()
-                                                                                                .asMavenBuildRequest() != null
-                                                                                                        ? each(
-                                                                                                                build.getTaskRequest()
-                                                                                                                        .asMavenBuildRequest()
-                                                                                                                        .getProperties()
-                                                                                                                        .entrySet(),
-                                                                                                                entry -> text(
-                                                                                                                        entry.getKey()
-                                                                                                                                + (entry.getValue() != null
-                                                                                                                                        ? "=" + entry
-                                                                                                                                                .getValue()
-                                                                                                                                                + "; "
-                                                                                                                                        : "; ")))
-                                                                                                        : text("")),
-                                                                        td(
-                                                                                build.getBuildInfo().getExtra() != null
-                                                                                        ? each(
-                                                                                                build.getBuildInfo()
-                                                                                                        .getExtra()
-                                                                                                        .entrySet(),
-                                                                                                entry -> text(
-                                                                                                        entry.getKey()
-                                                                                                                + (entry.getValue() != null
-                                                                                                                        ? "=" + entry
-                                                                                                                                .getValue()
-                                                                                                                                + "; "
-                                                                                                                        : "; ")))
-                                                                                        : text(""))))))),
-                                each(
-                                        reports,
-                                        report -> div(attrs(HASH_DIV + report.getBaseFilename()), report.toHTML()))),
-                        div(
-                                attrs("#div-footer"),
-                                footer().attr(Attr.CLASS, "footer")
-                                        .attr(Attr.ID, "footer")
-                                        .with(
-                                                text("Created: " + LocalDateTime.now() + " by "),
-                                                a().withHref(GITHUB_URL).with(text(REPORT_NAME)),
-                                                text(" " + Utils.getBuildFinderVersion() + " (SHA: "),
-                                                a().withHref(
-                                                        GITHUB_URL + "/commit/" + Utils.getBuildFinderScmRevision())
-                                                        .with(text(Utils.getBuildFinderScmRevision() + ")"))))));
+                                        table(buildsCaption(), buildsTableHead(), tbody(rows))),
+                                each(reports, HTMLReport::reportDiv)),
+                        footerDiv()));
+    }
+
+    /**
+     * Renders the report to the given writer. The output is the same as rendering {@link #toHTML()}, but the page is
+     * written piece by piece and each build row is created, rendered and discarded in turn, so that the whole page
+     * never has to be held in memory.
+     *
+     * @param writer the writer
+     * @throws IOException if an error occurs writing the report
+     */
+    public void render(Writer writer) throws IOException {
+        writer.write(document().render());
+        writer.write("<html>");
+        writer.write(htmlHead().render());
+        writer.write("<body>");
+        writer.write(header(h1(getName())).render());
+        writer.write("<main>");
+        writer.write(reportsDiv().render());
+        writer.write("<div id=\"" + EscapeUtil.escape(HASH_DIV.substring(1) + getBaseFilename()) + "\"><table>");
+        writer.write(buildsCaption().render());
+        writer.write(buildsTableHead().render());
+        writer.write("<tbody>");
+
+        int index = 0;
+
+        for (KojiBuild build : builds) {
+            writer.write(buildRow(build, index++).render());
+        }
+
+        writer.write("</tbody></table></div>");
+
+        for (Report report : reports) {
+            writer.write(reportDiv(report).render());
+        }
+
+        writer.write("</main>");
+        writer.write(footerDiv().render());
+        writer.write("</body></html>");
     }
 
     @Override
     public Optional<String> renderText() {
-        return Optional.of(document().render() + toHTML().render());
+        StringWriter writer = new StringWriter();
+
+        try {
+            render(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Optional.of(writer.toString());
+    }
+
+    @Override
+    public void outputHTML() throws IOException {
+        try (Writer writer = Files.newBufferedWriter(getOutputDirectory().resolve(getBaseFilename() + ".html"))) {
+            render(writer);
+        }
     }
 }
@@ -22,6 +22,7 @@ import static com.redhat.red.build.koji.model.json.KojiJsonConstants.EXTERNAL_BU
 import static com.redhat.red.build.koji.model.json.KojiJsonConstants.GROUP_ID;
 import static com.redhat.red.build.koji.model.json.KojiJsonConstants.VERSION;
 import static com.redhat.red.build.koji.model.xmlrpc.KojiBtype.maven;
+import static j2html.TagCreator.document;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.as;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -290,5 +291,14 @@ class ReportTest {
         assertThat(htmlReport.getOutputDirectory().resolve(htmlReport.getBaseFilename() + ".html")).content(UTF_8)
                 .startsWith("<!DOCTYPE html>")
                 .endsWith("</html>");
+
+        // The footer holds the creation time, so only the page up to the footer is compared
+        String footer = "<div id=\"div-footer\">";
+        String streamed = htmlReport.renderText().orElseThrow();
+        String rendered = document().render() + htmlReport.toHTML().render();
+
+        assertThat(streamed).contains(footer);
+        assertThat(streamed.substring(0, streamed.indexOf(footer)))
+                .isEqualTo(rendered.substring(0, rendered.indexOf(footer)));
     }
 }